@@ -0,0 +1,199 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.http;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The peak heap of uploading a payload of 500 MB to a local server, as a String against the streamed bodies. The String (1 GB of chars) is built
+ * once before the uploads as a serializer would, its peak adds the encoded bytes of OkHttp. The buffer is built on the heap in every upload. The peak
+ * is the sum of the peaks of the heap pools since the garbage collection before the upload, printed after every upload as {@code peak heap}:
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="HttpClientUploadBenchmark"
+ * </pre>
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g", "-Dsun.net.httpserver.maxIdleConnections=10000" })
+public class HttpClientUploadBenchmark {
+
+    @Param({ "524288000" })
+    private int size;
+
+    private HttpServer server;
+
+    private ExecutorService executor;
+
+    private URL url;
+
+    private Path file;
+
+    // 64 KB of the text of the payload
+    private byte[] chunk;
+
+    /**
+     * The peak heap of an upload.
+     */
+    @State(Scope.Thread)
+    public static class Heap {
+
+        @Setup(Level.Invocation)
+        public void reset() {
+            System.gc();
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    pool.resetPeakUsage();
+                }
+            }
+        }
+
+        @TearDown(Level.Invocation)
+        public void peak() {
+            long peak = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    peak += pool.getPeakUsage().getUsed();
+                }
+            }
+            System.out.println("peak heap: " + peak / 1024 / 1024 + " MB");
+        }
+    }
+
+    /**
+     * The payload materialized as a String, only for the String upload.
+     */
+    @State(Scope.Benchmark)
+    public static class Payload {
+        private String string;
+
+        @Setup
+        public void build(HttpClientUploadBenchmark benchmark) {
+            byte[] bytes = new byte[benchmark.size];
+            Arrays.fill(bytes, (byte) 'x');
+            string = new String(bytes, StandardCharsets.US_ASCII);
+        }
+    }
+
+    @Setup
+    public void start() throws IOException {
+        chunk = new byte[64 * 1024];
+        Arrays.fill(chunk, (byte) 'x');
+        file = Files.createTempFile("upload", ".txt");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (int written = 0; written < size; written += chunk.length) {
+                out.write(chunk, 0, Math.min(chunk.length, size - written));
+            }
+        }
+        executor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 16);
+        server.setExecutor(executor);
+        // reads and drops the body
+        server.createContext("/", exchange -> {
+            try (InputStream in = exchange.getRequestBody()) {
+                byte[] bytes = new byte[64 * 1024];
+                while (in.read(bytes) != -1) {
+                }
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+        url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+    }
+
+    @TearDown
+    public void stop() throws IOException {
+        server.stop(0);
+        executor.shutdownNow();
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public String string(Heap heap, Payload payload) throws IOException {
+        return HttpClient.post(url, MediaType.TEXT_PLAIN, payload.string);
+    }
+
+    @Benchmark
+    public String writer(Heap heap) throws IOException {
+        return HttpClient.post(url, MediaType.TEXT_PLAIN, HttpBody.of(sink -> {
+            for (int written = 0; written < size; written += chunk.length) {
+                sink.write(chunk, 0, Math.min(chunk.length, size - written));
+            }
+        }));
+    }
+
+    @Benchmark
+    public String path(Heap heap) throws IOException {
+        return HttpClient.post(url, MediaType.TEXT_PLAIN, HttpBody.of(file));
+    }
+
+    @Benchmark
+    public String stream(Heap heap) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return HttpClient.post(url, MediaType.TEXT_PLAIN, HttpBody.of(in, HttpBody.CHUNKED));
+        }
+    }
+
+    @Benchmark
+    public String buffer(Heap heap) throws IOException {
+        // the payload of a serializer into a heap buffer
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        while (buffer.hasRemaining()) {
+            buffer.put(chunk, 0, Math.min(chunk.length, buffer.remaining()));
+        }
+        buffer.flip();
+        return HttpClient.post(url, MediaType.TEXT_PLAIN, HttpBody.of(buffer));
+    }
+}
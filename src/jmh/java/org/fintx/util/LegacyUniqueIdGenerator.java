@@ -0,0 +1,81 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+import java.security.SecureRandom;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The synchronized second rollover of the former {@code UniqueId} constructor, kept as the baseline of the generator benchmarks.
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+final class LegacyUniqueIdGenerator {
+
+    private static final int LOW_ORDER_THREE_BYTES = 0x00ffffff;
+
+    private final AtomicInteger nextCounter = new AtomicInteger(new SecureRandom().nextInt());
+
+    private final AtomicLong lastTimestamp = new AtomicLong(0);
+
+    private final long machineIdentifier;
+
+    private final short processIdentifier;
+
+    LegacyUniqueIdGenerator(final long machineIdentifier, final short processIdentifier) {
+        this.machineIdentifier = machineIdentifier;
+        this.processIdentifier = processIdentifier;
+    }
+
+    UniqueId get() {
+        final int timestamp = (int) ((new Date().getTime() / 1000L) & 0xffffffffL);
+        final int counter = nextCounter.getAndIncrement();
+        long current = lastTimestamp.get();
+        if ((timestamp & 0xffffffffL) == (current & 0xffffffffL)) {
+            return new UniqueId(timestamp, machineIdentifier, processIdentifier, counter & LOW_ORDER_THREE_BYTES);
+        } else if ((timestamp & 0xffffffffL) > (current & 0xffffffffL)) {
+            synchronized (this) {
+                current = lastTimestamp.get();
+                if ((timestamp & 0xffffffffL) > (current & 0xffffffffL)) {
+                    lastTimestamp.set(timestamp & 0xffffffffL);
+                    return new UniqueId(timestamp, machineIdentifier, processIdentifier, counter & LOW_ORDER_THREE_BYTES);
+                } else if ((timestamp & 0xffffffffL) == (current & 0xffffffffL)) {
+                    return new UniqueId(timestamp, machineIdentifier, processIdentifier, counter & LOW_ORDER_THREE_BYTES);
+                } else if ((current & 0xffffffffL) - (timestamp & 0xffffffffL) == 1L) {
+                    return new UniqueId((int) current, machineIdentifier, processIdentifier, counter & LOW_ORDER_THREE_BYTES);
+                } else {
+                    return new UniqueId((int) current, machineIdentifier, processIdentifier, nextCounter.getAndIncrement() & LOW_ORDER_THREE_BYTES);
+                }
+            }
+        } else {
+            synchronized (this) {
+                current = lastTimestamp.get();
+                if ((current & 0xffffffffL) - (timestamp & 0xffffffffL) == 1L) {
+                    // lastTimestamp increased after timestamp generated
+                } else if (((current & 0xffffffffL) - (timestamp & 0xffffffffL)) >= 0x7fffffffL) {
+                    lastTimestamp.set(timestamp & 0xffffffffL);
+                } else {
+                    throw new IllegalArgumentException(
+                            "The timestamp must not be less then the timestamp last time. (Maybe the machine correct time using time server).");
+                }
+            }
+            return new UniqueId(timestamp, machineIdentifier, processIdentifier, counter & LOW_ORDER_THREE_BYTES);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the millisecond ids against the second ids, generating and generating into a string. The millisecond ids share one compare-and-set
+ * per id among all threads, run it with more threads to see the contention:
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="MonotonicUniqueIdBenchmark -t 4"
+ * </pre>
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MonotonicUniqueIdBenchmark {
+
+    @Benchmark
+    public UniqueId uniqueIdGet() {
+        return UniqueId.get();
+    }
+
+    @Benchmark
+    public MonotonicUniqueId monotonicGet() {
+        return MonotonicUniqueId.get();
+    }
+
+    @Benchmark
+    public String uniqueIdGetString() {
+        return UniqueId.getString();
+    }
+
+    @Benchmark
+    public String monotonicGetString() {
+        return MonotonicUniqueId.getString();
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of generating a batch of ids one by one against the batch methods. The primary score is batches per microsecond, the secondary {@code ids} score
+ * is ids per microsecond, which is the per id cost to compare across batch sizes.
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UniqueIdBatchBenchmark {
+
+    @Param({ "1", "64", "1024", "65536" })
+    private int batch;
+
+    private UniqueIdGenerator generator;
+
+    private UniqueId[] ids;
+
+    private byte[] bytes;
+
+    @Setup
+    public void setup() {
+        generator = UniqueIdGenerator.builder().exhaustionPolicy(UniqueIdGenerator.ExhaustionPolicy.BORROW_NEXT_SECOND).build();
+        ids = new UniqueId[batch];
+        bytes = new byte[batch * 15];
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Ids {
+        public long ids;
+
+        @Setup(Level.Iteration)
+        public void clean() {
+            ids = 0;
+        }
+    }
+
+    @Benchmark
+    public void loop(Ids counter, Blackhole blackhole) {
+        for (int i = 0; i < batch; i++) {
+            blackhole.consume(generator.get());
+        }
+        counter.ids += batch;
+    }
+
+    @Benchmark
+    public UniqueId[] getBatch(Ids counter) {
+        counter.ids += batch;
+        return generator.get(batch);
+    }
+
+    @Benchmark
+    public UniqueId[] fillArray(Ids counter) {
+        generator.fill(ids);
+        counter.ids += batch;
+        return ids;
+    }
+
+    @Benchmark
+    public byte[] fillBytes(Ids counter) {
+        generator.fill(bytes, 0, batch);
+        counter.ids += batch;
+        return bytes;
+    }
+}
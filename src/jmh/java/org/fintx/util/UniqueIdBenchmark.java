@@ -0,0 +1,177 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * The regression suite of the public {@link UniqueId} operations on the hot path: generation, encoding, parsing, comparing, hashing and validation. The
+ * {@link #main(String[])} method runs it at every thread count and writes one JSON result file, so the results of two versions could be diffed:
+ * </p>
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.main=org.fintx.util.UniqueIdBenchmark
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.main=org.fintx.util.UniqueIdBenchmark -Djmh.args="--threads=1,8 --result=target/v2.json -wi 1 -i 3"
+ * </pre>
+ * <p>
+ * The arguments are the usual JMH command line options, besides {@code --threads=} the thread counts (1, 4 and 16 by default) and {@code --result=}
+ * the result file ({@code target/uniqueid-benchmark.json} by default).
+ * </p>
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UniqueIdBenchmark {
+
+    private static final int SIZE = 1024;
+
+    private final UniqueId[] ids = new UniqueId[SIZE];
+
+    private final String[] hexStrings = new String[SIZE];
+
+    private final String[] base64Strings = new String[SIZE];
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < SIZE; i++) {
+            ids[i] = UniqueId.get();
+            hexStrings[i] = ids[i].toHexString();
+            base64Strings[i] = ids[i].toBase64String();
+        }
+        java.util.Collections.shuffle(java.util.Arrays.asList(ids));
+    }
+
+    /**
+     * The index of the inputs of every thread, so the inputs change and nothing is constant folded.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int index;
+
+        int next() {
+            return index++ & (SIZE - 1);
+        }
+    }
+
+    @Benchmark
+    public UniqueId get() {
+        return UniqueId.get();
+    }
+
+    @Benchmark
+    public String getString() {
+        return UniqueId.getString();
+    }
+
+    @Benchmark
+    public String toHexString(final Cursor cursor) {
+        return ids[cursor.next()].toHexString();
+    }
+
+    @Benchmark
+    public String toBase64String(final Cursor cursor) {
+        return ids[cursor.next()].toBase64String();
+    }
+
+    @Benchmark
+    public UniqueId fromHexString(final Cursor cursor) {
+        return UniqueId.fromHexString(hexStrings[cursor.next()]);
+    }
+
+    @Benchmark
+    public UniqueId fromBase64String(final Cursor cursor) {
+        return UniqueId.fromBase64String(base64Strings[cursor.next()]);
+    }
+
+    @Benchmark
+    public int compareTo(final Cursor cursor) {
+        int i = cursor.next();
+        return ids[i].compareTo(ids[(i + 1) & (SIZE - 1)]);
+    }
+
+    @Benchmark
+    public int hashCode(final Cursor cursor) {
+        return ids[cursor.next()].hashCode();
+    }
+
+    @Benchmark
+    public boolean isValid(final Cursor cursor) {
+        return UniqueId.isValid(base64Strings[cursor.next()]);
+    }
+
+    public static void main(String[] args) throws Exception {
+        String threads = "1,4,16";
+        String result = "target/uniqueid-benchmark.json";
+        List<String> jmhArgs = new ArrayList<String>();
+        for (String arg : args) {
+            if (arg.startsWith("--threads=")) {
+                threads = arg.substring("--threads=".length());
+            } else if (arg.startsWith("--result=")) {
+                result = arg.substring("--result=".length());
+            } else if (!arg.startsWith("-") && jmhArgs.isEmpty()) {
+                // the default benchmark pattern of the profile, this suite runs itself only
+                continue;
+            } else {
+                jmhArgs.add(arg);
+            }
+        }
+        CommandLineOptions options = new CommandLineOptions(jmhArgs.toArray(new String[jmhArgs.size()]));
+        List<RunResult> results = new ArrayList<RunResult>();
+        for (String count : threads.split(",")) {
+            File temp = File.createTempFile("uniqueid-benchmark", ".json");
+            try {
+                results.addAll(new Runner(new OptionsBuilder().parent(options).include(UniqueIdBenchmark.class.getName() + "\\.")
+                        .threads(Integer.parseInt(count.trim())).resultFormat(ResultFormatType.JSON).result(temp.getPath()).build()).run());
+            } finally {
+                temp.delete();
+            }
+        }
+        File file = new File(result).getAbsoluteFile();
+        file.getParentFile().mkdirs();
+        try (PrintStream out = new PrintStream(file, "UTF-8")) {
+            ResultFormatFactory.getInstance(ResultFormatType.JSON, out).writeOut(results);
+        }
+        System.out.println("Results of " + results.size() + " runs written to " + file);
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of one id with the system clock against the cached clock, and of reading the clocks alone. Thread local blocks take the shared state out of
+ * the picture, so the clock is most of what is left:
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="UniqueIdClockBenchmark -t 4"
+ * </pre>
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UniqueIdClockBenchmark {
+
+    private final UniqueIdGenerator system = UniqueIdGenerator.builder().machineIdentifier(0x0000123456789ae0L).blockSize(4096).build();
+
+    private final UniqueIdGenerator cached = UniqueIdGenerator.builder().machineIdentifier(0x0000123456789ae1L).blockSize(4096)
+            .clock(UniqueIdClock.cached()).build();
+
+    @Benchmark
+    public UniqueId systemClockGet() {
+        return system.get();
+    }
+
+    @Benchmark
+    public UniqueId cachedClockGet() {
+        return cached.get();
+    }
+
+    @Benchmark
+    public long systemClock() {
+        return UniqueIdClock.SYSTEM.currentTimeSeconds();
+    }
+
+    @Benchmark
+    public long cachedClock() {
+        return UniqueIdClock.cached().currentTimeSeconds();
+    }
+}
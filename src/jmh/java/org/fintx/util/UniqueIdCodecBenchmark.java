@@ -0,0 +1,178 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding an id with the caller supplied arrays and buffers against the legacy encoding, which went through temporary arrays of every field. Run it with
+ * the gc profiler to see the bytes allocated per operation:
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="UniqueIdCodecBenchmark -prof gc"
+ * </pre>
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UniqueIdCodecBenchmark {
+
+    private static final char[] HEX_CHARS = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f' };
+
+    private UniqueId id;
+
+    private byte[] bytes;
+
+    private char[] chars;
+
+    private ByteBuffer heap;
+
+    private ByteBuffer direct;
+
+    @Setup
+    public void setup() {
+        id = UniqueId.get();
+        bytes = new byte[15];
+        chars = new char[30];
+        heap = ByteBuffer.allocate(15);
+        direct = ByteBuffer.allocateDirect(15);
+    }
+
+    @Benchmark
+    public byte[] legacyToByteArray() {
+        return legacyBytes(id);
+    }
+
+    @Benchmark
+    public byte[] toByteArray() {
+        return id.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] toByteArrayOffset() {
+        id.toByteArray(bytes, 0);
+        return bytes;
+    }
+
+    @Benchmark
+    public ByteBuffer writeToHeap() {
+        id.writeTo(heap, 0);
+        return heap;
+    }
+
+    @Benchmark
+    public ByteBuffer writeToDirect() {
+        id.writeTo(direct, 0);
+        return direct;
+    }
+
+    @Benchmark
+    public UniqueId fromByteArrayOffset() {
+        return UniqueId.fromByteArray(bytes, 0);
+    }
+
+    @Benchmark
+    public String legacyToHexString() {
+        byte[] legacy = legacyBytes(id);
+        char[] hex = new char[30];
+        int i = 0;
+        for (byte b : legacy) {
+            hex[i++] = HEX_CHARS[b >> 4 & 0xf];
+            hex[i++] = HEX_CHARS[b & 0xf];
+        }
+        return new String(hex);
+    }
+
+    @Benchmark
+    public String toHexString() {
+        return id.toHexString();
+    }
+
+    @Benchmark
+    public char[] toHexChars() {
+        id.toHexChars(chars, 0);
+        return chars;
+    }
+
+    @Benchmark
+    public String legacyToBase64String() {
+        return Base64.getUrlEncoder().encodeToString(legacyBytes(id));
+    }
+
+    @Benchmark
+    public String toBase64String() {
+        return id.toBase64String();
+    }
+
+    @Benchmark
+    public char[] toBase64Chars() {
+        id.toBase64Chars(chars, 0);
+        return chars;
+    }
+
+    /**
+     * The byte array conversion before the codec, a temporary array for every field.
+     */
+    private static byte[] legacyBytes(UniqueId id) {
+        byte[] bytes = new byte[15];
+        byte[] temp = int2bytes((int) id.getTimestamp());
+        System.arraycopy(temp, 0, bytes, 0, 4);
+        temp = long2bytes(id.getMachineIdentifier());
+        System.arraycopy(temp, 2, bytes, 4, 6);
+        temp = int2bytes(id.getProcessIdentifier());
+        System.arraycopy(temp, 2, bytes, 10, 2);
+        temp = int2bytes(id.getCounter());
+        System.arraycopy(temp, 1, bytes, 12, 3);
+        return bytes;
+    }
+
+    private static byte[] int2bytes(final int num) {
+        byte[] bytes = new byte[4];
+        for (int ix = 0; ix < 4; ++ix) {
+            int offset = 32 - (ix + 1) * 8;
+            bytes[ix] = (byte) ((num >> offset) & 0xff);
+        }
+        return bytes;
+    }
+
+    private static byte[] long2bytes(final long num) {
+        byte[] bytes = new byte[8];
+        for (int ix = 0; ix < 8; ++ix) {
+            int offset = 64 - (ix + 1) * 8;
+            bytes[ix] = (byte) ((num >> offset) & 0xff);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolving the time of an id: the former {@code getDate()}, which read the clock into a {@code Date} and divided by the round length several times,
+ * against the accessors resolving with the cached pivot. {@code epochSeconds} resolves 1024 ids at once, its score is per batch.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="UniqueIdDateBenchmark -prof gc"
+ * </pre>
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UniqueIdDateBenchmark {
+
+    private UniqueId id;
+
+    private UniqueId[] ids;
+
+    private long[] seconds;
+
+    @Setup
+    public void setup() {
+        id = UniqueId.get();
+        ids = UniqueId.get(1024);
+        seconds = new long[ids.length];
+    }
+
+    @Benchmark
+    public Date legacyGetDate() {
+        long now = new Date().getTime();
+        long timestamp = id.getTimestamp();
+        if (timestamp <= (now / 1000L % 0xffffffffL)) {
+            return new Date((((now / 1000L / 0xffffffffL) * 0xffffffffL + timestamp) + now / 1000L / 0xffffffffL) * 1000L);
+        } else if ((timestamp + now / 1000L / 0xffffffffL) - (now / 1000L % 0xffffffffL) >= 0x7fffffffL) {
+            return new Date((((now / 1000L / 0xffffffffL) - 1) * 0xffffffffL + timestamp + (now / 1000L / 0xffffffffL) - 1) * 1000L);
+        } else {
+            throw new IllegalArgumentException("The timestamp must not be less then the timestamp now. (Maybe the machine correct time using time server).");
+        }
+    }
+
+    @Benchmark
+    public Date getDate() {
+        return id.getDate();
+    }
+
+    @Benchmark
+    public Instant getInstant() {
+        return id.getInstant();
+    }
+
+    @Benchmark
+    public long getEpochSecond() {
+        return id.getEpochSecond();
+    }
+
+    @Benchmark
+    public long toEpochMilli() {
+        return id.toEpochMilli();
+    }
+
+    @Benchmark
+    public long[] epochSeconds() {
+        UniqueIds.epochSeconds(ids, seconds);
+        return seconds;
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and latency percentiles (p99.9 included) of the lock free generator against the synchronized second rollover it replaced. Each measurement
+ * iteration spans several second rollovers, so the rollover spikes are part of the sample distribution.
+ * 
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="UniqueIdGeneratorBenchmark -t 8"
+ * </pre>
+ * 
+ * The {@link #main(String[])} method runs it at 1, 8, 32 and 64 threads.
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class UniqueIdGeneratorBenchmark {
+
+    private final UniqueIdGenerator generator = new UniqueIdGenerator(UniqueId.getGeneratedMachineIdentifier(), (short) 1);
+
+    private final LegacyUniqueIdGenerator legacy = new LegacyUniqueIdGenerator(UniqueId.getGeneratedMachineIdentifier(), (short) 2);
+
+    @Benchmark
+    public UniqueId lockFree() {
+        return generator.get();
+    }
+
+    @Benchmark
+    public UniqueId synchronizedRollover() {
+        return legacy.get();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[] { 1, 8, 32, 64 }) {
+            new Runner(new OptionsBuilder().include(UniqueIdGeneratorBenchmark.class.getSimpleName()).threads(threads).build()).run();
+        }
+    }
+}
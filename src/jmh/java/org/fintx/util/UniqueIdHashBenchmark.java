@@ -0,0 +1,185 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HashMap get and put with the mixed {@link UniqueId#hashCode()} against the legacy {@code 31 *} hash of the fields, for ids of 16 simulated nodes. The
+ * bucket distribution of both is printed at setup: the empty buckets (1/e for a random hash), the longest bucket and the average probe length of the
+ * present keys, and the keys which share the whole hash code with another key. 50 million ids need a heap of about 12 GB, use a smaller count on smaller machines:
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="UniqueIdHashBenchmark -p count=5000000"
+ * </pre>
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms14g", "-Xmx14g" })
+public class UniqueIdHashBenchmark {
+
+    private static final Object VALUE = new Object();
+
+    @Param({ "50000000" })
+    public int count;
+
+    @Param({ "mixed", "legacy" })
+    public String hash;
+
+    // mac: random MAC addresses and process identifiers, container: machine identifiers configured as 1 to 16 and every process identifier is 1
+    @Param({ "mac", "container" })
+    public String nodes;
+
+    private Object[] keys;
+
+    private Map<Object, Object> map;
+
+    private Map<Object, Object> putMap;
+
+    @Setup
+    public void setup() {
+        keys = new Object[count];
+        // 16 nodes, 200 thousand ids of every node in a second
+        long[] machines = new long[16];
+        int[] counters = new int[16];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int node = 0; node < 16; node++) {
+            machines[node] = "container".equals(nodes) ? node + 1 : random.nextLong() & 0x0000ffffffffffffL;
+            counters[node] = random.nextInt(0x01000000);
+        }
+        int timestamp = (int) (System.currentTimeMillis() / 1000) - count / 16 / 200000;
+        for (int i = 0; i < count; i++) {
+            int node = i & 0xf;
+            if (i % (16 * 200000) == 0) {
+                timestamp++;
+            }
+            UniqueId id = new UniqueId(timestamp, machines[node], (short) ("container".equals(nodes) ? 1 : 4000 + node), counters[node]++ & 0x00ffffff);
+            keys[i] = "legacy".equals(hash) ? new LegacyHashId(id) : id;
+        }
+        map = new HashMap<Object, Object>();
+        for (Object key : keys) {
+            map.put(key, VALUE);
+        }
+        // requests come in any order, the order of generation would favor a hash close to the counter
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Object key = keys[i];
+            keys[i] = keys[j];
+            keys[j] = key;
+        }
+        printDistribution();
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration() {
+        putMap = new HashMap<Object, Object>();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int index;
+    }
+
+    @Benchmark
+    public Object get(final Cursor cursor) {
+        int i = cursor.index;
+        cursor.index = i + 1 == count ? 0 : i + 1;
+        return map.get(keys[i]);
+    }
+
+    @Benchmark
+    public Object put(final Cursor cursor) {
+        int i = cursor.index;
+        cursor.index = i + 1 == count ? 0 : i + 1;
+        return putMap.put(keys[i], VALUE);
+    }
+
+    /**
+     * The buckets of a HashMap of the keys, with the spreading of HashMap.
+     */
+    private void printDistribution() {
+        int buckets = Integer.highestOneBit((int) (count / 0.75f)) << 1;
+        int[] loads = new int[buckets];
+        int[] hashes = new int[count];
+        for (int i = 0; i < count; i++) {
+            int h = keys[i].hashCode();
+            hashes[i] = h;
+            loads[(h ^ (h >>> 16)) & (buckets - 1)]++;
+        }
+        java.util.Arrays.sort(hashes);
+        long duplicates = 0;
+        for (int i = 1; i < count; i++) {
+            duplicates += hashes[i] == hashes[i - 1] ? 1 : 0;
+        }
+        long empty = 0;
+        long max = 0;
+        long probes = 0;
+        for (int load : loads) {
+            empty += load == 0 ? 1 : 0;
+            max = Math.max(max, load);
+            probes += (long) load * (load + 1) / 2;
+        }
+        System.out.printf("%n%s hash, %s nodes, %d keys in %d buckets: %.1f%% empty, longest bucket %d, average probe %.2f, %d keys of a duplicate hash code%n",
+                hash, nodes, count, buckets, empty * 100.0 / buckets, max, (double) probes / count, duplicates);
+    }
+
+    /**
+     * The id with the hash before it was mixed.
+     */
+    static final class LegacyHashId {
+        private final UniqueId id;
+
+        LegacyHashId(final UniqueId id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof LegacyHashId && id.equals(((LegacyHashId) o).id);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = (int) id.getTimestamp();
+            result = 31 * result + (int) id.getMachineIdentifier();
+            result = 31 * result + (short) id.getProcessIdentifier();
+            result = 31 * result + id.getCounter();
+            return result;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Lookups per second in a {@link UniqueIdIndex} of 100M ids, about 3.2G bytes of segment files in the temporary directory. The index is filled by all
+ * processors before the measurement and deleted after it. Run it with several threads:
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="UniqueIdIndexBenchmark -t 8"
+ * </pre>
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UniqueIdIndexBenchmark {
+
+    // one second of counters per segment
+    private static final int SEGMENT_IDS = 1 << 24;
+
+    private static final int BASE_TIMESTAMP = 1500000000;
+
+    @Param({ "100000000" })
+    private int size;
+
+    private Path directory;
+
+    private UniqueIdIndex index;
+
+    @Setup(Level.Trial)
+    public void fill() throws IOException, InterruptedException {
+        directory = Files.createTempDirectory("uidx");
+        index = UniqueIdIndex.builder().directory(directory).bucketSeconds(1).bucketCapacity(SEGMENT_IDS).build();
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<Thread> workers = new ArrayList<Thread>();
+        for (int i = 0; i < threads; i++) {
+            final int first = i;
+            final int step = threads;
+            Thread t = new Thread(() -> {
+                for (int j = first; j < size; j += step) {
+                    index.add(id(j));
+                }
+            });
+            workers.add(t);
+            t.start();
+        }
+        for (Thread t : workers) {
+            t.join();
+        }
+        index.flush();
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        index.close();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public boolean containsHit() {
+        return index.contains(id(ThreadLocalRandom.current().nextInt(size)));
+    }
+
+    @Benchmark
+    public boolean containsMiss() {
+        // the same seconds as the ids in the index, another process
+        UniqueId id = id(ThreadLocalRandom.current().nextInt(size));
+        return index.contains(new UniqueId((int) id.getTimestamp(), id.getMachineIdentifier(), (short) 2, id.getCounter()));
+    }
+
+    private static UniqueId id(int i) {
+        return new UniqueId(BASE_TIMESTAMP + i / SEGMENT_IDS, 0x0000123456789abcL, (short) 1, i % SEGMENT_IDS);
+    }
+}
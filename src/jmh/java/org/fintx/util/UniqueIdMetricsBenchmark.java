@@ -0,0 +1,77 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of one id with and without {@link UniqueIdMetrics}, on the shared state and with thread local blocks:
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="UniqueIdMetricsBenchmark -t 4"
+ * </pre>
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UniqueIdMetricsBenchmark {
+
+    private final UniqueIdGenerator disabled = UniqueIdGenerator.builder().machineIdentifier(0x0000123456789b00L).build();
+
+    private final UniqueIdGenerator enabled = UniqueIdGenerator.builder().machineIdentifier(0x0000123456789b01L).metrics(true).build();
+
+    private final UniqueIdGenerator disabledBlock = UniqueIdGenerator.builder().machineIdentifier(0x0000123456789b02L).blockSize(4096)
+            .clock(UniqueIdClock.cached()).build();
+
+    private final UniqueIdGenerator enabledBlock = UniqueIdGenerator.builder().machineIdentifier(0x0000123456789b03L).blockSize(4096)
+            .clock(UniqueIdClock.cached()).metrics(true).build();
+
+    @Benchmark
+    public UniqueId disabled() {
+        return disabled.get();
+    }
+
+    @Benchmark
+    public UniqueId enabled() {
+        return enabled.get();
+    }
+
+    @Benchmark
+    public UniqueId disabledBlock() {
+        return disabledBlock.get();
+    }
+
+    @Benchmark
+    public UniqueId enabledBlock() {
+        return enabledBlock.get();
+    }
+}
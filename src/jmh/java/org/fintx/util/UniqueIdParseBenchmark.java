@@ -0,0 +1,110 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing an id with the table driven decoders against the legacy parsing, which validated first and then called {@link Integer#parseInt(String, int)}
+ * on a substring of every byte or {@link Base64#getUrlDecoder()}. Run it with the gc profiler to see the bytes allocated per operation:
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="UniqueIdParseBenchmark -prof gc"
+ * </pre>
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UniqueIdParseBenchmark {
+
+    private String hex;
+
+    private String base64;
+
+    private byte[] request;
+
+    @Setup
+    public void setup() {
+        UniqueId id = UniqueId.get();
+        hex = id.toHexString();
+        base64 = id.toBase64String();
+        request = ("GET /orders/" + base64 + " HTTP/1.1").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Benchmark
+    public UniqueId legacyFromHexString() {
+        if (!UniqueId.isValid(hex)) {
+            throw new IllegalArgumentException();
+        }
+        byte[] b = new byte[15];
+        for (int i = 0; i < b.length; i++) {
+            b[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return UniqueId.fromByteArray(b);
+    }
+
+    @Benchmark
+    public UniqueId fromHexString() {
+        return UniqueId.fromHexString(hex);
+    }
+
+    @Benchmark
+    public UniqueId legacyFromBase64String() {
+        if (!UniqueId.isValid(base64)) {
+            throw new IllegalArgumentException();
+        }
+        return UniqueId.fromByteArray(Base64.getUrlDecoder().decode(base64));
+    }
+
+    @Benchmark
+    public UniqueId fromBase64String() {
+        return UniqueId.fromBase64String(base64);
+    }
+
+    @Benchmark
+    public UniqueId fromRequestString() {
+        return UniqueId.fromBase64String(new String(request, 12, 20, StandardCharsets.US_ASCII));
+    }
+
+    @Benchmark
+    public UniqueId fromBase64Bytes() {
+        return UniqueId.fromBase64Bytes(request, 12);
+    }
+
+    @Benchmark
+    public boolean isValid() {
+        return UniqueId.isValid(base64);
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scanning a direct buffer of packed ids for the ids of one process, with the flyweight reader against materializing every id with
+ * {@link UniqueId#readFrom(ByteBuffer)}. Run it with the gc profiler to see the bytes allocated per scan:
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="UniqueIdReaderBenchmark -prof gc"
+ * </pre>
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UniqueIdReaderBenchmark {
+
+    @Param({ "1000000" })
+    public int count;
+
+    private ByteBuffer buffer;
+
+    private int processIdentifier;
+
+    @Setup
+    public void setup() {
+        buffer = ByteBuffer.allocateDirect(count * 15);
+        for (int i = 0; i < count; i++) {
+            new UniqueId((int) (System.currentTimeMillis() / 1000), 0x0000123456789abcL, (short) (i & 0xf), i & 0xffffff).writeTo(buffer);
+        }
+        buffer.flip();
+        processIdentifier = 7;
+    }
+
+    @Benchmark
+    public int readFrom() {
+        ByteBuffer src = buffer.duplicate();
+        int matched = 0;
+        while (src.hasRemaining()) {
+            if (UniqueId.readFrom(src).getProcessIdentifier() == processIdentifier) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    @Benchmark
+    public int reader() {
+        UniqueIdReader reader = UniqueIdReader.of(buffer);
+        int matched = 0;
+        while (reader.next()) {
+            if (reader.getProcessIdentifier() == processIdentifier) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+}
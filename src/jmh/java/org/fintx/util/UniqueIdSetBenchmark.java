@@ -0,0 +1,120 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Memory footprint and build time of a dedup set of 10M ids, {@link UniqueIdSet} against {@code HashSet<UniqueId>}. The ids come as raw longs, so the
+ * {@code UniqueId} instances kept by the {@code HashSet} are part of its footprint. The heap retained by the built set is measured after a full gc
+ * and printed after every invocation.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="UniqueIdSetBenchmark"
+ * </pre>
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx6g", "-Xms6g" })
+public class UniqueIdSetBenchmark {
+
+    @Param({ "10000000" })
+    private int size;
+
+    private long[] highs;
+
+    private long[] lows;
+
+    private Object built;
+
+    private long before;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        Random random = new Random(20170101L);
+        highs = new long[size];
+        lows = new long[size];
+        for (int i = 0; i < size; i++) {
+            UniqueId id = new UniqueId(1500000000 + random.nextInt(3600), 0x0000123456789abcL, (short) random.nextInt(16), random.nextInt(0x01000000));
+            highs[i] = id.toLongs()[0];
+            lows[i] = id.toLongs()[1];
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void before() {
+        before = usedHeap();
+    }
+
+    @Benchmark
+    public Object hashSet() {
+        Set<UniqueId> set = new HashSet<UniqueId>();
+        for (int i = 0; i < size; i++) {
+            set.add(UniqueId.fromLongs(highs[i], lows[i]));
+        }
+        built = set;
+        return set;
+    }
+
+    @Benchmark
+    public Object uniqueIdSet() {
+        UniqueIdSet set = new UniqueIdSet();
+        for (int i = 0; i < size; i++) {
+            set.add(highs[i], lows[i]);
+        }
+        built = set;
+        return set;
+    }
+
+    @TearDown(Level.Invocation)
+    public void after() {
+        System.out.println(built.getClass().getSimpleName() + " of " + size + " ids retains " + (usedHeap() - before) / 1024 / 1024 + " MB");
+        built = null;
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            memory.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sorting 10M shuffled ids with the field comparison of {@link UniqueId#compareTo(UniqueId)} against the former comparison of two serialized byte
+ * arrays, and sorting raw 15 bytes ids with {@link UniqueId#BYTES_COMPARATOR}. Every invocation sorts a fresh copy of the same shuffled input.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="UniqueIdSortBenchmark -prof gc"
+ * </pre>
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class UniqueIdSortBenchmark {
+
+    private static final Comparator<UniqueId> BYTE_ARRAY_ORDER = new Comparator<UniqueId>() {
+        @Override
+        public int compare(UniqueId id, UniqueId other) {
+            byte[] byteArray = id.toByteArray();
+            byte[] otherByteArray = other.toByteArray();
+            for (int i = 0; i < 15; i++) {
+                if (byteArray[i] != otherByteArray[i]) {
+                    return ((byteArray[i] & 0xff) < (otherByteArray[i] & 0xff)) ? -1 : 1;
+                }
+            }
+            return 0;
+        }
+    };
+
+    @Param({ "10000000" })
+    private int size;
+
+    private UniqueId[] input;
+
+    private byte[][] bytesInput;
+
+    private UniqueId[] ids;
+
+    private byte[][] bytes;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        // ids of 16 processes over a few seconds, shuffled as they arrive at a reconciliation job
+        Random random = new Random(20170101L);
+        input = new UniqueId[size];
+        for (int i = 0; i < size; i++) {
+            input[i] = new UniqueId(1500000000 + random.nextInt(60), 0x0000123456789abcL, (short) random.nextInt(16), random.nextInt(0x01000000));
+        }
+        bytesInput = new byte[size][];
+        for (int i = 0; i < size; i++) {
+            bytesInput[i] = input[i].toByteArray();
+        }
+        ids = new UniqueId[size];
+        bytes = new byte[size][];
+    }
+
+    @Setup(Level.Invocation)
+    public void copy() {
+        System.arraycopy(input, 0, ids, 0, size);
+        System.arraycopy(bytesInput, 0, bytes, 0, size);
+    }
+
+    @Benchmark
+    public UniqueId[] byteArrayCompare() {
+        Arrays.sort(ids, BYTE_ARRAY_ORDER);
+        return ids;
+    }
+
+    @Benchmark
+    public UniqueId[] fieldCompare() {
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    @Benchmark
+    public byte[][] bytesComparator() {
+        Arrays.sort(bytes, UniqueId.BYTES_COMPARATOR);
+        return bytes;
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the first {@link UniqueId#get()} of a JVM, which loads the classes and resolves the identity. Every fork measures one cold call; the
+ * identity comes from the network interfaces and the pid by default, or from the system properties.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="UniqueIdStartupBenchmark"
+ * </pre>
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class UniqueIdStartupBenchmark {
+
+    @Benchmark
+    @Fork(20)
+    public UniqueId firstGet() {
+        return UniqueId.get();
+    }
+
+    @Benchmark
+    @Fork(value = 20, jvmArgsAppend = { "-Dorg.fintx.util.UniqueId.machineIdentifier=0x123456789abc", "-Dorg.fintx.util.UniqueId.processIdentifier=1" })
+    public UniqueId firstGetWithProperties() {
+        return UniqueId.get();
+    }
+}
@@ -32,9 +32,12 @@ import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 
+import javax.annotation.Nullable;
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSession;
@@ -43,6 +46,20 @@ import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
 
 /**
+ * <p>
+ * Asynchronous requests, each returns a {@link CompletableFuture} of the {@link HttpResponse} at once. The response is read on a thread of the
+ * dispatcher, the future is completed there or on the executor of the caller, so the callers never block for the network:
+ * </p>
+ *
+ * <pre>
+ * AsyncHttpClient.get(url, 2, TimeUnit.SECONDS, executor).thenApply(HttpResponse::getBody).thenAccept(...);
+ * </pre>
+ * <p>
+ * The future completes with the response of any status (see {@link HttpResponse#isSuccessful()}), and exceptionally with an {@link IOException} if
+ * the request failed or timed out. Cancelling the future cancels the request. The number of requests in flight at once is limited by the
+ * {@link HttpClientConfig}, 64 and 5 per host by default.
+ * </p>
+ *
  * @author bluecreator(qiang.x.wang@gmail.com)
  *
  */
@@ -51,16 +68,43 @@ public final class AsyncHttpClient {
         throw new AssertionError("No HttpClient instances for you!");
     }
 
-    static private OkHttpClient client;
+    private static final X509TrustManager TRUST_ALL_MANAGER = new TrustAllManager();
+
+    static private volatile HttpClientConfig config = HttpClientConfig.DEFAULT;
 
-    static {
+    static private volatile OkHttpClient client = newClient(config);
+
+    private static OkHttpClient newClient(HttpClientConfig config) {
         // HttpLoggingInterceptor interceptor=new HttpLoggingInterceptor(new HttpLogger());
         // interceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
-        client = new OkHttpClient().newBuilder().sslSocketFactory(createSSLSocketFactory()).hostnameVerifier(new TrustAllHostnameVerifier())
+        return config.newClientBuilder().sslSocketFactory(createSSLSocketFactory(), TRUST_ALL_MANAGER).hostnameVerifier(new TrustAllHostnameVerifier())
                 .retryOnConnectionFailure(true).connectTimeout(20, TimeUnit.SECONDS).writeTimeout(40, TimeUnit.SECONDS).readTimeout(60, TimeUnit.SECONDS)
                 /* .addNetworkInterceptor(interceptor) */.build();
     }
 
+    /**
+     * Sets the connection pool and dispatcher of the client. Pass the config of {@link HttpClient#configure(HttpClientConfig)} to share the
+     * connections between them.
+     *
+     * @param config the config
+     */
+    public static void configure(HttpClientConfig config) {
+        if (null == config) {
+            throw new NullPointerException("config could not be null!");
+        }
+        AsyncHttpClient.config = config;
+        client = newClient(config);
+    }
+
+    /**
+     * Gets the config of the client.
+     *
+     * @return the config
+     */
+    public static HttpClientConfig getConfig() {
+        return config;
+    }
+
     /**
      * 默认信任所有的证书 TODO 最好加上证书认证，主流App都有自己的证书.
      *
@@ -73,7 +117,7 @@ public final class AsyncHttpClient {
 
         try {
             SSLContext sc = SSLContext.getInstance("TLS");
-            sc.init(null, new TrustManager[] {new TrustAllManager() }, new SecureRandom());
+            sc.init(null, new TrustManager[] {TRUST_ALL_MANAGER }, new SecureRandom());
             sslSocketFactory = sc.getSocketFactory();
         } catch (IllegalStateException | KeyManagementException | NoSuchAlgorithmException e) {
             e.printStackTrace();
@@ -106,6 +150,12 @@ public final class AsyncHttpClient {
         }
     }
 
+    /**
+     * Prints the headers and body of the response to the console.
+     *
+     * @deprecated the response could not be got, use {@link #get(URL)}
+     */
+    @Deprecated
     public static void getAsync(URL url) throws IOException, IllegalStateException {
         Request request = new Request.Builder().url(url).build();
 
@@ -130,4 +180,163 @@ public final class AsyncHttpClient {
         });
     }
 
+    public static CompletableFuture<HttpResponse> get(URL url) {
+        return get(url, 0, TimeUnit.MILLISECONDS, null);
+    }
+
+    /**
+     * Gets the url.
+     *
+     * @param url the url
+     * @param timeout the timeout of the whole call, from connecting to reading the body, 0 for the timeouts of the client
+     * @param unit the unit of timeout
+     * @param executor the executor to complete the future on, null to complete it on the dispatcher thread
+     * @return the future of response
+     */
+    public static CompletableFuture<HttpResponse> get(URL url, long timeout, TimeUnit unit, @Nullable Executor executor) {
+        if (null == url) {
+            throw new NullPointerException("url could not be null!");
+        }
+        return execute(new Request.Builder().url(url).get().build(), timeout, unit, executor);
+    }
+
+    public static CompletableFuture<HttpResponse> post(URL url, MediaType type, String body) {
+        return post(url, type, body, 0, TimeUnit.MILLISECONDS, null);
+    }
+
+    /**
+     * Posts the body to the url.
+     *
+     * @param url the url
+     * @param type the media type of body, could be null
+     * @param body the body
+     * @param timeout the timeout of the whole call, from connecting to reading the body, 0 for the timeouts of the client
+     * @param unit the unit of timeout
+     * @param executor the executor to complete the future on, null to complete it on the dispatcher thread
+     * @return the future of response
+     */
+    public static CompletableFuture<HttpResponse> post(URL url, @Nullable MediaType type, String body, long timeout, TimeUnit unit,
+            @Nullable Executor executor) {
+        if (null == url) {
+            throw new NullPointerException("url could not be null!");
+        }
+        if (null == body) {
+            throw new NullPointerException("body could not be null!");
+        }
+        return execute(new Request.Builder().url(url).post(RequestBody.create(mediaType(type), body)).build(), timeout, unit, executor);
+    }
+
+    public static CompletableFuture<HttpResponse> put(URL url, MediaType type, String body) {
+        return put(url, type, body, 0, TimeUnit.MILLISECONDS, null);
+    }
+
+    /**
+     * Puts the body to the url.
+     *
+     * @param url the url
+     * @param type the media type of body, could be null
+     * @param body the body
+     * @param timeout the timeout of the whole call, from connecting to reading the body, 0 for the timeouts of the client
+     * @param unit the unit of timeout
+     * @param executor the executor to complete the future on, null to complete it on the dispatcher thread
+     * @return the future of response
+     */
+    public static CompletableFuture<HttpResponse> put(URL url, @Nullable MediaType type, String body, long timeout, TimeUnit unit,
+            @Nullable Executor executor) {
+        if (null == url) {
+            throw new NullPointerException("url could not be null!");
+        }
+        if (null == body) {
+            throw new NullPointerException("body could not be null!");
+        }
+        return execute(new Request.Builder().url(url).put(RequestBody.create(mediaType(type), body)).build(), timeout, unit, executor);
+    }
+
+    public static CompletableFuture<HttpResponse> delete(URL url) {
+        return delete(url, null, null, 0, TimeUnit.MILLISECONDS, null);
+    }
+
+    /**
+     * Deletes the url.
+     *
+     * @param url the url
+     * @param type the media type of body, could be null
+     * @param body the body, could be null
+     * @param timeout the timeout of the whole call, from connecting to reading the body, 0 for the timeouts of the client
+     * @param unit the unit of timeout
+     * @param executor the executor to complete the future on, null to complete it on the dispatcher thread
+     * @return the future of response
+     */
+    public static CompletableFuture<HttpResponse> delete(URL url, @Nullable MediaType type, @Nullable String body, long timeout, TimeUnit unit,
+            @Nullable Executor executor) {
+        if (null == url) {
+            throw new NullPointerException("url could not be null!");
+        }
+        RequestBody requestBody = null == body ? null : RequestBody.create(mediaType(type), body);
+        return execute(new Request.Builder().url(url).delete(requestBody).build(), timeout, unit, executor);
+    }
+
+    private static okhttp3.MediaType mediaType(MediaType type) {
+        return null == type ? null : okhttp3.MediaType.parse(type.getCode());
+    }
+
+    private static CompletableFuture<HttpResponse> execute(Request request, long timeout, TimeUnit unit, Executor executor) {
+        if (null == unit) {
+            throw new NullPointerException("unit could not be null!");
+        }
+        if (timeout < 0) {
+            throw new IllegalArgumentException("timeout could not be negative!");
+        }
+        final Call call = client.newCall(request);
+        if (timeout > 0) {
+            call.timeout().timeout(timeout, unit);
+        }
+        final CompletableFuture<HttpResponse> future = new CompletableFuture<HttpResponse>();
+        // cancelling the future completes it, so the call is cancelled here too
+        future.whenComplete((response, e) -> {
+            if (future.isCancelled()) {
+                call.cancel();
+            }
+        });
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                complete(future, null, e, executor);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                HttpResponse httpResponse;
+                try (Response closing = response) {
+                    httpResponse = new HttpResponse(closing.code(), closing.message(), closing.headers().toMultimap(), closing.body().string(),
+                            closing.protocol().toString());
+                } catch (IOException | RuntimeException e) {
+                    complete(future, null, e, executor);
+                    return;
+                }
+                complete(future, httpResponse, null, executor);
+            }
+        });
+        return future;
+    }
+
+    private static void complete(final CompletableFuture<HttpResponse> future, final HttpResponse response, final Throwable e, final Executor executor) {
+        Runnable completion = () -> {
+            if (null == e) {
+                future.complete(response);
+            } else {
+                future.completeExceptionally(e);
+            }
+        };
+        if (null == executor) {
+            completion.run();
+            return;
+        }
+        try {
+            executor.execute(completion);
+        } catch (RejectedExecutionException rejected) {
+            future.completeExceptionally(rejected);
+        }
+    }
+
 }
@@ -0,0 +1,50 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.http;
+
+import okio.BufferedSource;
+
+import java.io.IOException;
+
+/**
+ * <p>
+ * Reads a response body as a stream. The body is the {@link BufferedSource} of OkHttp, which is also a {@link java.nio.channels.ReadableByteChannel}
+ * and gives an {@link java.io.InputStream} by {@link BufferedSource#inputStream()}:
+ * </p>
+ *
+ * <pre>
+ * long lines = HttpClient.get(url, body -&gt; new BufferedReader(new InputStreamReader(body.inputStream(), UTF_8)).lines().count());
+ * </pre>
+ * <p>
+ * The response is closed once the handler returns or throws, whether or not the body was read to the end, so the handler should not keep the body.
+ * </p>
+ *
+ * @param <T> the type of the result
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+@FunctionalInterface
+public interface BodyHandler<T> {
+
+    /**
+     * Reads the body.
+     *
+     * @param body the body
+     * @return the result
+     * @throws IOException if the body could not be read
+     */
+    T handle(BufferedSource body) throws IOException;
+}
@@ -0,0 +1,46 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.http;
+
+import okio.BufferedSink;
+
+import java.io.IOException;
+
+/**
+ * <p>
+ * Writes a request body as a stream onto the connection. The sink is the {@link BufferedSink} of OkHttp, which is also a
+ * {@link java.nio.channels.WritableByteChannel} and gives an {@link java.io.OutputStream} by {@link BufferedSink#outputStream()}, so a serializer
+ * could write straight onto it:
+ * </p>
+ *
+ * <pre>
+ * HttpClient.post(url, MediaType.APP_XML, HttpBody.of(sink -&gt; marshaller.marshal(batch, sink.outputStream())));
+ * </pre>
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+@FunctionalInterface
+public interface BodyWriter {
+
+    /**
+     * Writes the body. The sink is flushed and closed after, the writer should not close it.
+     *
+     * @param sink the sink
+     * @throws IOException if the body could not be written
+     */
+    void write(BufferedSink sink) throws IOException;
+}
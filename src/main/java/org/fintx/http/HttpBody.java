@@ -0,0 +1,176 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.http;
+
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <p>
+ * A request body streamed onto the connection, instead of a String materialized in memory. Created by a {@link BodyWriter}, a {@link ByteBuffer}, a
+ * file or an {@link InputStream}, with the content length known or sent chunked:
+ * </p>
+ *
+ * <pre>
+ * HttpClient.post(url, MediaType.APP_XML, HttpBody.of(Paths.get("batch.xml")));
+ * HttpClient.put(url, MediaType.APP_OCTETSTREAM, HttpBody.of(in, HttpBody.CHUNKED));
+ * </pre>
+ * <p>
+ * The bodies of a buffer or a file could be sent again (when OkHttp retries a failed connection), the ones of a writer or a stream only once, a retry
+ * fails with an {@link IOException} instead of sending a part of the body.
+ * </p>
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+public final class HttpBody {
+
+    /**
+     * The content length of a body sent chunked, as its length is unknown before it is written.
+     */
+    public static final long CHUNKED = -1;
+
+    private final long contentLength;
+
+    private final BodyWriter writer;
+
+    // null if the body could be written many times
+    private final AtomicBoolean written;
+
+    private HttpBody(final long contentLength, final BodyWriter writer, final boolean oneShot) {
+        if (contentLength < CHUNKED) {
+            throw new IllegalArgumentException("contentLength could not be negative!");
+        }
+        this.contentLength = contentLength;
+        this.writer = writer;
+        this.written = oneShot ? new AtomicBoolean() : null;
+    }
+
+    /**
+     * Creates a body written by the writer, sent chunked.
+     *
+     * @param writer the writer
+     * @return the body
+     */
+    public static HttpBody of(final BodyWriter writer) {
+        return of(writer, CHUNKED);
+    }
+
+    /**
+     * Creates a body written by the writer.
+     *
+     * @param writer the writer
+     * @param contentLength the number of bytes the writer writes, or {@link #CHUNKED}
+     * @return the body
+     */
+    public static HttpBody of(final BodyWriter writer, final long contentLength) {
+        if (null == writer) {
+            throw new NullPointerException("writer could not be null!");
+        }
+        return new HttpBody(contentLength, writer, true);
+    }
+
+    /**
+     * Creates a body of the remaining bytes of the buffer (heap or direct). The position of the buffer is not changed.
+     *
+     * @param buffer the buffer
+     * @return the body
+     */
+    public static HttpBody of(final ByteBuffer buffer) {
+        if (null == buffer) {
+            throw new NullPointerException("buffer could not be null!");
+        }
+        final ByteBuffer content = buffer.duplicate();
+        return new HttpBody(content.remaining(), sink -> {
+            ByteBuffer remaining = content.duplicate();
+            while (remaining.hasRemaining()) {
+                sink.write(remaining);
+            }
+        }, false);
+    }
+
+    /**
+     * Creates a body of the file.
+     *
+     * @param file the file
+     * @return the body
+     * @throws IOException if the size of the file could not be read
+     */
+    public static HttpBody of(final Path file) throws IOException {
+        if (null == file) {
+            throw new NullPointerException("file could not be null!");
+        }
+        return new HttpBody(Files.size(file), sink -> {
+            try (Source source = Okio.source(file)) {
+                sink.writeAll(source);
+            }
+        }, false);
+    }
+
+    /**
+     * Creates a body read from the stream. The stream is read to the end but not closed.
+     *
+     * @param in the stream
+     * @param contentLength the number of bytes of the stream, or {@link #CHUNKED}
+     * @return the body
+     */
+    public static HttpBody of(final InputStream in, final long contentLength) {
+        if (null == in) {
+            throw new NullPointerException("in could not be null!");
+        }
+        return new HttpBody(contentLength, sink -> sink.writeAll(Okio.source(in)), true);
+    }
+
+    /**
+     * Gets the content length.
+     *
+     * @return the number of bytes, or {@link #CHUNKED}
+     */
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    RequestBody toRequestBody(final okhttp3.MediaType mediaType) {
+        return new RequestBody() {
+            @Override
+            public okhttp3.MediaType contentType() {
+                return mediaType;
+            }
+
+            @Override
+            public long contentLength() {
+                return contentLength;
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                if (null != written && !written.compareAndSet(false, true)) {
+                    throw new IOException("The body could be written only once!");
+                }
+                writer.write(sink);
+            }
+        };
+    }
+}
@@ -26,16 +26,30 @@ import okhttp3.Response;
 import okhttp3.logging.HttpLoggingInterceptor;
 
 import java.io.File;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.Key;
 import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nullable;
@@ -59,7 +73,22 @@ public final class HttpClient {
     private HttpClient() {
         throw new AssertionError("No HttpClient instances for you!");
     }
-    private static final ThreadLocal<OkHttpClient> local = new ThreadLocal<OkHttpClient>();
+    // the fingerprint of the custom client of the thread, none for the default client
+    private static final ThreadLocal<String> local = new ThreadLocal<String>();
+
+    // the bytes of one transferFrom of download, the JDK copies them through a direct buffer of 8 KB
+    private static final long TRANSFER_BYTES = 64 * 1024 * 1024;
+
+    private static volatile HttpClientConfig config = HttpClientConfig.DEFAULT;
+
+    // the timeouts, connection pool and dispatcher of all clients, which are derived from it by newBuilder()
+    private static volatile OkHttpClient rootClient = newRootClient();
+
+    // the trust and key material by its fingerprint, to create the custom clients again after configure
+    private static final ConcurrentMap<String, KeyMaterial> customMaterials = new ConcurrentHashMap<String, KeyMaterial>();
+
+    // the custom clients of the current config by the fingerprint of trust and key material
+    private static final ConcurrentMap<String, OkHttpClient> customClients = new ConcurrentHashMap<String, OkHttpClient>();
 
     private static final Interceptor networkInterceptor = new HttpLoggingInterceptor(new HttpLoggingInterceptor.Logger() {
         @Override
@@ -69,11 +98,137 @@ public final class HttpClient {
         }
     }).setLevel(HttpLoggingInterceptor.Level.BODY);;
 
+    /**
+     * Sets the connection pool and dispatcher of the default client and of the custom clients, including those already used by threads. Pass the config of
+     * {@link AsyncHttpClient#configure(HttpClientConfig)} to share the connections between them.
+     *
+     * @param config the config
+     */
+    public static void configure(final HttpClientConfig config) {
+        if (null == config) {
+            throw new NullPointerException("config could not be null!");
+        }
+        HttpClient.config = config;
+        rootClient = newRootClient();
+        customClients.clear();
+        defaultClient = getClient(null, null, null);
+    }
+
+    /**
+     * Gets the config of the clients.
+     *
+     * @return the config
+     */
+    public static HttpClientConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Uses the client of the trust and key material in the current thread. The clients are shared by all threads with the same material (the same
+     * certificates and keys, compared by fingerprint), and share the connection pool and dispatcher of the config with all other clients.
+     *
+     * @param trustStore the trusted certificates, null to trust all
+     * @param keyStore the client keys, could be null
+     * @param keyPass the password of keys, could be null only if the keyStore is null
+     */
     public static void custom(final KeyStore trustStore, final KeyStore keyStore, final String keyPass) {
-        local.set(getClient(trustStore, keyStore, keyPass));
+        if (null != keyStore && null == keyPass) {
+            throw new IllegalArgumentException("keyPass for keyStore could not be null!");
+        }
+        if (null == trustStore && null == keyStore) {
+            local.remove();
+            return;
+        }
+        String fingerprint = fingerprint(trustStore, keyStore, keyPass);
+        KeyMaterial material = new KeyMaterial(trustStore, keyStore, keyPass);
+        customClients.computeIfAbsent(fingerprint, k -> material.newClient());
+        customMaterials.putIfAbsent(fingerprint, material);
+        local.set(fingerprint);
+    }
+
+    /**
+     * Gets the client of the current thread, with the current config.
+     *
+     * @return the custom client of the current thread, or the default client
+     */
+    static OkHttpClient currentClient() {
+        String fingerprint = local.get();
+        if (null == fingerprint) {
+            return defaultClient;
+        }
+        return customClients.computeIfAbsent(fingerprint, k -> customMaterials.get(k).newClient());
+    }
+
+    /**
+     * Gets the SHA-256 fingerprint of the certificates of the trustStore and of the certificates and keys of the keyStore.
+     */
+    static String fingerprint(final KeyStore trustStore, final KeyStore keyStore, final String keyPass) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            update(digest, trustStore, null);
+            // separates the trust material from the key material
+            digest.update((byte) 0xff);
+            update(digest, keyStore, keyPass);
+            return Base64.getEncoder().encodeToString(digest.digest());
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("Can not get fingerprint of keyStore!", e);
+        }
+    }
+
+    private static void update(final MessageDigest digest, final KeyStore store, final String keyPass) throws GeneralSecurityException {
+        // a null trustStore trusts all, an empty one trusts none
+        if (null == store) {
+            digest.update((byte) 0);
+            return;
+        }
+        digest.update((byte) 1);
+        List<String> aliases = Collections.list(store.aliases());
+        Collections.sort(aliases);
+        for (String alias : aliases) {
+            digest.update(alias.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            Certificate[] chain = store.getCertificateChain(alias);
+            if (null == chain) {
+                Certificate certificate = store.getCertificate(alias);
+                chain = null == certificate ? new Certificate[0] : new Certificate[] { certificate };
+            }
+            for (Certificate certificate : chain) {
+                digest.update(certificate.getEncoded());
+            }
+            if (null != keyPass && store.isKeyEntry(alias)) {
+                Key key = store.getKey(alias, keyPass.toCharArray());
+                if (null != key && null != key.getEncoded()) {
+                    digest.update(key.getEncoded());
+                }
+            }
+        }
+    }
+
+    private static final class KeyMaterial {
+        private final KeyStore trustStore;
+        private final KeyStore keyStore;
+        private final String keyPass;
+
+        private KeyMaterial(final KeyStore trustStore, final KeyStore keyStore, final String keyPass) {
+            this.trustStore = trustStore;
+            this.keyStore = keyStore;
+            this.keyPass = keyPass;
+        }
+
+        private OkHttpClient newClient() {
+            return getClient(trustStore, keyStore, keyPass);
+        }
+    }
+
+    private static OkHttpClient newRootClient() {
+        return config.newClientBuilder().hostnameVerifier(new HostnameVerifier() {
+            @Override
+            public boolean verify(String hostname, SSLSession session) {
+                return true;
+            }
+        }).retryOnConnectionFailure(true).connectTimeout(5, TimeUnit.SECONDS).writeTimeout(60, TimeUnit.SECONDS).readTimeout(120, TimeUnit.SECONDS).build();
     }
 
-    @SuppressWarnings("deprecation")
     private static OkHttpClient getClient(final KeyStore trustStore, final KeyStore keyStore, final String keyPass) {
         if (null != keyStore && null == keyPass) {
             throw new IllegalArgumentException("keyPass for keyStore could not be null!");
@@ -158,37 +313,29 @@ public final class HttpClient {
             }
         }
 
-        OkHttpClient.Builder builder = new OkHttpClient().newBuilder();
+        OkHttpClient.Builder builder = rootClient.newBuilder();
         if (null != sslSocketFactory) {
-            builder.sslSocketFactory(sslSocketFactory);
+            // the trust manager is required on the JDKs with ALPN (9+ and 8u252+)
+            builder.sslSocketFactory(sslSocketFactory, (X509TrustManager) trustManagers[0]);
         }
-
-        return builder.hostnameVerifier(new HostnameVerifier() {
-            @Override
-            public boolean verify(String hostname, SSLSession session) {
-                return true;
-            }
-        }).retryOnConnectionFailure(true).connectTimeout(5, TimeUnit.SECONDS).writeTimeout(60, TimeUnit.SECONDS).readTimeout(120, TimeUnit.SECONDS).build();
-
+        return builder.build();
     }
 
     // private KeyStore trustStore = null;
     // private KeyStore keyStore = null;
     // private String keyPass = null;
-    private static final OkHttpClient defaultClient = getClient(null, null, null);
+    private static volatile OkHttpClient defaultClient = getClient(null, null, null);
 
     public static void print(boolean printable) {
-        OkHttpClient client = local.get();
+        OkHttpClient client = currentClient();
         //Do not support globe log intercepter
-        if (null != client) {
-            if (printable) {
-                if (-1 == client.networkInterceptors().indexOf(networkInterceptor)) {
-                    client = client.newBuilder().addNetworkInterceptor(networkInterceptor).build();
-                }
-            } else {
-                // not supported operation
-                // client.networkInterceptors().remove(networkInterceptor);
+        if (printable) {
+            if (-1 == client.networkInterceptors().indexOf(networkInterceptor)) {
+                client = client.newBuilder().addNetworkInterceptor(networkInterceptor).build();
             }
+        } else {
+            // not supported operation
+            // client.networkInterceptors().remove(networkInterceptor);
         }
 
     }
@@ -234,25 +381,21 @@ public final class HttpClient {
             throw new NullPointerException("url could not be null!");
         }
 
-        OkHttpClient client = local.get();
-        if (null == client) {
-            client = defaultClient;
-        }
+        OkHttpClient client = currentClient();
 
         Request request = new Request.Builder().url(url).get().build();
 
-        Response response = client.newCall(request).execute();
-        if (!response.isSuccessful())
-            throw new IllegalStateException("Unexpected code " + response);
+        try (Response response = client.newCall(request).execute()) {
+            if (!response.isSuccessful())
+                throw new IllegalStateException("Unexpected code " + response);
 
-        // Headers responseHeaders = response.headers();
-        // for (int i = 0; i < responseHeaders.size(); i++) {
-        // System.out.println(responseHeaders.name(i) + ": " + responseHeaders.value(i));
-        // }
+            // Headers responseHeaders = response.headers();
+            // for (int i = 0; i < responseHeaders.size(); i++) {
+            // System.out.println(responseHeaders.name(i) + ": " + responseHeaders.value(i));
+            // }
 
-        String resp = response.body().string();
-        response.close();
-        return resp;
+            return response.body().string();
+        }
     }
 
     public static InputStream getFile(URL url) throws IOException, IllegalStateException {
@@ -260,23 +403,141 @@ public final class HttpClient {
             throw new NullPointerException("url could not be null!");
         }
 
-        OkHttpClient client = local.get();
-        if (null == client) {
-            client = defaultClient;
-        }
+        OkHttpClient client = currentClient();
 
         Request request = new Request.Builder().url(url).get().build();
 
-        Response response = client.newCall(request).execute();
-        if (!response.isSuccessful())
+        final Response response = client.newCall(request).execute();
+        if (!response.isSuccessful()) {
+            response.close();
             throw new IllegalStateException("Unexpected code " + response);
+        }
 
         // Headers responseHeaders = response.headers();
         // for (int i = 0; i < responseHeaders.size(); i++) {
         // System.out.println(responseHeaders.name(i) + ": " + responseHeaders.value(i));
         // }
 
-        return response.body().byteStream();
+        // closing the stream closes the response and releases the connection
+        return new FilterInputStream(response.body().byteStream()) {
+            @Override
+            public void close() {
+                response.close();
+            }
+        };
+    }
+
+    /**
+     * Gets the url and reads the body as a stream, without holding it in memory. The response is closed when the handler returns or throws.
+     *
+     * @param url the url
+     * @param handler the handler of body
+     * @param <T> the type of the result
+     * @return the result of the handler
+     */
+    public static <T> T get(URL url, BodyHandler<T> handler) throws IOException, IllegalStateException {
+        if (null == url) {
+            throw new NullPointerException("url could not be null!");
+        }
+        return execute(new Request.Builder().url(url).get().build(), handler);
+    }
+
+    /**
+     * Posts the body to the url and reads the body of response as a stream. The response is closed when the handler returns or throws.
+     *
+     * @param url the url
+     * @param type the media type of body, could be null
+     * @param body the body
+     * @param handler the handler of the body of response
+     * @param <T> the type of the result
+     * @return the result of the handler
+     */
+    public static <T> T post(URL url, MediaType type, String body, BodyHandler<T> handler) throws IOException, IllegalStateException {
+        if (null == url) {
+            throw new NullPointerException("url could not be null!");
+        }
+        if (null == body) {
+            throw new NullPointerException("body could not be null!");
+        }
+        okhttp3.MediaType mediaType = null == type ? null : okhttp3.MediaType.parse(type.getCode());
+        return execute(new Request.Builder().url(url).post(RequestBody.create(mediaType, body)).build(), handler);
+    }
+
+    /**
+     * Puts the body to the url and reads the body of response as a stream. The response is closed when the handler returns or throws.
+     *
+     * @param url the url
+     * @param type the media type of body, could be null
+     * @param body the body
+     * @param handler the handler of the body of response
+     * @param <T> the type of the result
+     * @return the result of the handler
+     */
+    public static <T> T put(URL url, MediaType type, String body, BodyHandler<T> handler) throws IOException, IllegalStateException {
+        if (null == url) {
+            throw new NullPointerException("url could not be null!");
+        }
+        if (null == body) {
+            throw new NullPointerException("body could not be null!");
+        }
+        okhttp3.MediaType mediaType = null == type ? null : okhttp3.MediaType.parse(type.getCode());
+        return execute(new Request.Builder().url(url).put(RequestBody.create(mediaType, body)).build(), handler);
+    }
+
+    /**
+     * Deletes the url and reads the body of response as a stream. The response is closed when the handler returns or throws.
+     *
+     * @param url the url
+     * @param type the media type of body, could be null
+     * @param body the body, could be null
+     * @param handler the handler of the body of response
+     * @param <T> the type of the result
+     * @return the result of the handler
+     */
+    public static <T> T delete(URL url, MediaType type, @Nullable String body, BodyHandler<T> handler) throws IOException, IllegalStateException {
+        if (null == url) {
+            throw new NullPointerException("url could not be null!");
+        }
+        okhttp3.MediaType mediaType = null == type ? null : okhttp3.MediaType.parse(type.getCode());
+        RequestBody requestBody = null == body ? null : RequestBody.create(mediaType, body);
+        return execute(new Request.Builder().url(url).delete(requestBody).build(), handler);
+    }
+
+    /**
+     * Downloads the body into the file, replacing it. The bytes go from the socket into the file by {@link FileChannel#transferFrom}, through a small
+     * direct buffer of the JDK (a TLS or chunked body could not be transferred by the kernel), so the size of body is not limited by the heap.
+     *
+     * @param url the url
+     * @param file the file
+     * @return the number of bytes downloaded
+     */
+    public static long download(URL url, final Path file) throws IOException, IllegalStateException {
+        if (null == url) {
+            throw new NullPointerException("url could not be null!");
+        }
+        if (null == file) {
+            throw new NullPointerException("file could not be null!");
+        }
+        return get(url, body -> {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long position = 0;
+                while (!body.exhausted()) {
+                    position += channel.transferFrom(body, position, TRANSFER_BYTES);
+                }
+                return position;
+            }
+        });
+    }
+
+    private static <T> T execute(Request request, BodyHandler<T> handler) throws IOException, IllegalStateException {
+        if (null == handler) {
+            throw new NullPointerException("handler could not be null!");
+        }
+        try (Response response = currentClient().newCall(request).execute()) {
+            if (!response.isSuccessful())
+                throw new IllegalStateException("Unexpected code " + response);
+            return handler.handle(response.body().source());
+        }
     }
 
     public static String put(URL url, MediaType type, String body) throws IOException, IllegalStateException {
@@ -292,20 +553,16 @@ public final class HttpClient {
             okhttp3.MediaType.parse(type.getCode());
         }
 
-        OkHttpClient client = local.get();
-        if (null == client) {
-            client = defaultClient;
-        }
+        OkHttpClient client = currentClient();
 
         Request request = new Request.Builder().url(url).put(RequestBody.create(mediaType, body)).build();
 
-        Response response = client.newCall(request).execute();
-        if (!response.isSuccessful())
-            throw new IllegalStateException("Unexpected code " + response);
+        try (Response response = client.newCall(request).execute()) {
+            if (!response.isSuccessful())
+                throw new IllegalStateException("Unexpected code " + response);
 
-        String resp = response.body().string();
-        response.close();
-        return resp;
+            return response.body().string();
+        }
     }
 
     public static String delete(URL url, MediaType type, @Nullable String body) throws IOException, IllegalStateException {
@@ -318,10 +575,7 @@ public final class HttpClient {
             okhttp3.MediaType.parse(type.getCode());
         }
 
-        OkHttpClient client = local.get();
-        if (null == client) {
-            client = defaultClient;
-        }
+        OkHttpClient client = currentClient();
 
         RequestBody requestBody = null;
         if (null != body) {
@@ -330,13 +584,12 @@ public final class HttpClient {
 
         Request request = new Request.Builder().url(url).delete(requestBody).build();
 
-        Response response = client.newCall(request).execute();
-        if (!response.isSuccessful())
-            throw new IllegalStateException("Unexpected code " + response);
+        try (Response response = client.newCall(request).execute()) {
+            if (!response.isSuccessful())
+                throw new IllegalStateException("Unexpected code " + response);
 
-        String resp = response.body().string();
-        response.close();
-        return resp;
+            return response.body().string();
+        }
     }
 
     public static String post(URL url, MediaType type, String body) throws IOException, IllegalStateException {
@@ -352,20 +605,56 @@ public final class HttpClient {
             okhttp3.MediaType.parse(type.getCode());
         }
 
-        OkHttpClient client = local.get();
-        if (null == client) {
-            client = defaultClient;
-        }
+        OkHttpClient client = currentClient();
 
         Request request = new Request.Builder().url(url).post(RequestBody.create(mediaType, body)).build();
 
-        Response response = client.newCall(request).execute();
-        if (!response.isSuccessful())
-            throw new IllegalStateException("Unexpected code " + response);
+        try (Response response = client.newCall(request).execute()) {
+            if (!response.isSuccessful())
+                throw new IllegalStateException("Unexpected code " + response);
 
-        String resp = response.body().string();
-        response.close();
-        return resp;
+            return response.body().string();
+        }
+    }
+
+    /**
+     * Posts the body streamed onto the connection.
+     *
+     * @param url the url
+     * @param type the media type of body, could be null
+     * @param body the body
+     * @return the body of response
+     */
+    public static String post(URL url, MediaType type, HttpBody body) throws IOException, IllegalStateException {
+        return send("POST", url, type, body);
+    }
+
+    /**
+     * Puts the body streamed onto the connection.
+     *
+     * @param url the url
+     * @param type the media type of body, could be null
+     * @param body the body
+     * @return the body of response
+     */
+    public static String put(URL url, MediaType type, HttpBody body) throws IOException, IllegalStateException {
+        return send("PUT", url, type, body);
+    }
+
+    private static String send(String method, URL url, MediaType type, HttpBody body) throws IOException, IllegalStateException {
+        if (null == url) {
+            throw new NullPointerException("url could not be null!");
+        }
+        if (null == body) {
+            throw new NullPointerException("body could not be null!");
+        }
+        okhttp3.MediaType mediaType = null == type ? null : okhttp3.MediaType.parse(type.getCode());
+        Request request = new Request.Builder().url(url).method(method, body.toRequestBody(mediaType)).build();
+        try (Response response = currentClient().newCall(request).execute()) {
+            if (!response.isSuccessful())
+                throw new IllegalStateException("Unexpected code " + response);
+            return response.body().string();
+        }
     }
 
     /*
@@ -385,20 +674,16 @@ public final class HttpClient {
             okhttp3.MediaType.parse(type.getCode());
         }
 
-        OkHttpClient client = local.get();
-        if (null == client) {
-            client = defaultClient;
-        }
+        OkHttpClient client = currentClient();
 
         Request request = new Request.Builder().url(url).post(RequestBody.create(mediaType, file)).build();
 
-        Response response = client.newCall(request).execute();
-        if (!response.isSuccessful())
-            throw new IllegalStateException("Unexpected code " + response);
+        try (Response response = client.newCall(request).execute()) {
+            if (!response.isSuccessful())
+                throw new IllegalStateException("Unexpected code " + response);
 
-        String resp = response.body().string();
-        response.close();
-        return resp;
+            return response.body().string();
+        }
     }
 
     public static String post(URL url, Map<String, String> formParams) throws IOException, IllegalStateException {
@@ -410,10 +695,7 @@ public final class HttpClient {
             throw new IllegalArgumentException("formParams could not be null or empty!");
         }
 
-        OkHttpClient client = local.get();
-        if (null == client) {
-            client = defaultClient;
-        }
+        OkHttpClient client = currentClient();
 
         FormBody.Builder builder = new FormBody.Builder();
         for (Map.Entry<String, String> entry : formParams.entrySet()) {
@@ -423,13 +705,12 @@ public final class HttpClient {
         RequestBody formBody = builder.build();
         Request request = new Request.Builder().url(url).post(formBody).build();
 
-        Response response = client.newCall(request).execute();
-        if (!response.isSuccessful())
-            throw new IllegalStateException("Unexpected code " + response);
+        try (Response response = client.newCall(request).execute()) {
+            if (!response.isSuccessful())
+                throw new IllegalStateException("Unexpected code " + response);
 
-        String resp = response.body().string();
-        response.close();
-        return resp;
+            return response.body().string();
+        }
     }
 
     public static String post(URL url, Map<String, String> formParams, Map<String, File> formFiles) throws IOException, IllegalStateException {
@@ -441,10 +722,7 @@ public final class HttpClient {
             throw new IllegalArgumentException("Either formParams or formFiles could not be null or empty!");
         }
 
-        OkHttpClient client = local.get();
-        if (null == client) {
-            client = defaultClient;
-        }
+        OkHttpClient client = currentClient();
 
         MultipartBody.Builder builder = new MultipartBody.Builder().setType(MultipartBody.ALTERNATIVE);
 
@@ -468,12 +746,11 @@ public final class HttpClient {
         RequestBody formBody = builder.build();
         Request request = new Request.Builder().url(url).post(formBody).build();
 
-        Response response = client.newCall(request).execute();
-        if (!response.isSuccessful())
-            throw new IllegalStateException("Unexpected code " + response);
-        String resp = response.body().string();
-        response.close();
-        return resp;
+        try (Response response = client.newCall(request).execute()) {
+            if (!response.isSuccessful())
+                throw new IllegalStateException("Unexpected code " + response);
+            return response.body().string();
+        }
     }
 
     // TODO https://github.com/square/okhttp/wiki/Recipes
@@ -0,0 +1,263 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.http;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * The connection pool and dispatcher of {@link HttpClient} and {@link AsyncHttpClient}. A config owns one {@link ConnectionPool} and one
+ * {@link Dispatcher}, every client built from it shares them, so configure both classes with the same config (as {@link #DEFAULT} is) to reuse the
+ * connections and threads between them.
+ * </p>
+ * <p>
+ * The defaults are the ones of OkHttp: 5 idle connections kept alive for 5 minutes, 64 requests and 5 requests per host at once. Fanning out to one
+ * host needs more:
+ * </p>
+ *
+ * <pre>
+ * HttpClientConfig config = HttpClientConfig.builder().maxIdleConnections(200).maxRequests(256).maxRequestsPerHost(200).build();
+ * HttpClient.configure(config);
+ * AsyncHttpClient.configure(config);
+ * </pre>
+ * <p>
+ * The limits of requests apply to the asynchronous calls, the synchronous ones run on the threads of the callers and take as many connections as
+ * there are callers, keeping at most the idle ones of the pool.
+ * </p>
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+public final class HttpClientConfig {
+
+    /**
+     * The config of OkHttp defaults, used by {@link HttpClient} and {@link AsyncHttpClient} unless configured.
+     */
+    public static final HttpClientConfig DEFAULT = builder().build();
+
+    private final int maxIdleConnections;
+
+    private final long keepAliveMillis;
+
+    private final int maxRequests;
+
+    private final int maxRequestsPerHost;
+
+    private final HttpProtocol protocol;
+
+    private final ConnectionPool connectionPool;
+
+    private final Dispatcher dispatcher;
+
+    private HttpClientConfig(final Builder builder) {
+        if (builder.maxIdleConnections < 0) {
+            throw new IllegalArgumentException("The max idle connections should not be negative!");
+        }
+        if (builder.keepAliveMillis <= 0) {
+            throw new IllegalArgumentException("The keep alive duration should be positive!");
+        }
+        if (builder.maxRequests < 1 || builder.maxRequestsPerHost < 1) {
+            throw new IllegalArgumentException("The max requests should be positive!");
+        }
+        if (null == builder.protocol) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        this.maxIdleConnections = builder.maxIdleConnections;
+        this.keepAliveMillis = builder.keepAliveMillis;
+        this.maxRequests = builder.maxRequests;
+        this.maxRequestsPerHost = builder.maxRequestsPerHost;
+        this.protocol = builder.protocol;
+        this.connectionPool = new ConnectionPool(maxIdleConnections, keepAliveMillis, TimeUnit.MILLISECONDS);
+        this.dispatcher = new Dispatcher();
+        this.dispatcher.setMaxRequests(maxRequests);
+        this.dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+    }
+
+    /**
+     * Creates a builder of config, with the defaults of OkHttp.
+     *
+     * @return the builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Creates a client builder on the shared connection pool and dispatcher of this config.
+     *
+     * @return the client builder
+     */
+    OkHttpClient.Builder newClientBuilder() {
+        return new OkHttpClient.Builder().connectionPool(connectionPool).dispatcher(dispatcher).protocols(protocol.getProtocols());
+    }
+
+    /**
+     * Gets the number of idle connections kept in the pool.
+     *
+     * @return the max idle connections
+     */
+    public int getMaxIdleConnections() {
+        return maxIdleConnections;
+    }
+
+    /**
+     * Gets how long an idle connection is kept in the pool.
+     *
+     * @param unit the unit of duration
+     * @return the keep alive duration
+     */
+    public long getKeepAlive(final TimeUnit unit) {
+        return unit.convert(keepAliveMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Gets the number of asynchronous requests running at once.
+     *
+     * @return the max requests
+     */
+    public int getMaxRequests() {
+        return maxRequests;
+    }
+
+    /**
+     * Gets the number of asynchronous requests running at once to one host.
+     *
+     * @return the max requests per host
+     */
+    public int getMaxRequestsPerHost() {
+        return maxRequestsPerHost;
+    }
+
+    /**
+     * Gets the protocols of the clients.
+     *
+     * @return the protocol
+     */
+    public HttpProtocol getProtocol() {
+        return protocol;
+    }
+
+    /**
+     * Gets the shared connection pool, for its counts of connections.
+     *
+     * @return the connection pool
+     */
+    public ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    /**
+     * Gets the shared dispatcher, for its counts of running and queued calls.
+     *
+     * @return the dispatcher
+     */
+    public Dispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    @Override
+    public String toString() {
+        return "HttpClientConfig [maxIdleConnections=" + maxIdleConnections + ", keepAliveMillis=" + keepAliveMillis + ", maxRequests=" + maxRequests
+                + ", maxRequestsPerHost=" + maxRequestsPerHost + ", protocol=" + protocol + "]";
+    }
+
+    /**
+     * Builder of {@link HttpClientConfig}.
+     */
+    public static final class Builder {
+        private int maxIdleConnections = 5;
+        private long keepAliveMillis = TimeUnit.MINUTES.toMillis(5);
+        private int maxRequests = 64;
+        private int maxRequestsPerHost = 5;
+        private HttpProtocol protocol = HttpProtocol.HTTP_2;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the number of idle connections kept in the pool, 5 by default.
+         *
+         * @param maxIdleConnections the max idle connections
+         * @return this builder
+         */
+        public Builder maxIdleConnections(final int maxIdleConnections) {
+            this.maxIdleConnections = maxIdleConnections;
+            return this;
+        }
+
+        /**
+         * Sets how long an idle connection is kept in the pool, 5 minutes by default.
+         *
+         * @param keepAlive the duration
+         * @param unit the unit of duration
+         * @return this builder
+         */
+        public Builder keepAlive(final long keepAlive, final TimeUnit unit) {
+            if (unit == null) {
+                throw new IllegalArgumentException("Argument should not be null!");
+            }
+            this.keepAliveMillis = unit.toMillis(keepAlive);
+            return this;
+        }
+
+        /**
+         * Sets the number of asynchronous requests running at once, 64 by default. More are queued.
+         *
+         * @param maxRequests the max requests
+         * @return this builder
+         */
+        public Builder maxRequests(final int maxRequests) {
+            this.maxRequests = maxRequests;
+            return this;
+        }
+
+        /**
+         * Sets the number of asynchronous requests running at once to one host, 5 by default. The max requests still cap all hosts together.
+         *
+         * @param maxRequestsPerHost the max requests per host
+         * @return this builder
+         */
+        public Builder maxRequestsPerHost(final int maxRequestsPerHost) {
+            this.maxRequestsPerHost = maxRequestsPerHost;
+            return this;
+        }
+
+        /**
+         * Sets the protocols of the clients, {@link HttpProtocol#HTTP_2} by default. With HTTP/2 the max requests per host are the streams at once,
+         * multiplexed on a few connections instead of one connection each.
+         *
+         * @param protocol the protocol
+         * @return this builder
+         */
+        public Builder protocol(final HttpProtocol protocol) {
+            this.protocol = protocol;
+            return this;
+        }
+
+        /**
+         * Builds the config with a new connection pool and dispatcher.
+         *
+         * @return the config
+         */
+        public HttpClientConfig build() {
+            return new HttpClientConfig(this);
+        }
+    }
+}
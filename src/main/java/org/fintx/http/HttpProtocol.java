@@ -0,0 +1,64 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.http;
+
+import org.fintx.lang.Codeable;
+
+import okhttp3.Protocol;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The protocols a client speaks, see {@link HttpClientConfig.Builder#protocol(HttpProtocol)}. The code is the identifier of the protocol of RFC 7540.
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+public enum HttpProtocol implements Codeable<String> {
+    /**
+     * HTTP/1.1 only, one request at once on a connection.
+     */
+    HTTP_1_1("http/1.1", Protocol.HTTP_1_1),
+    /**
+     * HTTP/2 over TLS when the server accepts it in ALPN (JDK 9+ or 8u252+), HTTP/1.1 otherwise and over cleartext. Concurrent requests to a host are
+     * multiplexed on one HTTP/2 connection. The default.
+     */
+    HTTP_2("h2", Protocol.HTTP_2, Protocol.HTTP_1_1),
+    /**
+     * HTTP/2 over cleartext (h2c) without any upgrade or negotiation, for internal services known to speak it. Requests of https urls fail.
+     */
+    H2_PRIOR_KNOWLEDGE("h2c", Protocol.H2_PRIOR_KNOWLEDGE);
+
+    private final String code;
+
+    private final List<Protocol> protocols;
+
+    private HttpProtocol(String code, Protocol... protocols) {
+        this.code = code;
+        this.protocols = Collections.unmodifiableList(Arrays.asList(protocols));
+    }
+
+    @Override
+    public String getCode() {
+        return code;
+    }
+
+    List<Protocol> getProtocols() {
+        return protocols;
+    }
+}
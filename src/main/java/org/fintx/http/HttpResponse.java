@@ -0,0 +1,120 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.http;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The status, headers and body of a response, read completely so it could be passed between threads.
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+public final class HttpResponse {
+    private final int code;
+
+    private final String message;
+
+    private final Map<String, List<String>> headers;
+
+    private final String body;
+
+    private final String protocol;
+
+    HttpResponse(final int code, final String message, final Map<String, List<String>> headers, final String body, final String protocol) {
+        this.code = code;
+        this.protocol = protocol;
+        this.message = message;
+        this.headers = Collections.unmodifiableMap(headers);
+        this.body = body;
+    }
+
+    /**
+     * Gets the HTTP status code.
+     *
+     * @return the status code
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Gets the HTTP status message.
+     *
+     * @return the status message
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Tells if the status code is in [200..300).
+     *
+     * @return true if the request was successful
+     */
+    public boolean isSuccessful() {
+        return code >= 200 && code < 300;
+    }
+
+    /**
+     * Gets the headers, the names in lower case.
+     *
+     * @return the values of the headers by name
+     */
+    public Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Gets the last value of the header.
+     *
+     * @param name the name of the header, case insensitive
+     * @return the value, or null if there is no such header
+     */
+    public String getHeader(final String name) {
+        if (null == name) {
+            throw new NullPointerException("name could not be null!");
+        }
+        List<String> values = headers.get(name.toLowerCase(Locale.US));
+        return null == values || values.isEmpty() ? null : values.get(values.size() - 1);
+    }
+
+    /**
+     * Gets the body, decoded with the charset of the content type (UTF-8 by default).
+     *
+     * @return the body, empty if there is no body
+     */
+    public String getBody() {
+        return body;
+    }
+
+    /**
+     * Gets the protocol the response came by, as the code of ALPN: {@code http/1.1}, {@code h2} or {@code h2_prior_knowledge}.
+     *
+     * @return the protocol
+     */
+    public String getProtocol() {
+        return protocol;
+    }
+
+    @Override
+    public String toString() {
+        return "HttpResponse [code=" + code + ", message=" + message + ", protocol=" + protocol + "]";
+    }
+}
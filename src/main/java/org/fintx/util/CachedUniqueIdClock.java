@@ -0,0 +1,104 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * A {@link UniqueIdClock} of seconds cached in a volatile field, so reading it costs no clock call. A daemon thread updates the field at the beginning of
+ * every second, and at least every tick in case the system clock is set. The cached second is late by the time the thread takes to wake up, a
+ * millisecond or so, which the generators absorb as they do any regression within one second.
+ * </p>
+ * <p>
+ * {@link UniqueIdClock#cached()} is a shared instance, a clock constructed directly should be closed to stop its thread.
+ * </p>
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+public final class CachedUniqueIdClock implements UniqueIdClock, Closeable {
+
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    private final long tickMillis;
+
+    private final Thread ticker;
+
+    private volatile long seconds;
+
+    private volatile boolean closed;
+
+    /**
+     * Constructs a clock and starts its thread.
+     *
+     * @param tickMillis the longest time in milliseconds between two updates, between 1 and 1000
+     */
+    public CachedUniqueIdClock(final long tickMillis) {
+        if (tickMillis < 1 || tickMillis > 1000) {
+            throw new IllegalArgumentException("The tick must be between 1 and 1000 milliseconds.");
+        }
+        this.tickMillis = tickMillis;
+        this.seconds = System.currentTimeMillis() / 1000L;
+        this.ticker = new Thread(this::tick, "fintx-uniqueid-clock-" + THREAD_NUMBER.incrementAndGet());
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    @Override
+    public long currentTimeSeconds() {
+        return seconds;
+    }
+
+    /**
+     * Gets the longest time between two updates.
+     *
+     * @return the tick in milliseconds
+     */
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    /**
+     * Stops the thread, the clock stays at the last second it read.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        ticker.interrupt();
+    }
+
+    private void tick() {
+        while (!closed) {
+            long now = System.currentTimeMillis();
+            seconds = now / 1000L;
+            try {
+                // wakes up right after the next second begins
+                Thread.sleep(Math.min(tickMillis, 1000L - now % 1000L));
+            } catch (InterruptedException e) {
+                // closed
+            }
+        }
+    }
+
+    /**
+     * The clock of {@link UniqueIdClock#cached()}, started on the first use.
+     */
+    static final class Shared {
+        static final CachedUniqueIdClock INSTANCE = new CachedUniqueIdClock(10);
+    }
+}
@@ -0,0 +1,345 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * <p>
+ * A globally unique identifier of 15 bytes like {@link UniqueId}, with a timestamp of milliseconds, so ids of different processes sort by the
+ * millisecond they were generated in. Ids of one process are strictly increasing.
+ * </p>
+ * <p>
+ * Consists of 15 bytes, divided as follows:
+ * </p>
+ * <table border="1">
+ * <caption>MonotonicUniqueId layout</caption>
+ * <tr>
+ * <td>0</td>
+ * <td>1</td>
+ * <td>2</td>
+ * <td>3</td>
+ * <td>4</td>
+ * <td>5</td>
+ * <td>6</td>
+ * <td>7</td>
+ * <td>8</td>
+ * <td>9</td>
+ * <td>10</td>
+ * <td>11</td>
+ * <td>12</td>
+ * <td>13</td>
+ * <td>14</td>
+ * </tr>
+ * <tr>
+ * <td colspan="6">time of millisecond</td>
+ * <td colspan="5">machine</td>
+ * <td colspan="2">pid</td>
+ * <td colspan="2">counter</td>
+ * </tr>
+ * </table>
+ * <p>
+ * The machine identifier is the low five bytes of the one of {@link UniqueId}, and the counter is reset every millisecond. The time and the counter of
+ * the last id are one {@code AtomicLong}, generating an id is one compare-and-set of {@code max(last + 1, now << 16)}. So after the 65536 counters of a
+ * millisecond the time goes on to the next millisecond ahead of the clock, and when the clock goes back the ids keep increasing from the last one, the
+ * time returns to the clock as soon as it catches up.
+ * </p>
+ * <p>
+ * The encodings are the same as {@link UniqueId}: 30 hexadecimal characters, which sort as the ids do, or 20 URL safe base64 characters.
+ * </p>
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+public final class MonotonicUniqueId implements Comparable<MonotonicUniqueId>, Serializable {
+
+    private static final long serialVersionUID = -2406284271837366713L;
+
+    private static final UniqueIdCodec.Factory<MonotonicUniqueId> FACTORY = MonotonicUniqueId::new;
+
+    static final long FIVE_BYTES = 0xffffffffffL;
+
+    static final int COUNTERS_PER_MILLISECOND = 0x10000;
+
+    // byte 0 to 7: time and the high 2 bytes of machine
+    private final long high;
+
+    // byte 8 to 14: the low 3 bytes of machine, pid and counter
+    private final long low;
+
+    private MonotonicUniqueId(final long high, final long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * Gets a new unique id, greater than every id this process generated before.
+     *
+     * @return the new MonotonicUniqueId instance
+     */
+    public static MonotonicUniqueId get() {
+        return Generator.DEFAULT.get();
+    }
+
+    /**
+     * Gets a new unique id in base64 string.
+     *
+     * @return the new id string of 20 characters
+     */
+    public static String getString() {
+        return get().toBase64String();
+    }
+
+    /**
+     * Constructs a new instance from a byte array of 15 bytes.
+     *
+     * @param bytes the byte array
+     * @return new MonotonicUniqueId instance
+     */
+    public static MonotonicUniqueId fromByteArray(final byte[] bytes) {
+        if (bytes == null) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        if (bytes.length != UniqueIdCodec.BYTES) {
+            throw new IllegalArgumentException("Argument need 15 bytes");
+        }
+        return new MonotonicUniqueId(UniqueIdCodec.readHigh(bytes, 0), UniqueIdCodec.readLow(bytes, 0));
+    }
+
+    /**
+     * Reads an id of 15 bytes from the buffer (heap or direct) at the index, the position of buffer is not changed.
+     *
+     * @param src the byte buffer
+     * @param index the index of the first byte of the id
+     * @return new MonotonicUniqueId instance
+     * @throws IndexOutOfBoundsException if there are not 15 bytes from the index before the limit
+     */
+    public static MonotonicUniqueId readFrom(final ByteBuffer src, final int index) {
+        if (src == null) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        if (index < 0 || index > src.limit() - UniqueIdCodec.BYTES) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Limit: " + src.limit());
+        }
+        return new MonotonicUniqueId(UniqueIdCodec.readHigh(src, index), UniqueIdCodec.readLow(src, index));
+    }
+
+    /**
+     * Constructs a new instance from a 30-character hexadecimal (either case) string representation.
+     *
+     * @param hexString the string to convert
+     * @return new MonotonicUniqueId instance
+     * @throws IllegalArgumentException if the string is not 30 hexadecimal digits
+     */
+    public static MonotonicUniqueId fromHexString(final String hexString) {
+        if (hexString == null) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        MonotonicUniqueId id = hexString.length() == UniqueIdCodec.HEX_LENGTH ? UniqueIdCodec.decodeHex(hexString, 0, FACTORY) : null;
+        if (id == null) {
+            throw new IllegalArgumentException("invalid hexadecimal representation of a MonotonicUniqueId: [" + hexString + "]");
+        }
+        return id;
+    }
+
+    /**
+     * Constructs a new instance from a 20-character base64 (URL and filename safe alphabet) string representation.
+     *
+     * @param base64String the string to convert
+     * @return new MonotonicUniqueId instance
+     * @throws IllegalArgumentException if the string is not 20 base64 characters
+     */
+    public static MonotonicUniqueId fromBase64String(final String base64String) {
+        if (base64String == null) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        MonotonicUniqueId id = base64String.length() == UniqueIdCodec.BASE64_LENGTH ? UniqueIdCodec.decodeBase64(base64String, 0, FACTORY) : null;
+        if (id == null) {
+            throw new IllegalArgumentException("invalid base64 representation of a MonotonicUniqueId: [" + base64String + "]");
+        }
+        return id;
+    }
+
+    /**
+     * Converts this instance into a byte array of 15 bytes.
+     *
+     * @return the byte array
+     */
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[UniqueIdCodec.BYTES];
+        UniqueIdCodec.writeBytes(high, low, bytes, 0);
+        return bytes;
+    }
+
+    /**
+     * Writes the 15 bytes of {@link #toByteArray()} into the buffer (heap or direct) at the index, the position of buffer is not changed.
+     *
+     * @param dest the byte buffer
+     * @param index the index of the first byte
+     * @throws IndexOutOfBoundsException if there are not 15 bytes from the index before the limit
+     */
+    public void writeTo(final ByteBuffer dest, final int index) {
+        if (dest == null) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        if (index < 0 || index > dest.limit() - UniqueIdCodec.BYTES) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Limit: " + dest.limit());
+        }
+        UniqueIdCodec.writeBytes(high, low, dest, index);
+    }
+
+    /**
+     * Converts this instance into a 30-character lower case hexadecimal string.
+     *
+     * @return a string representation of the id in hexadecimal format
+     */
+    public String toHexString() {
+        char[] chars = new char[UniqueIdCodec.HEX_LENGTH];
+        UniqueIdCodec.writeHex(high, low, chars, 0);
+        return new String(chars);
+    }
+
+    /**
+     * Converts this instance into a 20-character base64 (URL and filename safe alphabet) string.
+     *
+     * @return a string representation of the id in base64 format
+     */
+    public String toBase64String() {
+        char[] chars = new char[UniqueIdCodec.BASE64_LENGTH];
+        UniqueIdCodec.writeBase64(high, low, chars, 0);
+        return new String(chars);
+    }
+
+    /**
+     * Gets the number of milliseconds since the Unix epoch.
+     *
+     * @return the epoch millisecond
+     */
+    public long getTimestamp() {
+        return high >>> 16;
+    }
+
+    /**
+     * Gets the time of the id.
+     *
+     * @return the instant of the millisecond
+     */
+    public Instant getInstant() {
+        return Instant.ofEpochMilli(getTimestamp());
+    }
+
+    /**
+     * Gets the machine identifier, the low five bytes of the one of {@link UniqueId}.
+     *
+     * @return the machine identifier
+     */
+    public long getMachineIdentifier() {
+        return ((high & 0xffffL) << 24) | (low >>> 32);
+    }
+
+    /**
+     * Gets the process identifier.
+     *
+     * @return the process identifier
+     */
+    public int getProcessIdentifier() {
+        return (int) (low >>> 16) & 0xffff;
+    }
+
+    /**
+     * Gets the counter in the millisecond.
+     *
+     * @return the counter
+     */
+    public int getCounter() {
+        return (int) low & 0xffff;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        MonotonicUniqueId other = (MonotonicUniqueId) o;
+        return high == other.high && low == other.low;
+    }
+
+    @Override
+    public int hashCode() {
+        long hash = UniqueIdCodec.hash64(high, low);
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    @Override
+    public int compareTo(final MonotonicUniqueId other) {
+        if (other == null) {
+            throw new NullPointerException();
+        }
+        // the time of millisecond never has the sign bit, nor the low long
+        if (high != other.high) {
+            return high < other.high ? -1 : 1;
+        }
+        return low == other.low ? 0 : (low < other.low ? -1 : 1);
+    }
+
+    @Override
+    public String toString() {
+        return toBase64String();
+    }
+
+    /**
+     * The generator of one machine and process identifier.
+     */
+    static final class Generator {
+        static final Generator DEFAULT = new Generator(UniqueId.getGeneratedMachineIdentifier(), UniqueId.getGeneratedProcessIdentifier(),
+                System::currentTimeMillis);
+
+        // the time of millisecond (high 48 bits) and the counter (low 16 bits) of the last id
+        private final AtomicLong last;
+
+        private final long highIdentity;
+
+        private final long lowIdentity;
+
+        private final LongSupplier clock;
+
+        Generator(final long machineIdentifier, final int processIdentifier, final LongSupplier clock) {
+            this.highIdentity = (machineIdentifier & FIVE_BYTES) >>> 24;
+            this.lowIdentity = ((machineIdentifier & 0xffffffL) << 32) | ((processIdentifier & 0xffffL) << 16);
+            this.clock = clock;
+            this.last = new AtomicLong(clock.getAsLong() << 16);
+        }
+
+        MonotonicUniqueId get() {
+            long next;
+            for (;;) {
+                long current = last.get();
+                next = Math.max(current + 1, clock.getAsLong() << 16);
+                if (last.compareAndSet(current, next)) {
+                    break;
+                }
+            }
+            return new MonotonicUniqueId((next & 0xffffffffffff0000L) | highIdentity, lowIdentity | (next & 0xffffL));
+        }
+    }
+}
@@ -17,14 +17,12 @@
 package org.fintx.util;
 
 import java.io.Serializable;
-import java.net.NetworkInterface;
-import java.security.SecureRandom;
-import java.util.Arrays;
-import java.util.Base64;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Comparator;
 import java.util.Date;
-import java.util.Enumeration;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * <p>
@@ -71,23 +69,82 @@ import java.util.concurrent.atomic.AtomicLong;
  * ProcessId on os could not bigger then 65535. Only in one bundle of same JVM when using OSGI. Generated id number could not more then about 16777215 per
  * second per JVM. Id maybe (hardly) generate the same one every 69 years.
  * </p>
+ * <p>
+ * Ids are generated by {@link UniqueIdGenerator}. Set the system property {@value #BLOCK_SIZE_PROPERTY} (for example 256) to let every thread lease a
+ * block of counters when many threads generate ids in parallel. Set {@value #EXHAUSTION_POLICY_PROPERTY} to {@code BORROW_NEXT_SECOND} or
+ * {@code WAIT_NEXT_SECOND} so that more than 16777215 ids per second never repeat.
+ * </p>
+ * <p>
+ * The machine identifier and the process identifier are resolved on the first {@link #get()}, each by the first of: the provider of
+ * {@link #setIdentityProvider(UniqueIdIdentityProvider)}, the system properties {@value #MACHINE_IDENTIFIER_PROPERTY} and
+ * {@value #PROCESS_IDENTIFIER_PROPERTY}, the environment variables {@code FINTX_UNIQUEID_MACHINE_IDENTIFIER} and
+ * {@code FINTX_UNIQUEID_PROCESS_IDENTIFIER}, the {@link UniqueIdIdentityProvider} services, then the MAC address (or the hashed host name where there
+ * is no network interface) and the pid. Set the identifiers explicitly to skip looking up the network interfaces at start up.
+ * </p>
  *
  */
 public final class UniqueId implements Comparable<UniqueId>, Serializable {
 
     private static final long serialVersionUID = 3670079982654483072L;
 
-    private static final int LOW_ORDER_THREE_BYTES = 0x00ffffff;
+    /**
+     * The system property of the number of counters every thread leases at once in {@link #get()}, see {@link UniqueIdGenerator.Builder#blockSize(int)}.
+     */
+    public static final String BLOCK_SIZE_PROPERTY = "org.fintx.util.UniqueId.blockSize";
+
+    /**
+     * The system property of what {@link #get()} does when the counters of one second are used up, one of {@link UniqueIdGenerator.ExhaustionPolicy}.
+     */
+    public static final String EXHAUSTION_POLICY_PROPERTY = "org.fintx.util.UniqueId.exhaustionPolicy";
+
+    /**
+     * The system property of what {@link #get()} does when the clock went back more than one second, one of
+     * {@link UniqueIdGenerator.ClockRegressionPolicy}.
+     */
+    public static final String CLOCK_REGRESSION_POLICY_PROPERTY = "org.fintx.util.UniqueId.clockRegressionPolicy";
+
+    /**
+     * The system property of the clock of {@link #get()}, {@code system} (the default) or {@code cached} for {@link UniqueIdClock#cached()}.
+     */
+    public static final String CLOCK_PROPERTY = "org.fintx.util.UniqueId.clock";
+
+    /**
+     * The system property to collect the {@link UniqueIdMetrics} of {@link #get()}, registered in JMX with the name {@code default}, false by default.
+     */
+    public static final String METRICS_PROPERTY = "org.fintx.util.UniqueId.metrics";
+
+    /**
+     * Compares two 15 bytes ids in place, in the same order as {@link #compareTo(UniqueId)}. Sort byte arrays of ids with it without creating
+     * {@code UniqueId} instances.
+     */
+    public static final Comparator<byte[]> BYTES_COMPARATOR = new Comparator<byte[]>() {
+        @Override
+        public int compare(final byte[] bytes, final byte[] otherBytes) {
+            if (bytes.length != UniqueIdCodec.BYTES || otherBytes.length != UniqueIdCodec.BYTES) {
+                throw new IllegalArgumentException("Argument need 15 bytes");
+            }
+            return UniqueId.compare(bytes, 0, otherBytes, 0);
+        }
+    };
+
+    /**
+     * The system property of the machine identifier of {@link #get()}, decimal or hexadecimal ({@code 0x} prefixed).
+     */
+    public static final String MACHINE_IDENTIFIER_PROPERTY = "org.fintx.util.UniqueId.machineIdentifier";
 
-    private static final long MACHINE_IDENTIFIER;
+    /**
+     * The system property of the process identifier of {@link #get()}, decimal or hexadecimal ({@code 0x} prefixed).
+     */
+    public static final String PROCESS_IDENTIFIER_PROPERTY = "org.fintx.util.UniqueId.processIdentifier";
+
+    private static final UniqueIdCodec.Factory<UniqueId> FACTORY = UniqueId::new;
 
-    private static final short PROCESS_IDENTIFIER;
+    // The epoch second the class was loaded, the timestamps are resolved around it
+    private static final long EPOCH_PIVOT = System.currentTimeMillis() / 1000L;
 
-    private static final AtomicInteger NEXT_COUNTER = new AtomicInteger(new SecureRandom().nextInt());
-    // to prevent time change back maybe when use time server to correct the machine time.
-    private static final AtomicLong LAST_TIMESTAMP = new AtomicLong(0);
+    private static volatile UniqueIdIdentityProvider identityProvider;
 
-    private static final char[] HEX_CHARS = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f' };
+    private static volatile boolean identityResolved;
 
     private final int timestamp;
 
@@ -103,7 +160,40 @@ public final class UniqueId implements Comparable<UniqueId>, Serializable {
      * @return the new UniqueId instance
      */
     public static UniqueId get() {
-        return new UniqueId(dateToTimestampSeconds(new Date()), MACHINE_IDENTIFIER, PROCESS_IDENTIFIER, NEXT_COUNTER.getAndIncrement(), false);
+        return Generator.DEFAULT.get();
+    }
+
+    /**
+     * Gets new object ids in one batch.
+     *
+     * @param count the number of ids
+     * @return the new UniqueId instances
+     * @see UniqueIdGenerator#get(int)
+     */
+    public static UniqueId[] get(final int count) {
+        return Generator.DEFAULT.get(count);
+    }
+
+    /**
+     * Fills the array with new object ids in one batch.
+     *
+     * @param ids the array to fill
+     * @see UniqueIdGenerator#fill(UniqueId[])
+     */
+    public static void fill(final UniqueId[] ids) {
+        Generator.DEFAULT.fill(ids);
+    }
+
+    /**
+     * Writes new object ids into the byte array, 15 bytes each, without creating UniqueId instances.
+     *
+     * @param dest the byte array to write
+     * @param offset the index of the first byte to write
+     * @param count the number of ids
+     * @see UniqueIdGenerator#fill(byte[], int, int)
+     */
+    public static void fill(final byte[] dest, final int offset, final int count) {
+        Generator.DEFAULT.fill(dest, offset, count);
     }
 
     /**
@@ -128,32 +218,16 @@ public final class UniqueId implements Comparable<UniqueId>, Serializable {
         }
 
         int len = idString.length();
-        if (len == 30) {
+        if (len == UniqueIdCodec.HEX_LENGTH) {
             for (int i = 0; i < len; i++) {
-                char c = idString.charAt(i);
-                if (c >= '0' && c <= '9') {
-                    continue;
-                } else if (c >= 'a' && c <= 'f') {
-                    continue;
-                } else if (c >= 'A' && c <= 'F') {
-                    continue;
-                } else {
+                if (UniqueIdCodec.hexValue(idString.charAt(i)) < 0) {
                     return false;
                 }
             }
             return true;
-        } else if (len == 20) {
+        } else if (len == UniqueIdCodec.BASE64_LENGTH) {
             for (int i = 0; i < len; i++) {
-                char c = idString.charAt(i);
-                if (c >= '0' && c <= '9') {
-                    continue;
-                } else if (c >= 'a' && c <= 'z') {
-                    continue;
-                } else if (c >= 'A' && c <= 'Z') {
-                    continue;
-                } else if (c == '_' || c == '-') {
-                    continue;
-                } else {
+                if (UniqueIdCodec.base64Value(idString.charAt(i)) < 0) {
                     return false;
                 }
             }
@@ -161,7 +235,6 @@ public final class UniqueId implements Comparable<UniqueId>, Serializable {
         } else {
             return false;
         }
-
     }
 
     /**
@@ -170,7 +243,7 @@ public final class UniqueId implements Comparable<UniqueId>, Serializable {
      * @return an int representing the machine identifier
      */
     public static long getGeneratedMachineIdentifier() {
-        return MACHINE_IDENTIFIER;
+        return Generator.DEFAULT.getMachineIdentifier();
     }
 
     /**
@@ -179,7 +252,27 @@ public final class UniqueId implements Comparable<UniqueId>, Serializable {
      * @return the process id
      */
     public static int getGeneratedProcessIdentifier() {
-        return PROCESS_IDENTIFIER;
+        return Generator.DEFAULT.getProcessIdentifier();
+    }
+
+    /**
+     * Sets the provider of the machine identifier and the process identifier of {@link #get()}. It must be set before the first id is generated.
+     *
+     * @param provider the provider
+     * @throws IllegalArgumentException if an identifier of the provider does not fit
+     * @throws IllegalStateException if the identifiers are resolved already
+     */
+    public static void setIdentityProvider(final UniqueIdIdentityProvider provider) {
+        if (null == provider) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        UniqueIdIdentity.check(provider);
+        synchronized (UniqueId.class) {
+            if (identityResolved) {
+                throw new IllegalStateException("The identity of UniqueId is resolved already.");
+            }
+            identityProvider = provider;
+        }
     }
 
     /**
@@ -188,96 +281,40 @@ public final class UniqueId implements Comparable<UniqueId>, Serializable {
      * @return the current counter value.
      */
     public static int getCurrentCounter() {
-        return NEXT_COUNTER.get();
+        return Generator.DEFAULT.getCurrentCounter();
     }
 
     /**
-     * Gets the current value of the auto-incrementing counter.
+     * Gets the timestamp of the last generated id.
      *
-     * @return the current counter value.
+     * @return the current timestamp of second.
      */
     public static long getCurrentTimeStamp() {
-        return LAST_TIMESTAMP.get() & 0xffffffffL;
+        return Generator.DEFAULT.getCurrentTimeStamp();
+    }
+
+    /**
+     * Gets the metrics of {@link #get()}, enabled by the system property {@link #METRICS_PROPERTY}.
+     *
+     * @return the metrics, or null if they are not enabled
+     */
+    public static UniqueIdMetrics getMetrics() {
+        return Generator.DEFAULT.getMetrics();
     }
 
     /**
-     * Constructs a new instance from the timestamp
+     * Constructs a new instance from the fields.
      *
      * @param timestamp of second
      * @param machineIdentifier the machine identifier
      * @param processIdentifier the process identifier
-     * @param counter the counter in this jvm
-     * @param checkCounter whether or not need check counter
+     * @param counter the counter in three bytes
      */
-    private UniqueId(final int timestamp, final long machineIdentifier, final short processIdentifier, final int counter, final boolean checkCounter) {
-        long current = LAST_TIMESTAMP.get();
-
-        if ((timestamp & 0xffffffffL) == (current & 0xffffffffL)) {
-        // @formatter:off
-        // mostly   
-        // @formatter:on
-
-            this.timestamp = timestamp;
-            this.counter = counter & LOW_ORDER_THREE_BYTES;
-
-        } else if ((timestamp & 0xffffffffL) > (current & 0xffffffffL)) {
-        // @formatter:off
-        // once per second or less
-        // @formatter:on    
-            synchronized (UniqueId.class) {
-                current = LAST_TIMESTAMP.get();
-                if ((timestamp & 0xffffffffL) > (current & 0xffffffffL)) {
-                    LAST_TIMESTAMP.set(timestamp & 0xffffffffL);
-                    this.timestamp = timestamp;
-                    this.counter = counter & LOW_ORDER_THREE_BYTES;
-                } else if ((timestamp & 0xffffffffL) == (current & 0xffffffffL)) {
-                    this.timestamp = timestamp;
-                    this.counter = counter & LOW_ORDER_THREE_BYTES;
-                } else if ((current & 0xffffffffL) - (timestamp & 0xffffffffL) == 1L) {
-                    this.timestamp = (int) current;
-                    this.counter = counter & LOW_ORDER_THREE_BYTES;
-                } else {
-                    this.timestamp = (int) current;
-                    this.counter = NEXT_COUNTER.getAndIncrement() & LOW_ORDER_THREE_BYTES;
-                }
-            }
-        } else {
-        // @formatter:off
-        //((timestamp & 0xffffffffL) < (current & 0xffffffffL))
-        // hardly
-        // @formatter:on    
-            synchronized (UniqueId.class) {
-                current = LAST_TIMESTAMP.get();
-                if ((current & 0xffffffffL) - (timestamp & 0xffffffffL) == 1L) {
-                // @formatter:off
-                // LAST_TIMESTAMP increased after timestamp generated
-                // @formatter:on  
-
-                } else if (((LAST_TIMESTAMP.get() & 0xffffffffL) - (timestamp & 0xffffffffL)) >= 0x7fffffffL) {
-                    // timestamp is in the new round of zero to 0xffffffffL. 0x7fffffffL is half of 0xffffffffL.
-                    // A round is about 69 years, so the gap between last timestamp in the last round and new timestamp in this round will not less then 34
-                    // years.
-                    LAST_TIMESTAMP.set(timestamp & 0xffffffffL);
-                } else {
-                    // System.err.println(((LAST_TIMESTAMP.get() & 0xffffffffL) - (timestamp & 0xffffffffL)));
-                    // System.err.println(timestamp);
-                    // System.err.println(current);
-                    // System.err.println(LAST_TIMESTAMP.get());
-                    throw new IllegalArgumentException(
-                            "The timestamp must not be less then the timestamp last time. (Maybe the machine correct time using time server).");
-                }
-            }
-            this.counter = counter & LOW_ORDER_THREE_BYTES;
-            this.timestamp = timestamp;
-        }
-        if (((machineIdentifier >> 32) & 0xff000000) != 0) {
-            throw new IllegalArgumentException("The machine identifier must be between 0 and 28139015110655 (it must fit in six bytes).");
-        }
-        if (checkCounter && ((counter & 0xff000000) != 0)) {
-            throw new IllegalArgumentException("The counter must be between 0 and 16777215 (it must fit in three bytes).");
-        }
+    UniqueId(final int timestamp, final long machineIdentifier, final short processIdentifier, final int counter) {
+        this.timestamp = timestamp;
         this.machineIdentifier = machineIdentifier;
         this.processIdentifier = processIdentifier;
+        this.counter = counter;
     }
 
     /**
@@ -287,45 +324,346 @@ public final class UniqueId implements Comparable<UniqueId>, Serializable {
      * @return new UniqueId instance
      */
     public static UniqueId fromByteArray(final byte[] bytes) {
-        return new UniqueId(bytes);
+        if (bytes == null) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        if (bytes.length != UniqueIdCodec.BYTES) {
+            throw new IllegalArgumentException("Argument need 15 bytes");
+        }
+        return new UniqueId(UniqueIdCodec.readHigh(bytes, 0), UniqueIdCodec.readLow(bytes, 0));
     }
 
     /**
-     * Constructs a new instance from a 60-byte hexadecimal (base16 encoding) string representation.
+     * Constructs a new instance from 15 bytes of the array, the array could hold many ids one after another.
+     *
+     * @param bytes the byte array
+     * @param offset the index of the first byte of the id
+     * @return new UniqueId instance
+     * @throws IndexOutOfBoundsException if there are not 15 bytes from the offset
+     */
+    public static UniqueId fromByteArray(final byte[] bytes, final int offset) {
+        if (bytes == null) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        if (offset < 0 || offset > bytes.length - UniqueIdCodec.BYTES) {
+            throw new IndexOutOfBoundsException("Offset: " + offset + ", Length: " + bytes.length);
+        }
+        return new UniqueId(UniqueIdCodec.readHigh(bytes, offset), UniqueIdCodec.readLow(bytes, offset));
+    }
+
+    /**
+     * Reads an id of 15 bytes from the buffer (heap or direct) at its position, then the position is incremented by 15.
+     *
+     * @param src the byte buffer
+     * @return new UniqueId instance
+     * @throws java.nio.BufferUnderflowException if there are fewer than 15 bytes remaining in the buffer
+     */
+    public static UniqueId readFrom(final ByteBuffer src) {
+        if (src == null) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        if (src.remaining() < UniqueIdCodec.BYTES) {
+            throw new BufferUnderflowException();
+        }
+        int position = src.position();
+        UniqueId id = new UniqueId(UniqueIdCodec.readHigh(src, position), UniqueIdCodec.readLow(src, position));
+        src.position(position + UniqueIdCodec.BYTES);
+        return id;
+    }
+
+    /**
+     * Reads an id of 15 bytes from the buffer (heap or direct) at the index, the position of buffer is not changed.
+     *
+     * @param src the byte buffer
+     * @param index the index of the first byte of the id
+     * @return new UniqueId instance
+     * @throws IndexOutOfBoundsException if there are not 15 bytes from the index before the limit
+     */
+    public static UniqueId readFrom(final ByteBuffer src, final int index) {
+        if (src == null) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        if (index < 0 || index > src.limit() - UniqueIdCodec.BYTES) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Limit: " + src.limit());
+        }
+        return new UniqueId(UniqueIdCodec.readHigh(src, index), UniqueIdCodec.readLow(src, index));
+    }
+
+    /**
+     * Constructs a new instance from a 30-character hexadecimal (base16 encoding, either case) string representation.
      *
      * @param hexString the string to convert
      * @return new UniqueId instance
+     * @throws IllegalArgumentException if the string is not 30 hexadecimal digits
      */
     public static UniqueId fromHexString(final String hexString) {
-        return new UniqueId(parseHexString(hexString));
+        if (hexString == null) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        UniqueId id = hexString.length() == UniqueIdCodec.HEX_LENGTH ? UniqueIdCodec.decodeHex(hexString, 0, FACTORY) : null;
+        if (id == null) {
+            throw invalidHex(hexString);
+        }
+        return id;
     }
 
     /**
-     * Constructs a new instance from a 40-byte base64 encoding string representation.
+     * Constructs a new instance from the 30 hexadecimal characters from the offset, the characters could be a part of a larger text such as a request
+     * buffer.
+     *
+     * @param src the characters
+     * @param offset the index of the first character
+     * @return new UniqueId instance
+     * @throws IndexOutOfBoundsException if there are not 30 characters from the offset
+     * @throws IllegalArgumentException if a character is not a hexadecimal digit
+     */
+    public static UniqueId fromHexString(final CharSequence src, final int offset) {
+        if (src == null) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        checkOffset(offset, UniqueIdCodec.HEX_LENGTH, src.length());
+        UniqueId id = UniqueIdCodec.decodeHex(src, offset, FACTORY);
+        if (id == null) {
+            throw invalidHex(src.subSequence(offset, offset + UniqueIdCodec.HEX_LENGTH));
+        }
+        return id;
+    }
+
+    /**
+     * Constructs a new instance from the 30 hexadecimal characters from the offset, the reverse of {@link #toHexChars(char[], int)}.
+     *
+     * @param src the characters
+     * @param offset the index of the first character
+     * @return new UniqueId instance
+     * @throws IndexOutOfBoundsException if there are not 30 characters from the offset
+     * @throws IllegalArgumentException if a character is not a hexadecimal digit
+     */
+    public static UniqueId fromHexChars(final char[] src, final int offset) {
+        if (src == null) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        checkOffset(offset, UniqueIdCodec.HEX_LENGTH, src.length);
+        UniqueId id = UniqueIdCodec.decodeHex(src, offset, FACTORY);
+        if (id == null) {
+            throw invalidHex(new String(src, offset, UniqueIdCodec.HEX_LENGTH));
+        }
+        return id;
+    }
+
+    /**
+     * Constructs a new instance from the 30 hexadecimal characters encoded in ASCII (or UTF-8) bytes from the offset, so an id could be parsed from a
+     * network buffer without decoding it to a string.
+     *
+     * @param src the ASCII bytes
+     * @param offset the index of the first byte
+     * @return new UniqueId instance
+     * @throws IndexOutOfBoundsException if there are not 30 bytes from the offset
+     * @throws IllegalArgumentException if a byte is not a hexadecimal digit
+     */
+    public static UniqueId fromHexBytes(final byte[] src, final int offset) {
+        if (src == null) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        checkOffset(offset, UniqueIdCodec.HEX_LENGTH, src.length);
+        UniqueId id = UniqueIdCodec.decodeHex(src, offset, FACTORY);
+        if (id == null) {
+            throw invalidHex(new String(src, offset, UniqueIdCodec.HEX_LENGTH, java.nio.charset.StandardCharsets.ISO_8859_1));
+        }
+        return id;
+    }
+
+    /**
+     * Constructs a new instance from a 20-character base64 (URL and filename safe alphabet) string representation.
      *
      * @param base64String the string to convert
      * @return new UniqueId instance
+     * @throws IllegalArgumentException if the string is not 20 base64 characters
      */
     public static UniqueId fromBase64String(final String base64String) {
-        return new UniqueId(parseBase64String(base64String));
+        if (base64String == null) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        UniqueId id = base64String.length() == UniqueIdCodec.BASE64_LENGTH ? UniqueIdCodec.decodeBase64(base64String, 0, FACTORY) : null;
+        if (id == null) {
+            throw invalidHex(base64String);
+        }
+        return id;
     }
 
     /**
-     * Constructs a new instance from the given byte array
+     * Constructs a new instance from the 20 base64 characters from the offset, the characters could be a part of a larger text such as a request buffer.
      *
-     * @param bytes the byte array
+     * @param src the characters
+     * @param offset the index of the first character
+     * @return new UniqueId instance
+     * @throws IndexOutOfBoundsException if there are not 20 characters from the offset
+     * @throws IllegalArgumentException if a character is not in the base64 alphabet
      */
-    private UniqueId(final byte[] bytes) {
-        if (bytes == null) {
+    public static UniqueId fromBase64String(final CharSequence src, final int offset) {
+        if (src == null) {
             throw new IllegalArgumentException("Argument should not be null!");
         }
-        if (bytes.length != 15) {
-            throw new IllegalArgumentException("Argument need 15 bytes");
+        checkOffset(offset, UniqueIdCodec.BASE64_LENGTH, src.length());
+        UniqueId id = UniqueIdCodec.decodeBase64(src, offset, FACTORY);
+        if (id == null) {
+            throw invalidHex(src.subSequence(offset, offset + UniqueIdCodec.BASE64_LENGTH));
         }
-        timestamp = bytes2int(Arrays.copyOfRange(bytes, 0, 4));
-        machineIdentifier = bytes2long(Arrays.copyOfRange(bytes, 4, 10));
-        processIdentifier = (short) bytes2int(Arrays.copyOfRange(bytes, 10, 12));
-        counter = bytes2int(Arrays.copyOfRange(bytes, 12, 15));
+        return id;
+    }
+
+    /**
+     * Constructs a new instance from the 20 base64 characters from the offset, the reverse of {@link #toBase64Chars(char[], int)}.
+     *
+     * @param src the characters
+     * @param offset the index of the first character
+     * @return new UniqueId instance
+     * @throws IndexOutOfBoundsException if there are not 20 characters from the offset
+     * @throws IllegalArgumentException if a character is not in the base64 alphabet
+     */
+    public static UniqueId fromBase64Chars(final char[] src, final int offset) {
+        if (src == null) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        checkOffset(offset, UniqueIdCodec.BASE64_LENGTH, src.length);
+        UniqueId id = UniqueIdCodec.decodeBase64(src, offset, FACTORY);
+        if (id == null) {
+            throw invalidHex(new String(src, offset, UniqueIdCodec.BASE64_LENGTH));
+        }
+        return id;
+    }
+
+    /**
+     * Constructs a new instance from the 20 base64 characters encoded in ASCII (or UTF-8) bytes from the offset.
+     *
+     * @param src the ASCII bytes
+     * @param offset the index of the first byte
+     * @return new UniqueId instance
+     * @throws IndexOutOfBoundsException if there are not 20 bytes from the offset
+     * @throws IllegalArgumentException if a byte is not in the base64 alphabet
+     */
+    public static UniqueId fromBase64Bytes(final byte[] src, final int offset) {
+        if (src == null) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        checkOffset(offset, UniqueIdCodec.BASE64_LENGTH, src.length);
+        UniqueId id = UniqueIdCodec.decodeBase64(src, offset, FACTORY);
+        if (id == null) {
+            throw invalidHex(new String(src, offset, UniqueIdCodec.BASE64_LENGTH, java.nio.charset.StandardCharsets.ISO_8859_1));
+        }
+        return id;
+    }
+
+    private static void checkOffset(final int offset, final int count, final int length) {
+        if (offset < 0 || offset > length - count) {
+            throw new IndexOutOfBoundsException("Offset: " + offset + ", Length: " + length);
+        }
+    }
+
+    // The same message for both encodings, as it has always been
+    private static IllegalArgumentException invalidHex(final CharSequence s) {
+        return new IllegalArgumentException("invalid hexadecimal representation of an UniqueId: [" + s + "]");
+    }
+
+    /**
+     * Constructs a new instance from the 15 bytes held in two longs.
+     *
+     * @param high byte 0 to 7
+     * @param low byte 8 to 14
+     */
+    private UniqueId(final long high, final long low) {
+        timestamp = (int) (high >>> 32);
+        machineIdentifier = ((high & 0xffffffffL) << 16) | (low >>> 40);
+        processIdentifier = (short) (low >>> 24);
+        counter = (int) low & 0x00ffffff;
+    }
+
+    /**
+     * Gets byte 0 to 7 of the id.
+     *
+     * @return the timestamp and the high 4 bytes of machine identifier
+     */
+    long high() {
+        return ((timestamp & 0xffffffffL) << 32) | (machineIdentifier >>> 16);
+    }
+
+    /**
+     * Gets byte 8 to 14 of the id in the low 56 bits.
+     *
+     * @return the low 2 bytes of machine identifier, the process identifier and the counter
+     */
+    long low() {
+        return ((machineIdentifier & 0xffffL) << 40) | ((processIdentifier & 0xffffL) << 24) | (counter & 0x00ffffffL);
+    }
+
+    /**
+     * Converts to the canonical two longs of the id. The first long is byte 0 to 7, the second long is byte 8 to 14 in its low 56 bits, both big endian,
+     * so the high byte of the second long is always 0.
+     *
+     * @return the two longs
+     */
+    public long[] toLongs() {
+        return new long[] { high(), low() };
+    }
+
+    /**
+     * Writes the two longs of {@link #toLongs()} into the array.
+     *
+     * @param dest the long array
+     * @param offset the index of the first long to write
+     * @throws IndexOutOfBoundsException if there are not 2 longs from the offset
+     */
+    public void toLongs(final long[] dest, final int offset) {
+        if (dest == null) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        if (offset < 0 || offset > dest.length - 2) {
+            throw new IndexOutOfBoundsException("Offset: " + offset + ", Length: " + dest.length);
+        }
+        dest[offset] = high();
+        dest[offset + 1] = low();
+    }
+
+    /**
+     * Gets the least id of the timestamp, all ids of the timestamp are greater than or equal to it in the order of {@link #compareTo(UniqueId)}.
+     *
+     * @param timestamp the timestamp of second (number of seconds since the Unix epoch), between 0 and 4294967295
+     * @return the least id
+     */
+    public static UniqueId minForTimestamp(final long timestamp) {
+        checkTimestamp(timestamp);
+        return new UniqueId((int) timestamp, 0L, (short) 0, 0);
+    }
+
+    /**
+     * Gets the greatest id of the timestamp, all ids of the timestamp are less than or equal to it in the order of {@link #compareTo(UniqueId)}.
+     *
+     * @param timestamp the timestamp of second (number of seconds since the Unix epoch), between 0 and 4294967295
+     * @return the greatest id
+     */
+    public static UniqueId maxForTimestamp(final long timestamp) {
+        checkTimestamp(timestamp);
+        return new UniqueId((int) timestamp, 0x0000ffffffffffffL, (short) 0xffff, 0x00ffffff);
+    }
+
+    private static void checkTimestamp(final long timestamp) {
+        if ((timestamp & 0xffffffff00000000L) != 0) {
+            throw new IllegalArgumentException("The timestamp must be between 0 and 4294967295 (it must fit in four bytes).");
+        }
+    }
+
+    /**
+     * Constructs a new instance from the two longs of {@link #toLongs()}.
+     *
+     * @param high byte 0 to 7 of the id
+     * @param low byte 8 to 14 of the id in the low 56 bits
+     * @return new UniqueId instance
+     * @throws IllegalArgumentException if the high byte of the low long is not 0
+     */
+    public static UniqueId fromLongs(final long high, final long low) {
+        if ((low & 0xff00000000000000L) != 0) {
+            throw new IllegalArgumentException("The low long must fit in seven bytes.");
+        }
+        return new UniqueId(high, low);
     }
 
     /**
@@ -334,29 +672,63 @@ public final class UniqueId implements Comparable<UniqueId>, Serializable {
      * @return the byte array
      */
     public byte[] toByteArray() {
-        byte[] bytes = new byte[15];
-        byte[] temp = int2bytes(timestamp);
-        bytes[0] = temp[0];
-        bytes[1] = temp[1];
-        bytes[2] = temp[2];
-        bytes[3] = temp[3];
-        temp = long2bytes(machineIdentifier);
-        bytes[4] = temp[2];
-        bytes[5] = temp[3];
-        bytes[6] = temp[4];
-        bytes[7] = temp[5];
-        bytes[8] = temp[6];
-        bytes[9] = temp[7];
-        temp = int2bytes(processIdentifier);
-        bytes[10] = temp[2];
-        bytes[11] = temp[3];
-        temp = int2bytes(counter);
-        bytes[12] = temp[1];
-        bytes[13] = temp[2];
-        bytes[14] = temp[3];
+        byte[] bytes = new byte[UniqueIdCodec.BYTES];
+        UniqueIdCodec.writeBytes(high(), low(), bytes, 0);
         return bytes;
     }
 
+    /**
+     * Writes the 15 bytes of {@link #toByteArray()} into the array.
+     *
+     * @param dest the byte array
+     * @param offset the index of the first byte to write
+     * @throws IndexOutOfBoundsException if there are not 15 bytes from the offset
+     */
+    public void toByteArray(final byte[] dest, final int offset) {
+        if (dest == null) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        if (offset < 0 || offset > dest.length - UniqueIdCodec.BYTES) {
+            throw new IndexOutOfBoundsException("Offset: " + offset + ", Length: " + dest.length);
+        }
+        UniqueIdCodec.writeBytes(high(), low(), dest, offset);
+    }
+
+    /**
+     * Writes the 15 bytes of {@link #toByteArray()} into the buffer (heap or direct) at its position, then the position is incremented by 15.
+     *
+     * @param dest the byte buffer
+     * @throws java.nio.BufferOverflowException if there are fewer than 15 bytes remaining in the buffer
+     */
+    public void writeTo(final ByteBuffer dest) {
+        if (dest == null) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        if (dest.remaining() < UniqueIdCodec.BYTES) {
+            throw new BufferOverflowException();
+        }
+        int position = dest.position();
+        UniqueIdCodec.writeBytes(high(), low(), dest, position);
+        dest.position(position + UniqueIdCodec.BYTES);
+    }
+
+    /**
+     * Writes the 15 bytes of {@link #toByteArray()} into the buffer (heap or direct) at the index, the position of buffer is not changed.
+     *
+     * @param dest the byte buffer
+     * @param index the index of the first byte to write
+     * @throws IndexOutOfBoundsException if there are not 15 bytes from the index before the limit
+     */
+    public void writeTo(final ByteBuffer dest, final int index) {
+        if (dest == null) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        if (index < 0 || index > dest.limit() - UniqueIdCodec.BYTES) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Limit: " + dest.limit());
+        }
+        UniqueIdCodec.writeBytes(high(), low(), dest, index);
+    }
+
     /**
      * Gets the timestamp (number of seconds since the Unix epoch).
      *
@@ -395,42 +767,50 @@ public final class UniqueId implements Comparable<UniqueId>, Serializable {
     }
 
     /**
-     * Gets the timestamp as a {@code Date} instance.
+     * Gets the number of seconds since the Unix epoch of the id. The timestamp of 4 bytes rolls over every 136 years, it is resolved as the time within
+     * 68 years before or after the time the class was loaded.
      *
-     * @return the Date
+     * @return the epoch second
      */
-    public Date getDate() {
-        return getDate(new Date().getTime());
+    public long getEpochSecond() {
+        return epochSecond(timestamp);
     }
 
     /**
-     * Gets the timestamp as a {@code Date} instance.
-     * 
-     * @param now the timestamp in millisecond
-     * @return the Date
+     * Gets the number of milliseconds since the Unix epoch of the id, see {@link #getEpochSecond()}.
+     *
+     * @return the epoch millisecond
      */
-    private Date getDate(long now) {
-
-        if ((timestamp & 0xffffffffL) <= (now / 1000L % 0xffffffffL)) {
-        // @formatter:off
-        // Timestamp is in this round of scope.
-        // @formatter:on
-            return new Date((((now / 1000L / 0xffffffffL) * 0xffffffffL + (timestamp & 0xffffffffL)) + now / 1000L / 0xffffffffL) * 1000L);
+    public long toEpochMilli() {
+        return epochSecond(timestamp) * 1000L;
+    }
 
-        } else if (((timestamp & 0xffffffffL) + now / 1000L / 0xffffffffL) - (now / 1000L % 0xffffffffL) >= 0x7fffffffL) {
-        // @formatter:off
-        // Timestamp is in last round of zero to 0xffffffffL scope.
-        //"+ now / 1000L / 0xffffffffL" is to fix the beginning second (should be 1 but 0) every round starting from second round (the beginning is the first round)
-        // @formatter:on
-            return new Date((((now / 1000L / 0xffffffffL) - 1) * 0xffffffffL + (timestamp & 0xffffffffL) + (now / 1000L / 0xffffffffL) - 1) * 1000L);
+    /**
+     * Gets the time of the id as an {@code Instant}, see {@link #getEpochSecond()}.
+     *
+     * @return the Instant
+     */
+    public Instant getInstant() {
+        return Instant.ofEpochSecond(epochSecond(timestamp));
+    }
 
-        } else {
-        // @formatter:off
-        // Timestamp is in this round of zero to 0xffffffffL scope but bigger then now
-        // @formatter:on
-            throw new IllegalArgumentException("The timestamp must not be less then the timestamp now. (Maybe the machine correct time using time server).");
-        }
+    /**
+     * Gets the timestamp as a {@code Date} instance, see {@link #getEpochSecond()}.
+     *
+     * @return the Date
+     */
+    public Date getDate() {
+        return new Date(toEpochMilli());
+    }
 
+    /**
+     * Resolves the timestamp of 4 bytes with the cached pivot by a signed difference and a single add.
+     *
+     * @param timestamp the timestamp of an id
+     * @return the epoch second
+     */
+    static long epochSecond(final int timestamp) {
+        return EPOCH_PIVOT + (timestamp - (int) EPOCH_PIVOT);
     }
 
     /**
@@ -439,23 +819,26 @@ public final class UniqueId implements Comparable<UniqueId>, Serializable {
      * @return a string representation of the UniqueId in hexadecimal format
      */
     public String toHexString() {
-        return toHexString(toByteArray());
+        char[] chars = new char[UniqueIdCodec.HEX_LENGTH];
+        UniqueIdCodec.writeHex(high(), low(), chars, 0);
+        return new String(chars);
     }
 
     /**
-     * Converts byte array into a hexadecimal string representation.
-     * 
-     * @param bytes the byte array
-     * @return a string
+     * Writes the 30 characters of {@link #toHexString()} into the array.
+     *
+     * @param dest the char array
+     * @param offset the index of the first character to write
+     * @throws IndexOutOfBoundsException if there are not 30 characters from the offset
      */
-    private static String toHexString(byte[] bytes) {
-        char[] chars = new char[bytes.length * 2];
-        int i = 0;
-        for (byte b : bytes) {
-            chars[i++] = HEX_CHARS[b >> 4 & 0xf];
-            chars[i++] = HEX_CHARS[b & 0xf];
+    public void toHexChars(final char[] dest, final int offset) {
+        if (dest == null) {
+            throw new IllegalArgumentException("Argument should not be null!");
         }
-        return new String(chars);
+        if (offset < 0 || offset > dest.length - UniqueIdCodec.HEX_LENGTH) {
+            throw new IndexOutOfBoundsException("Offset: " + offset + ", Length: " + dest.length);
+        }
+        UniqueIdCodec.writeHex(high(), low(), dest, offset);
     }
 
     /**
@@ -464,7 +847,26 @@ public final class UniqueId implements Comparable<UniqueId>, Serializable {
      * @return a string representation of the UniqueId in base64 format
      */
     public String toBase64String() {
-        return Base64.getUrlEncoder().encodeToString(toByteArray());
+        char[] chars = new char[UniqueIdCodec.BASE64_LENGTH];
+        UniqueIdCodec.writeBase64(high(), low(), chars, 0);
+        return new String(chars);
+    }
+
+    /**
+     * Writes the 20 characters of {@link #toBase64String()} into the array.
+     *
+     * @param dest the char array
+     * @param offset the index of the first character to write
+     * @throws IndexOutOfBoundsException if there are not 20 characters from the offset
+     */
+    public void toBase64Chars(final char[] dest, final int offset) {
+        if (dest == null) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        if (offset < 0 || offset > dest.length - UniqueIdCodec.BASE64_LENGTH) {
+            throw new IndexOutOfBoundsException("Offset: " + offset + ", Length: " + dest.length);
+        }
+        UniqueIdCodec.writeBase64(high(), low(), dest, offset);
     }
 
     @Override
@@ -496,11 +898,18 @@ public final class UniqueId implements Comparable<UniqueId>, Serializable {
 
     @Override
     public int hashCode() {
-        int result = timestamp;
-        result = 31 * result + (int) machineIdentifier;
-        result = 31 * result + (int) processIdentifier;
-        result = 31 * result + counter;
-        return result;
+        long hash = hash64();
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * Gets a 64 bits hash of all 15 bytes of the id. Ids of a process differ mostly in the counter and the timestamp, the hash spreads them over all the
+     * bits, so it could be used directly as the key of large or off heap hash tables, sharding and sampling. It is stable across processes and versions.
+     *
+     * @return the hash
+     */
+    public long hash64() {
+        return UniqueIdCodec.hash64(high(), low());
     }
 
     @Override
@@ -509,159 +918,105 @@ public final class UniqueId implements Comparable<UniqueId>, Serializable {
             throw new NullPointerException();
         }
 
-        byte[] byteArray = toByteArray();
-        byte[] otherByteArray = other.toByteArray();
-        for (int i = 0; i < 15; i++) {
-            if (byteArray[i] != otherByteArray[i]) {
-                return ((byteArray[i] & 0xff) < (otherByteArray[i] & 0xff)) ? -1 : 1;
-            }
+        // The fields in byte order, unsigned as the bytes are. Machine identifier and counter never have the sign bit.
+        if (timestamp != other.timestamp) {
+            return Integer.compareUnsigned(timestamp, other.timestamp);
+        }
+        if (machineIdentifier != other.machineIdentifier) {
+            return machineIdentifier < other.machineIdentifier ? -1 : 1;
+        }
+        if (processIdentifier != other.processIdentifier) {
+            return (processIdentifier & 0xffff) < (other.processIdentifier & 0xffff) ? -1 : 1;
+        }
+        if (counter != other.counter) {
+            return counter < other.counter ? -1 : 1;
         }
         return 0;
     }
 
-    @Override
-    public String toString() {
-        return toBase64String();
-    }
-
-    static {
-        MACHINE_IDENTIFIER = createMachineIdentifier();
-        PROCESS_IDENTIFIER = createProcessIdentifier();
-    }
-
     /**
-     * Creates the machine identifier from the physical MAC address.
-     * 
-     * @return long the machine identifier
+     * Compares two ids of 15 bytes in arrays, the arrays could hold many ids one after another. The order is the same as {@link #compareTo(UniqueId)}.
+     *
+     * @param bytes the array of the first id
+     * @param offset the index of the first byte of the first id
+     * @param otherBytes the array of the second id
+     * @param otherOffset the index of the first byte of the second id
+     * @return -1, 0 or 1 as the first id is less than, equal to, or greater than the second one
+     * @throws IndexOutOfBoundsException if there are not 15 bytes from an offset
      */
-    private static long createMachineIdentifier() {
-        byte[] mac = null;
-        try {
-            Enumeration<NetworkInterface> e = NetworkInterface.getNetworkInterfaces();
-            while (e.hasMoreElements()) {
-                NetworkInterface ni = e.nextElement();
-                if (!ni.isLoopback()) {
-                    mac = ni.getHardwareAddress();
-                }
-                // ?? mac[1] != (byte) 0xff it is from http://johannburkard.de/software/uuid/
-                if (mac != null && mac.length == 6 && mac[1] != (byte) 0xff) {
-                    break;
-                } else {
-                    continue;
-                }
-            }
-        } catch (Throwable t) {
-            throw new RuntimeException("Could not get MAC address", t);
+    public static int compare(final byte[] bytes, final int offset, final byte[] otherBytes, final int otherOffset) {
+        if (offset < 0 || offset > bytes.length - UniqueIdCodec.BYTES) {
+            throw new IndexOutOfBoundsException("Offset: " + offset + ", Length: " + bytes.length);
         }
-        if (mac != null && mac.length == 6 && mac[1] != (byte) 0xff) {
-            return bytes2long(mac);
-        } else {
-            if (null == mac) {
-                throw new RuntimeException("Could not get MAC address!");
-            } else {
-                throw new RuntimeException("MAC address is not correct:" + toHexString(mac));
-            }
+        if (otherOffset < 0 || otherOffset > otherBytes.length - UniqueIdCodec.BYTES) {
+            throw new IndexOutOfBoundsException("Offset: " + otherOffset + ", Length: " + otherBytes.length);
         }
+        long high = UniqueIdCodec.readHigh(bytes, offset);
+        long otherHigh = UniqueIdCodec.readHigh(otherBytes, otherOffset);
+        if (high != otherHigh) {
+            return Long.compareUnsigned(high, otherHigh) < 0 ? -1 : 1;
+        }
+        // only 56 bits, never negative
+        long low = UniqueIdCodec.readLow(bytes, offset);
+        long otherLow = UniqueIdCodec.readLow(otherBytes, otherOffset);
+        return low == otherLow ? 0 : (low < otherLow ? -1 : 1);
+    }
 
+    @Override
+    public String toString() {
+        return toBase64String();
     }
 
     /**
-     * Creates the process identifier.
-     * 
-     * @return short the process identifer
+     * The default generator, created on the first use so that resolving the identity costs nothing until an id is generated.
      */
-    private static short createProcessIdentifier() {
-        short processId;
-        try {
-            String processName = java.lang.management.ManagementFactory.getRuntimeMXBean().getName();
-            if (processName.contains("@")) {
-                processId = (short) Integer.parseInt(processName.substring(0, processName.indexOf('@')));
-            } else {
-                throw new Throwable("Process name:'" + processName + "' is invalid!");
-            }
-
-        } catch (Throwable t) {
-            throw new RuntimeException(t);
-        }
-
-        return processId;
-    }
-
     /**
-     * Parse the hexadecimal string (base16 encoding) to byte array.
-     * 
-     * @param s the hexadecimal string
-     * @return
+     * Gets the block size of the system property, 1 if it is not set or out of range.
      */
-    private static byte[] parseHexString(final String s) {
-        if (!isValid(s)) {
-            throw new IllegalArgumentException("invalid hexadecimal representation of an UniqueId: [" + s + "]");
-        }
-
-        byte[] b = new byte[15];
-        for (int i = 0; i < b.length; i++) {
-            b[i] = (byte) Integer.parseInt(s.substring(i * 2, i * 2 + 2), 16);
-        }
-        return b;
+    static int blockSizeProperty() {
+        int blockSize = Integer.getInteger(BLOCK_SIZE_PROPERTY, 1);
+        return blockSize < 1 || blockSize > UniqueIdGenerator.MAX_BLOCK_SIZE ? 1 : blockSize;
     }
 
     /**
-     * Parse the base64 String to byte array.
-     * 
-     * @param s the base64 string
+     * Gets the constant named by the system property, the default value if it is not set or names no constant.
      */
-    private static byte[] parseBase64String(final String s) {
-        if (!isValid(s)) {
-            throw new IllegalArgumentException("invalid hexadecimal representation of an UniqueId: [" + s + "]");
-        }
-
-        return Base64.getUrlDecoder().decode(s);
-    }
-
-    private static int dateToTimestampSeconds(final Date time) {
-        return (int) ((time.getTime() / 1000L) & 0xffffffffL);
-    }
-
-    private static byte[] int2bytes(final int num) {
-        byte[] bytes = new byte[4];
-        for (int ix = 0; ix < 4; ++ix) {
-            int offset = 32 - (ix + 1) * 8;
-            bytes[ix] = (byte) ((num >> offset) & 0xff);
-        }
-        return bytes;
-    }
-
-    private static int bytes2int(final byte[] bytes) {
-        if (bytes.length > 4) {
-            throw new RuntimeException("byteNum is too long for a int type:" + bytes.length);
-        }
-        int num = 0;
-        for (int ix = 0; ix < bytes.length; ++ix) {
-            num <<= 8;
-            num |= (bytes[ix] & 0xff);
+    static <E extends Enum<E>> E enumProperty(final String property, final E defaultValue) {
+        String name = System.getProperty(property);
+        if (null != name) {
+            for (E constant : defaultValue.getDeclaringClass().getEnumConstants()) {
+                if (constant.name().equals(name.trim())) {
+                    return constant;
+                }
+            }
         }
-        return num;
+        return defaultValue;
     }
 
-    private static byte[] long2bytes(final long num) {
-        byte[] bytes = new byte[8];
-        for (int ix = 0; ix < 8; ++ix) {
-            int offset = 64 - (ix + 1) * 8;
-            bytes[ix] = (byte) ((num >> offset) & 0xff);
-        }
-        return bytes;
-    }
+    // Initialized on the first id only, it never throws because of the system properties, an invalid one is left at its default
+    private static final class Generator {
+        static final UniqueIdGenerator DEFAULT;
 
-    private static long bytes2long(final byte[] bytes) {
-        if (bytes.length > 8) {
-            throw new RuntimeException("byteNum is too long for a long type:" + bytes.length);
-        }
-        long num = 0;
-        for (int ix = 0; ix < bytes.length; ++ix) {
-            num <<= 8;
-            num |= (bytes[ix] & 0xff); // byte become 64bit since the index 1 with higher bit 1? & 0xff make higher bit 0
+        static {
+            UniqueIdIdentityProvider identity;
+            synchronized (UniqueId.class) {
+                identity = UniqueIdIdentity.resolve(identityProvider);
+                identityResolved = true;
+            }
+            DEFAULT = UniqueIdGenerator.builder().machineIdentifier(identity.getMachineIdentifier()).processIdentifier(identity.getProcessIdentifier())
+                    .blockSize(blockSizeProperty())
+                    .exhaustionPolicy(enumProperty(EXHAUSTION_POLICY_PROPERTY, UniqueIdGenerator.ExhaustionPolicy.WRAP))
+                    .clockRegressionPolicy(enumProperty(CLOCK_REGRESSION_POLICY_PROPERTY, UniqueIdGenerator.ClockRegressionPolicy.FAIL_FAST))
+                    .clock("cached".equals(System.getProperty(CLOCK_PROPERTY)) ? UniqueIdClock.cached() : UniqueIdClock.SYSTEM)
+                    .metrics(Boolean.getBoolean(METRICS_PROPERTY)).build();
+            if (null != DEFAULT.getMetrics()) {
+                try {
+                    DEFAULT.getMetrics().register("default");
+                } catch (IllegalStateException e) {
+                    // the name is taken, by the UniqueId of another class loader, the metrics are still collected
+                }
+            }
         }
-        return num;
     }
 
     // public static void main(String[] args) {
@@ -0,0 +1,57 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+/**
+ * <p>
+ * The source of the current second of {@link UniqueIdGenerator}. It is read once for every id (or every block of ids), so it should be cheap, and it is
+ * replaceable so that the tests could drive the time deterministically.
+ * </p>
+ * <p>
+ * {@link #SYSTEM} calls {@link System#currentTimeMillis()} every time. {@link #cached()} reads a volatile field which a background thread keeps up to
+ * date, for generators hot enough that the clock call shows up in the profile.
+ * </p>
+ *
+ * <pre>
+ * UniqueIdGenerator generator = UniqueIdGenerator.builder().clock(UniqueIdClock.cached()).build();
+ * </pre>
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+public interface UniqueIdClock {
+
+    /**
+     * The clock of {@link System#currentTimeMillis()}.
+     */
+    UniqueIdClock SYSTEM = () -> System.currentTimeMillis() / 1000L;
+
+    /**
+     * Gets the number of seconds since the Unix epoch.
+     *
+     * @return the current epoch second
+     */
+    long currentTimeSeconds();
+
+    /**
+     * Gets the shared cached clock, its daemon thread is started on the first call and ticks every 10 milliseconds.
+     *
+     * @return the shared cached clock
+     */
+    static UniqueIdClock cached() {
+        return CachedUniqueIdClock.Shared.INSTANCE;
+    }
+}
@@ -0,0 +1,426 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * <p>
+ * Shift based codec of the 15 bytes ids.
+ * </p>
+ * <p>
+ * The 15 bytes are held in two longs, the high long is byte 0 to 7 and the low long is byte 8 to 14 (the low 56 bits), both big endian. Every encoder
+ * writes into the array or buffer given by caller, so nothing is allocated. The decoders look up every character in a table of 128 entries, so a string
+ * is validated and decoded in one pass and only the id is allocated.
+ * </p>
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+final class UniqueIdCodec {
+
+    static final int BYTES = 15;
+
+    static final int HEX_LENGTH = 30;
+
+    static final int BASE64_LENGTH = 20;
+
+    static final char[] HEX_CHARS = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f' };
+
+    // The URL and filename safe alphabet of RFC 4648, the same as Base64.getUrlEncoder()
+    static final char[] BASE64_CHARS = { 'A', 'B', 'C', 'D', 'E', 'F', 'G', 'H', 'I', 'J', 'K', 'L', 'M', 'N', 'O', 'P', 'Q', 'R', 'S', 'T', 'U', 'V', 'W',
+            'X', 'Y', 'Z', 'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'i', 'j', 'k', 'l', 'm', 'n', 'o', 'p', 'q', 'r', 's', 't', 'u', 'v', 'w', 'x', 'y', 'z',
+            '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', '-', '_' };
+
+    // The value of every ASCII character as a hexadecimal digit (both cases), -1 if it is not a digit
+    private static final byte[] HEX_VALUES = new byte[128];
+
+    // The value of every ASCII character in BASE64_CHARS, -1 if it is not in the alphabet
+    private static final byte[] BASE64_VALUES = new byte[128];
+
+    static {
+        java.util.Arrays.fill(HEX_VALUES, (byte) -1);
+        for (int i = 0; i < HEX_CHARS.length; i++) {
+            HEX_VALUES[HEX_CHARS[i]] = (byte) i;
+            HEX_VALUES[Character.toUpperCase(HEX_CHARS[i])] = (byte) i;
+        }
+        java.util.Arrays.fill(BASE64_VALUES, (byte) -1);
+        for (int i = 0; i < BASE64_CHARS.length; i++) {
+            BASE64_VALUES[BASE64_CHARS[i]] = (byte) i;
+        }
+    }
+
+    private UniqueIdCodec() {
+        throw new AssertionError("No UniqueIdCodec instances for you!");
+    }
+
+    /**
+     * Writes the 15 bytes into the array.
+     *
+     * @param high byte 0 to 7
+     * @param low byte 8 to 14
+     * @param dest the array
+     * @param offset the index of the first byte
+     */
+    static void writeBytes(final long high, final long low, final byte[] dest, final int offset) {
+        dest[offset] = (byte) (high >>> 56);
+        dest[offset + 1] = (byte) (high >>> 48);
+        dest[offset + 2] = (byte) (high >>> 40);
+        dest[offset + 3] = (byte) (high >>> 32);
+        dest[offset + 4] = (byte) (high >>> 24);
+        dest[offset + 5] = (byte) (high >>> 16);
+        dest[offset + 6] = (byte) (high >>> 8);
+        dest[offset + 7] = (byte) high;
+        dest[offset + 8] = (byte) (low >>> 48);
+        dest[offset + 9] = (byte) (low >>> 40);
+        dest[offset + 10] = (byte) (low >>> 32);
+        dest[offset + 11] = (byte) (low >>> 24);
+        dest[offset + 12] = (byte) (low >>> 16);
+        dest[offset + 13] = (byte) (low >>> 8);
+        dest[offset + 14] = (byte) low;
+    }
+
+    /**
+     * Writes the 15 bytes into the buffer at the index, the buffer position is not changed. The bytes are always big endian whatever the buffer order is.
+     *
+     * @param high byte 0 to 7
+     * @param low byte 8 to 14
+     * @param dest the buffer
+     * @param index the index of the first byte
+     */
+    static void writeBytes(final long high, final long low, final ByteBuffer dest, final int index) {
+        if (dest.order() == ByteOrder.BIG_ENDIAN) {
+            dest.putLong(index, high);
+            dest.putInt(index + 8, (int) (low >>> 24));
+            dest.putShort(index + 12, (short) (low >>> 8));
+            dest.put(index + 14, (byte) low);
+        } else {
+            for (int i = 0; i < 8; i++) {
+                dest.put(index + i, (byte) (high >>> (56 - i * 8)));
+            }
+            for (int i = 0; i < 7; i++) {
+                dest.put(index + 8 + i, (byte) (low >>> (48 - i * 8)));
+            }
+        }
+    }
+
+    /**
+     * Reads byte 0 to 7 from the array.
+     *
+     * @param src the array
+     * @param offset the index of the first byte of the id
+     * @return the high long
+     */
+    static long readHigh(final byte[] src, final int offset) {
+        return ((src[offset] & 0xffL) << 56) | ((src[offset + 1] & 0xffL) << 48) | ((src[offset + 2] & 0xffL) << 40) | ((src[offset + 3] & 0xffL) << 32)
+                | ((src[offset + 4] & 0xffL) << 24) | ((src[offset + 5] & 0xffL) << 16) | ((src[offset + 6] & 0xffL) << 8) | (src[offset + 7] & 0xffL);
+    }
+
+    /**
+     * Reads byte 8 to 14 from the array.
+     *
+     * @param src the array
+     * @param offset the index of the first byte of the id
+     * @return the low long
+     */
+    static long readLow(final byte[] src, final int offset) {
+        return ((src[offset + 8] & 0xffL) << 48) | ((src[offset + 9] & 0xffL) << 40) | ((src[offset + 10] & 0xffL) << 32)
+                | ((src[offset + 11] & 0xffL) << 24) | ((src[offset + 12] & 0xffL) << 16) | ((src[offset + 13] & 0xffL) << 8) | (src[offset + 14] & 0xffL);
+    }
+
+    /**
+     * Reads byte 0 to 7 from the buffer at the index, the buffer position is not changed. The bytes are always big endian whatever the buffer order is.
+     *
+     * @param src the buffer
+     * @param index the index of the first byte of the id
+     * @return the high long
+     */
+    static long readHigh(final ByteBuffer src, final int index) {
+        if (src.order() == ByteOrder.BIG_ENDIAN) {
+            return src.getLong(index);
+        }
+        long high = 0;
+        for (int i = 0; i < 8; i++) {
+            high = (high << 8) | (src.get(index + i) & 0xffL);
+        }
+        return high;
+    }
+
+    /**
+     * Reads byte 8 to 14 from the buffer at the index, the buffer position is not changed. The bytes are always big endian whatever the buffer order is.
+     *
+     * @param src the buffer
+     * @param index the index of the first byte of the id
+     * @return the low long
+     */
+    static long readLow(final ByteBuffer src, final int index) {
+        if (src.order() == ByteOrder.BIG_ENDIAN) {
+            return ((src.getInt(index + 8) & 0xffffffffL) << 24) | ((src.getShort(index + 12) & 0xffffL) << 8) | (src.get(index + 14) & 0xffL);
+        }
+        long low = 0;
+        for (int i = 8; i < 15; i++) {
+            low = (low << 8) | (src.get(index + i) & 0xffL);
+        }
+        return low;
+    }
+
+    /**
+     * Hashes the 15 bytes to 64 well mixed bits, every bit of the id affects every bit of the hash. The two longs are combined by a multiplication with the
+     * golden ratio and mixed by the finalizer of MurmurHash3, so the low bits are good enough for a power of two table.
+     *
+     * @param high byte 0 to 7
+     * @param low byte 8 to 14
+     * @return the hash
+     */
+    static long hash64(final long high, final long low) {
+        long h = high * 0x9e3779b97f4a7c15L + low;
+        h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+        h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+
+    /**
+     * Writes the 30 lower case hexadecimal characters into the array.
+     *
+     * @param high byte 0 to 7
+     * @param low byte 8 to 14
+     * @param dest the array
+     * @param offset the index of the first character
+     */
+    static void writeHex(final long high, final long low, final char[] dest, final int offset) {
+        for (int i = 0; i < 16; i++) {
+            dest[offset + i] = HEX_CHARS[(int) (high >>> (60 - i * 4)) & 0xf];
+        }
+        for (int i = 0; i < 14; i++) {
+            dest[offset + 16 + i] = HEX_CHARS[(int) (low >>> (52 - i * 4)) & 0xf];
+        }
+    }
+
+    /**
+     * Writes the 20 base64 (URL and filename safe alphabet) characters into the array. 15 bytes are exactly 20 characters, there is no padding.
+     *
+     * @param high byte 0 to 7
+     * @param low byte 8 to 14
+     * @param dest the array
+     * @param offset the index of the first character
+     */
+    static void writeBase64(final long high, final long low, final char[] dest, final int offset) {
+        // character 0 to 9 are bit 63 to 4 of the high long
+        for (int i = 0; i < 10; i++) {
+            dest[offset + i] = BASE64_CHARS[(int) (high >>> (58 - i * 6)) & 0x3f];
+        }
+        // character 10 is bit 3 to 0 of the high long and bit 55 to 54 of the low long
+        dest[offset + 10] = BASE64_CHARS[(int) ((high << 2) | (low >>> 54)) & 0x3f];
+        // character 11 to 19 are bit 53 to 0 of the low long
+        for (int i = 0; i < 9; i++) {
+            dest[offset + 11 + i] = BASE64_CHARS[(int) (low >>> (48 - i * 6)) & 0x3f];
+        }
+    }
+
+    /**
+     * Gets the value of a hexadecimal digit.
+     *
+     * @param c the character
+     * @return 0 to 15, or -1 if the character is not a hexadecimal digit
+     */
+    static int hexValue(final int c) {
+        return c < 128 ? HEX_VALUES[c] : -1;
+    }
+
+    /**
+     * Gets the value of a base64 (URL and filename safe alphabet) character.
+     *
+     * @param c the character
+     * @return 0 to 63, or -1 if the character is not in the alphabet
+     */
+    static int base64Value(final int c) {
+        return c < 128 ? BASE64_VALUES[c] : -1;
+    }
+
+    /*
+     * The decoders validate and decode in one pass. An invalid character is -1, which sets the sign bit of the accumulated flag, and the id is only built
+     * when the flag is not negative.
+     */
+
+    /**
+     * Decodes 30 hexadecimal characters (both cases), the bounds are checked by caller.
+     *
+     * @param src the characters
+     * @param offset the index of the first character
+     * @param factory the factory of the id
+     * @return the id, or null if a character is not a hexadecimal digit
+     */
+    static <T> T decodeHex(final CharSequence src, final int offset, final Factory<T> factory) {
+        int invalid = 0;
+        long high = 0;
+        for (int i = 0; i < 16; i++) {
+            int v = hexValue(src.charAt(offset + i));
+            invalid |= v;
+            high = (high << 4) | v;
+        }
+        long low = 0;
+        for (int i = 16; i < 30; i++) {
+            int v = hexValue(src.charAt(offset + i));
+            invalid |= v;
+            low = (low << 4) | v;
+        }
+        return invalid < 0 ? null : factory.create(high, low);
+    }
+
+    /**
+     * Decodes 30 hexadecimal characters (both cases), the bounds are checked by caller.
+     *
+     * @param src the characters
+     * @param offset the index of the first character
+     * @param factory the factory of the id
+     * @return the id, or null if a character is not a hexadecimal digit
+     */
+    static <T> T decodeHex(final char[] src, final int offset, final Factory<T> factory) {
+        int invalid = 0;
+        long high = 0;
+        for (int i = 0; i < 16; i++) {
+            int v = hexValue(src[offset + i]);
+            invalid |= v;
+            high = (high << 4) | v;
+        }
+        long low = 0;
+        for (int i = 16; i < 30; i++) {
+            int v = hexValue(src[offset + i]);
+            invalid |= v;
+            low = (low << 4) | v;
+        }
+        return invalid < 0 ? null : factory.create(high, low);
+    }
+
+    /**
+     * Decodes 30 hexadecimal characters (both cases) in ASCII bytes, the bounds are checked by caller.
+     *
+     * @param src the ASCII bytes
+     * @param offset the index of the first byte
+     * @param factory the factory of the id
+     * @return the id, or null if a byte is not a hexadecimal digit
+     */
+    static <T> T decodeHex(final byte[] src, final int offset, final Factory<T> factory) {
+        int invalid = 0;
+        long high = 0;
+        for (int i = 0; i < 16; i++) {
+            int v = hexValue(src[offset + i] & 0xff);
+            invalid |= v;
+            high = (high << 4) | v;
+        }
+        long low = 0;
+        for (int i = 16; i < 30; i++) {
+            int v = hexValue(src[offset + i] & 0xff);
+            invalid |= v;
+            low = (low << 4) | v;
+        }
+        return invalid < 0 ? null : factory.create(high, low);
+    }
+
+    /**
+     * Decodes 20 base64 (URL and filename safe alphabet) characters, the reverse of {@link #writeBase64(long, long, char[], int)}. The bounds are checked
+     * by caller.
+     *
+     * @param src the characters
+     * @param offset the index of the first character
+     * @param factory the factory of the id
+     * @return the id, or null if a character is not in the alphabet
+     */
+    static <T> T decodeBase64(final CharSequence src, final int offset, final Factory<T> factory) {
+        int invalid = 0;
+        long high = 0;
+        for (int i = 0; i < 10; i++) {
+            int v = base64Value(src.charAt(offset + i));
+            invalid |= v;
+            high = (high << 6) | v;
+        }
+        int v = base64Value(src.charAt(offset + 10));
+        invalid |= v;
+        high = (high << 4) | (v >>> 2);
+        long low = v & 0x3;
+        for (int i = 11; i < 20; i++) {
+            v = base64Value(src.charAt(offset + i));
+            invalid |= v;
+            low = (low << 6) | v;
+        }
+        return invalid < 0 ? null : factory.create(high, low);
+    }
+
+    /**
+     * Decodes 20 base64 (URL and filename safe alphabet) characters, the bounds are checked by caller.
+     *
+     * @param src the characters
+     * @param offset the index of the first character
+     * @param factory the factory of the id
+     * @return the id, or null if a character is not in the alphabet
+     */
+    static <T> T decodeBase64(final char[] src, final int offset, final Factory<T> factory) {
+        int invalid = 0;
+        long high = 0;
+        for (int i = 0; i < 10; i++) {
+            int v = base64Value(src[offset + i]);
+            invalid |= v;
+            high = (high << 6) | v;
+        }
+        int v = base64Value(src[offset + 10]);
+        invalid |= v;
+        high = (high << 4) | (v >>> 2);
+        long low = v & 0x3;
+        for (int i = 11; i < 20; i++) {
+            v = base64Value(src[offset + i]);
+            invalid |= v;
+            low = (low << 6) | v;
+        }
+        return invalid < 0 ? null : factory.create(high, low);
+    }
+
+    /**
+     * Decodes 20 base64 (URL and filename safe alphabet) characters in ASCII bytes, the bounds are checked by caller.
+     *
+     * @param src the ASCII bytes
+     * @param offset the index of the first byte
+     * @param factory the factory of the id
+     * @return the id, or null if a byte is not in the alphabet
+     */
+    static <T> T decodeBase64(final byte[] src, final int offset, final Factory<T> factory) {
+        int invalid = 0;
+        long high = 0;
+        for (int i = 0; i < 10; i++) {
+            int v = base64Value(src[offset + i] & 0xff);
+            invalid |= v;
+            high = (high << 6) | v;
+        }
+        int v = base64Value(src[offset + 10] & 0xff);
+        invalid |= v;
+        high = (high << 4) | (v >>> 2);
+        long low = v & 0x3;
+        for (int i = 11; i < 20; i++) {
+            v = base64Value(src[offset + i] & 0xff);
+            invalid |= v;
+            low = (low << 6) | v;
+        }
+        return invalid < 0 ? null : factory.create(high, low);
+    }
+
+    /**
+     * Creates an id of the 15 bytes held in two longs.
+     */
+    @FunctionalInterface
+    interface Factory<T> {
+        T create(long high, long low);
+    }
+}
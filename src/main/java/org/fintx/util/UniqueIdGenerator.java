@@ -0,0 +1,684 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>
+ * The lock free generator behind {@link UniqueId#get()}.
+ * </p>
+ * <p>
+ * The timestamp of the current second and the number of counters already issued in that second are packed into one {@code AtomicLong}:
+ * </p>
+ * <table border="1">
+ * <caption>Generator state layout</caption>
+ * <tr>
+ * <td>63 - 32</td>
+ * <td>31 - 0</td>
+ * </tr>
+ * <tr>
+ * <td>timestamp of second</td>
+ * <td>sequence in the second</td>
+ * </tr>
+ * </table>
+ * <p>
+ * So the second rollover, the clock regression and the counter overflow are all resolved by one compare-and-set on the state and no thread ever waits on
+ * a monitor. The counter of an id is the sequence in the second plus a random seed chosen for the machine and process, kept in three bytes.
+ * </p>
+ * <p>
+ * All generators of the same machine and process identifier share one sequence, so ids of different generators (and of {@link UniqueId#get()}) never
+ * repeat. With a block size bigger than one every thread leases that many sequences at once and hands them out locally, which removes the contention on
+ * the shared state. The ids of one thread still increase, but the ids of different threads in the same second are no longer ordered by generation time.
+ * </p>
+ *
+ * <pre>
+ * UniqueIdGenerator generator = UniqueIdGenerator.builder().blockSize(256).build();
+ * UniqueId id = generator.get();
+ * </pre>
+ * <p>
+ * Only 16777216 counters fit in one second. What happens when they are used up is decided by the {@link ExhaustionPolicy}, the number of times it happened
+ * is {@link #getExhaustedCount()}.
+ * </p>
+ * <p>
+ * The clock may go back, when a time server steps it. A regression of one second is absorbed by the state. What happens on a larger one is decided by
+ * the {@link ClockRegressionPolicy}, the number of times it happened is {@link #getClockRegressionCount()}.
+ * </p>
+ * <p>
+ * The ids issued, the rollovers and the usage of the counters of a second are collected only if {@link UniqueIdMetrics} are enabled.
+ * </p>
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+public final class UniqueIdGenerator {
+
+    static final int LOW_ORDER_THREE_BYTES = 0x00ffffff;
+
+    static final long COUNTERS_PER_SECOND = 0x01000000L;
+
+    static final int MAX_BLOCK_SIZE = 0x00010000;
+
+    private static final long SEQUENCE_MASK = 0xffffffffL;
+
+    private static final ConcurrentMap<Long, Sequence> SEQUENCES = new ConcurrentHashMap<Long, Sequence>();
+
+    private final long machineIdentifier;
+
+    private final short processIdentifier;
+
+    private final int blockSize;
+
+    private final ExhaustionPolicy exhaustionPolicy;
+
+    private final ClockRegressionPolicy clockRegressionPolicy;
+
+    private final UniqueIdClock clock;
+
+    private final Sequence shared;
+
+    private final int seed;
+
+    private final AtomicLong state;
+
+    private final ThreadLocal<Block> blocks;
+
+    // the machine and process identifier bits of every id, as held by the codec longs
+    private final long identityHigh;
+
+    private final long identityLow;
+
+    private final AtomicLong exhaustedCount = new AtomicLong();
+
+    // counted on every reservation while the clock is behind, a LongAdder keeps the regressed threads from contending on it
+    private final LongAdder clockRegressionCount = new LongAdder();
+
+    // null unless enabled
+    private final UniqueIdMetrics metrics;
+
+    /**
+     * Constructs a new generator for the machine and process.
+     *
+     * @param machineIdentifier the machine identifier
+     * @param processIdentifier the process identifier
+     */
+    UniqueIdGenerator(final long machineIdentifier, final short processIdentifier) {
+        this(builder().machineIdentifier(machineIdentifier).processIdentifier(processIdentifier));
+    }
+
+    /**
+     * Constructs a new generator from the builder.
+     *
+     * @param builder the builder
+     */
+    private UniqueIdGenerator(final Builder builder) {
+        if ((builder.machineIdentifier & 0xffff000000000000L) != 0) {
+            throw new IllegalArgumentException("The machine identifier must be between 0 and 281474976710655 (it must fit in six bytes).");
+        }
+        if (builder.blockSize < 1 || builder.blockSize > MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException("The block size must be between 1 and " + MAX_BLOCK_SIZE + ".");
+        }
+        if (null == builder.exhaustionPolicy) {
+            throw new IllegalArgumentException("The exhaustion policy should not be null!");
+        }
+        if (null == builder.clockRegressionPolicy) {
+            throw new IllegalArgumentException("The clock regression policy should not be null!");
+        }
+        if (null == builder.clock) {
+            throw new IllegalArgumentException("The clock should not be null!");
+        }
+        this.machineIdentifier = builder.machineIdentifier;
+        this.processIdentifier = builder.processIdentifier;
+        this.blockSize = builder.blockSize;
+        this.exhaustionPolicy = builder.exhaustionPolicy;
+        this.clockRegressionPolicy = builder.clockRegressionPolicy;
+        this.clock = builder.clock;
+        this.metrics = builder.metrics ? new UniqueIdMetrics(this) : null;
+        this.shared = sequence(machineIdentifier, processIdentifier, clock);
+        this.seed = shared.seed;
+        this.state = shared.state;
+        this.identityHigh = machineIdentifier >>> 16;
+        this.identityLow = ((machineIdentifier & 0xffffL) << 40) | ((processIdentifier & 0xffffL) << 24);
+        if (blockSize > 1) {
+            this.blocks = new ThreadLocal<Block>() {
+                @Override
+                protected Block initialValue() {
+                    return new Block();
+                }
+            };
+        } else {
+            this.blocks = null;
+        }
+    }
+
+    /**
+     * Creates a builder of generator.
+     *
+     * @return the builder with the generated machine and process identifier of {@link UniqueId}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Gets a new unique id.
+     *
+     * @return the new UniqueId instance
+     * @throws IllegalArgumentException if the clock went back more than one second and the policy is {@link ClockRegressionPolicy#FAIL_FAST}
+     */
+    public UniqueId get() {
+        final int now = currentTimeSeconds();
+        if (null != blocks) {
+            Block block = blocks.get();
+            if (block.next == block.end || now - block.timestamp > 0) {
+                // The block is used up or it's sequences belong to a past second, lease a new one.
+                long reserved = reserve(now, blockSize);
+                block.timestamp = (int) (reserved >>> 32);
+                block.next = reserved & SEQUENCE_MASK;
+                block.end = block.next + Math.min(blockSize, COUNTERS_PER_SECOND - block.next);
+            }
+            return newUniqueId(block.timestamp, block.next++);
+        }
+        long reserved = reserve(now, 1);
+        return newUniqueId((int) (reserved >>> 32), reserved & SEQUENCE_MASK);
+    }
+
+    /**
+     * Gets new unique ids, reserving the counters for the whole batch at once.
+     *
+     * @param count the number of ids
+     * @return the new UniqueId instances in order
+     * @throws IllegalArgumentException if the count is negative, or the clock went back more than one second and the policy is
+     *             {@link ClockRegressionPolicy#FAIL_FAST}
+     */
+    public UniqueId[] get(final int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Argument count should not be negative!");
+        }
+        UniqueId[] ids = new UniqueId[count];
+        fill(ids);
+        return ids;
+    }
+
+    /**
+     * Fills the array with new unique ids. The counters are reserved by one compare-and-set and one clock reading, except the batch is split by the end of
+     * the counters in a second.
+     *
+     * @param ids the array to fill
+     * @throws IllegalArgumentException if the array is null, or the clock went back more than one second and the policy is
+     *             {@link ClockRegressionPolicy#FAIL_FAST}
+     */
+    public void fill(final UniqueId[] ids) {
+        if (null == ids) {
+            throw new IllegalArgumentException("Argument ids should not be null!");
+        }
+        int now = currentTimeSeconds();
+        int index = 0;
+        while (index < ids.length) {
+            long reserved = reserve(now, ids.length - index);
+            int timestamp = (int) (reserved >>> 32);
+            long sequence = reserved & SEQUENCE_MASK;
+            int end = index + (int) Math.min(ids.length - index, COUNTERS_PER_SECOND - sequence);
+            while (index < end) {
+                ids[index++] = newUniqueId(timestamp, sequence++);
+            }
+            now = index < ids.length ? currentTimeSeconds() : now;
+        }
+    }
+
+    /**
+     * Writes new unique ids into the byte array, 15 bytes (the layout of {@link UniqueId#toByteArray()}) each one after another, without creating any
+     * UniqueId instance.
+     *
+     * @param dest the byte array to write
+     * @param offset the index of the first byte to write
+     * @param count the number of ids
+     * @throws IllegalArgumentException if the array is null, or the clock went back more than one second and the policy is
+     *             {@link ClockRegressionPolicy#FAIL_FAST}
+     * @throws IndexOutOfBoundsException if the ids do not fit in the array from the offset
+     */
+    public void fill(final byte[] dest, final int offset, final int count) {
+        if (null == dest) {
+            throw new IllegalArgumentException("Argument dest should not be null!");
+        }
+        if (offset < 0 || count < 0 || offset + count * 15L > dest.length) {
+            throw new IndexOutOfBoundsException("Offset: " + offset + ", Count: " + count + ", Length: " + dest.length);
+        }
+        int now = currentTimeSeconds();
+        int position = offset;
+        int remaining = count;
+        while (remaining > 0) {
+            long reserved = reserve(now, remaining);
+            int timestamp = (int) (reserved >>> 32);
+            long sequence = reserved & SEQUENCE_MASK;
+            int granted = (int) Math.min(remaining, COUNTERS_PER_SECOND - sequence);
+            long high = ((timestamp & 0xffffffffL) << 32) | identityHigh;
+            for (int i = 0; i < granted; i++) {
+                long counter = (seed + sequence++) & LOW_ORDER_THREE_BYTES;
+                UniqueIdCodec.writeBytes(high, identityLow | counter, dest, position);
+                position += UniqueIdCodec.BYTES;
+            }
+            remaining -= granted;
+            if (null != metrics) {
+                metrics.issued(granted);
+            }
+            now = remaining > 0 ? currentTimeSeconds() : now;
+        }
+    }
+
+    /**
+     * Reserves consecutive sequences of one second.
+     *
+     * @param now the current timestamp of second
+     * @param count the number of sequences wanted
+     * @return the timestamp (high 32 bits) and the first sequence (low 32 bits). {@code min(count, COUNTERS_PER_SECOND - first)} sequences are reserved.
+     */
+    private long reserve(int now, final int count) {
+        for (;;) {
+            long current = state.get();
+            int timestamp = (int) (current >>> 32);
+            long sequence = current & SEQUENCE_MASK;
+            // The signed distance of the unsigned seconds, so the new round of zero to 0xffffffffL (about every 136 years) is a rollover too.
+            int diff = now - timestamp;
+            if (diff > 0) {
+            // @formatter:off
+            // once per second or less
+            // @formatter:on
+                if (state.compareAndSet(current, pack(now, Math.min(count, COUNTERS_PER_SECOND)))) {
+                    shared.clock = now;
+                    if (null != metrics) {
+                        metrics.rollover(sequence);
+                    }
+                    return pack(now, 0);
+                }
+            } else if (diff >= -1 || now - shared.clock >= -1) {
+            // @formatter:off
+            // mostly, or the clock read before another thread rolled the second over, or the timestamp borrowed the seconds ahead of the clock
+            // @formatter:on
+                if (sequence < COUNTERS_PER_SECOND) {
+                    long granted = Math.min(count, COUNTERS_PER_SECOND - sequence);
+                    if (state.compareAndSet(current, pack(timestamp, sequence + granted))) {
+                        return pack(timestamp, sequence);
+                    }
+                } else if (exhaustionPolicy == ExhaustionPolicy.WRAP) {
+                    if (state.compareAndSet(current, pack(timestamp, Math.min(count, COUNTERS_PER_SECOND)))) {
+                        exhaustedCount.incrementAndGet();
+                        return pack(timestamp, 0);
+                    }
+                } else if (exhaustionPolicy == ExhaustionPolicy.BORROW_NEXT_SECOND) {
+                    if (state.compareAndSet(current, pack(timestamp + 1, Math.min(count, COUNTERS_PER_SECOND)))) {
+                        exhaustedCount.incrementAndGet();
+                        return pack(timestamp + 1, 0);
+                    }
+                } else {
+                    exhaustedCount.incrementAndGet();
+                    now = waitNextSecond(timestamp);
+                }
+            } else {
+            // @formatter:off
+            // hardly
+            // @formatter:on
+                clockRegressionCount.increment();
+                if (clockRegressionPolicy == ClockRegressionPolicy.KEEP_LAST) {
+                    now = timestamp;
+                } else if (clockRegressionPolicy == ClockRegressionPolicy.SPIN_WAIT) {
+                    now = waitClock(timestamp - 1);
+                } else {
+                    throw new IllegalArgumentException(
+                            "The timestamp must not be less then the timestamp last time. (Maybe the machine correct time using time server).");
+                }
+            }
+        }
+    }
+
+    /**
+     * Parks the thread until the clock passes the timestamp.
+     *
+     * @param timestamp the timestamp of second whose counters are used up
+     * @return the current timestamp of second
+     */
+    private int waitNextSecond(final int timestamp) {
+        int now;
+        while ((now = currentTimeSeconds()) - timestamp <= 0) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return now;
+    }
+
+    /**
+     * Parks the thread until the clock comes back to the timestamp.
+     *
+     * @param timestamp the earliest timestamp of second to accept
+     * @return the current timestamp of second
+     */
+    private int waitClock(final int timestamp) {
+        int now;
+        while ((now = currentTimeSeconds()) - timestamp < 0) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return now;
+    }
+
+    private UniqueId newUniqueId(final int timestamp, final long sequence) {
+        if (null != metrics) {
+            metrics.issued();
+        }
+        return new UniqueId(timestamp, machineIdentifier, processIdentifier, (int) (seed + sequence) & LOW_ORDER_THREE_BYTES);
+    }
+
+    /**
+     * Gets the machine identifier of the generated ids.
+     *
+     * @return the machine identifier
+     */
+    public long getMachineIdentifier() {
+        return machineIdentifier;
+    }
+
+    /**
+     * Gets the process identifier of the generated ids.
+     *
+     * @return the process identifier
+     */
+    public int getProcessIdentifier() {
+        return processIdentifier & 0x0000ffff;
+    }
+
+    /**
+     * Gets the number of sequences a thread leases at once.
+     *
+     * @return the block size, 1 means no thread local block
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Gets what happens when the counters of one second are used up.
+     *
+     * @return the exhaustion policy
+     */
+    public ExhaustionPolicy getExhaustionPolicy() {
+        return exhaustionPolicy;
+    }
+
+    /**
+     * Gets the number of times this generator found the counters of a second used up (and wrapped, borrowed or waited according to the policy).
+     *
+     * @return the exhausted count
+     */
+    public long getExhaustedCount() {
+        return exhaustedCount.get();
+    }
+
+    /**
+     * Gets the source of the current second.
+     *
+     * @return the clock
+     */
+    public UniqueIdClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Gets what happens when the clock went back more than one second.
+     *
+     * @return the clock regression policy
+     */
+    public ClockRegressionPolicy getClockRegressionPolicy() {
+        return clockRegressionPolicy;
+    }
+
+    /**
+     * Gets the number of reservations of counters this generator made while the clock was more than one second behind the last timestamp (and kept the
+     * last timestamp, waited or failed according to the policy). A reservation is one id, one block or one batch.
+     *
+     * @return the clock regression count
+     */
+    public long getClockRegressionCount() {
+        return clockRegressionCount.sum();
+    }
+
+    /**
+     * Gets the metrics of this generator.
+     *
+     * @return the metrics, or null if they are not enabled
+     */
+    public UniqueIdMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Resets the shared state of the sequence, for tests only.
+     *
+     * @param timestamp the timestamp of second
+     * @param sequence the sequences already issued in the second
+     */
+    void reset(final int timestamp, final long sequence) {
+        state.set(pack(timestamp, sequence));
+    }
+
+    /**
+     * Gets the counter of the next id leased from the shared sequence.
+     *
+     * @return the next counter value
+     */
+    public int getCurrentCounter() {
+        return (int) (seed + (state.get() & SEQUENCE_MASK)) & LOW_ORDER_THREE_BYTES;
+    }
+
+    /**
+     * Gets the timestamp of the last generated id.
+     *
+     * @return the timestamp of second
+     */
+    public long getCurrentTimeStamp() {
+        return state.get() >>> 32;
+    }
+
+    private static long pack(final int timestamp, final long sequence) {
+        return ((timestamp & 0xffffffffL) << 32) | sequence;
+    }
+
+    private int currentTimeSeconds() {
+        return (int) clock.currentTimeSeconds();
+    }
+
+    private static Sequence sequence(final long machineIdentifier, final short processIdentifier, final UniqueIdClock clock) {
+        Long key = (machineIdentifier << 16) | (processIdentifier & 0xffffL);
+        Sequence sequence = SEQUENCES.get(key);
+        if (null == sequence) {
+            SEQUENCES.putIfAbsent(key, new Sequence((int) clock.currentTimeSeconds()));
+            sequence = SEQUENCES.get(key);
+        }
+        return sequence;
+    }
+
+    /**
+     * The state shared by the generators of one machine and process identifier.
+     */
+    private static final class Sequence {
+        // Only to spread the counters, seeding a SecureRandom would cost tens of milliseconds at start up
+        private final int seed = ThreadLocalRandom.current().nextInt() & LOW_ORDER_THREE_BYTES;
+        private final AtomicLong state;
+        // the clock at the last rollover, the timestamp of the state could be ahead of it after borrowing seconds
+        private volatile int clock;
+
+        private Sequence(final int now) {
+            clock = now;
+            state = new AtomicLong(pack(clock, 0));
+        }
+    }
+
+    /**
+     * What to do when all the 16777216 counters of the current second are used up.
+     */
+    public static enum ExhaustionPolicy {
+        /**
+         * Wraps the counter to the beginning of the second. Ids may repeat, it is how {@link UniqueId} always worked.
+         */
+        WRAP,
+        /**
+         * Moves the timestamp to the next second ahead of the clock (a monotonic logical clock), so generation goes on at full speed and never repeats.
+         * The timestamp returns to the clock as soon as the clock catches up.
+         */
+        BORROW_NEXT_SECOND,
+        /**
+         * Parks the threads until the clock reaches the next second.
+         */
+        WAIT_NEXT_SECOND;
+    }
+
+    /**
+     * What to do when the clock went back more than one second, for example stepped back by a time server.
+     */
+    public static enum ClockRegressionPolicy {
+        /**
+         * Throws {@code IllegalArgumentException} until the clock catches up, it is how {@link UniqueId} always worked.
+         */
+        FAIL_FAST,
+        /**
+         * Keeps issuing ids on the last timestamp with the counters left in that second, then the {@link ExhaustionPolicy} applies. Ids keep
+         * increasing, their timestamps are ahead of the clock until it catches up.
+         */
+        KEEP_LAST,
+        /**
+         * Parks the threads until the clock catches up. Generation stops for as long as the clock was stepped back.
+         */
+        SPIN_WAIT;
+    }
+
+    /**
+     * The sequences leased by one thread.
+     */
+    private static final class Block {
+        private int timestamp;
+        private long next;
+        private long end;
+    }
+
+    public static final class Builder {
+        // the generated ones of UniqueId are resolved in build() if not set
+        private boolean identified;
+        private long machineIdentifier;
+        private short processIdentifier;
+        private boolean processIdentified;
+        private int blockSize = 1;
+        private ExhaustionPolicy exhaustionPolicy = ExhaustionPolicy.WRAP;
+        private ClockRegressionPolicy clockRegressionPolicy = ClockRegressionPolicy.FAIL_FAST;
+        private UniqueIdClock clock = UniqueIdClock.SYSTEM;
+        private boolean metrics;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the machine identifier, the generated one of {@link UniqueId} by default.
+         *
+         * @param machineIdentifier the machine identifier in six bytes
+         * @return this builder
+         */
+        public Builder machineIdentifier(final long machineIdentifier) {
+            this.identified = true;
+            this.machineIdentifier = machineIdentifier;
+            return this;
+        }
+
+        /**
+         * Sets the process identifier, the generated one of {@link UniqueId} by default.
+         *
+         * @param processIdentifier the process identifier in two bytes
+         * @return this builder
+         */
+        public Builder processIdentifier(final int processIdentifier) {
+            this.processIdentified = true;
+            this.processIdentifier = (short) processIdentifier;
+            return this;
+        }
+
+        /**
+         * Sets the number of sequences every thread leases from the shared sequence at once, 1 by default. 256 or 4096 suits heavy parallel generation.
+         *
+         * @param blockSize between 1 and 65536
+         * @return this builder
+         */
+        public Builder blockSize(final int blockSize) {
+            this.blockSize = blockSize;
+            return this;
+        }
+
+        /**
+         * Sets what happens when the counters of one second are used up, {@link ExhaustionPolicy#WRAP} by default.
+         *
+         * @param exhaustionPolicy the exhaustion policy
+         * @return this builder
+         */
+        public Builder exhaustionPolicy(final ExhaustionPolicy exhaustionPolicy) {
+            this.exhaustionPolicy = exhaustionPolicy;
+            return this;
+        }
+
+        /**
+         * Sets what happens when the clock went back more than one second, {@link ClockRegressionPolicy#FAIL_FAST} by default.
+         *
+         * @param clockRegressionPolicy the clock regression policy
+         * @return this builder
+         */
+        public Builder clockRegressionPolicy(final ClockRegressionPolicy clockRegressionPolicy) {
+            this.clockRegressionPolicy = clockRegressionPolicy;
+            return this;
+        }
+
+        /**
+         * Sets the source of the current second, {@link UniqueIdClock#SYSTEM} by default. Generators of the same machine and process identifier share
+         * their state, they should use clocks no more than one second apart.
+         *
+         * @param clock the clock
+         * @return this builder
+         */
+        public Builder clock(final UniqueIdClock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * Sets whether to collect {@link UniqueIdMetrics}, false by default.
+         *
+         * @param metrics whether to collect metrics
+         * @return this builder
+         */
+        public Builder metrics(final boolean metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        public UniqueIdGenerator build() {
+            if (!identified) {
+                machineIdentifier(UniqueId.getGeneratedMachineIdentifier());
+            }
+            if (!processIdentified) {
+                processIdentifier(UniqueId.getGeneratedProcessIdentifier());
+            }
+            return new UniqueIdGenerator(this);
+        }
+    }
+}
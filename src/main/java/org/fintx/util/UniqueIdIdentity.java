@@ -0,0 +1,248 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * <p>
+ * Resolves the machine identifier and the process identifier of the default generator, every identifier by the first source that knows it:
+ * </p>
+ * <ol>
+ * <li>the provider set by {@link UniqueId#setIdentityProvider(UniqueIdIdentityProvider)}</li>
+ * <li>the system properties {@value UniqueId#MACHINE_IDENTIFIER_PROPERTY} and {@value UniqueId#PROCESS_IDENTIFIER_PROPERTY}</li>
+ * <li>the environment variables {@value #MACHINE_IDENTIFIER_ENV} and {@value #PROCESS_IDENTIFIER_ENV}</li>
+ * <li>the providers found by {@link ServiceLoader}</li>
+ * <li>the machine: the MAC address of the first network interface, else the hashed host name, else a random number; the process: the pid of
+ * {@code ProcessHandle} (Java 9 or later), else the pid in the name of the runtime MXBean, else a random number</li>
+ * </ol>
+ * <p>
+ * Nothing throws because of the environment: a source which fails, or whose identifier is malformed or does not fit, is skipped, and a container
+ * without network interface gets the hashed host name.
+ * </p>
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+final class UniqueIdIdentity {
+
+    static final String MACHINE_IDENTIFIER_ENV = "FINTX_UNIQUEID_MACHINE_IDENTIFIER";
+
+    static final String PROCESS_IDENTIFIER_ENV = "FINTX_UNIQUEID_PROCESS_IDENTIFIER";
+
+    // The multicast bit of the first byte, never set in the MAC address of a network interface, so hashed or random identifiers could not be a MAC
+    private static final long NOT_MAC = 0x010000000000L;
+
+    private static final long SIX_BYTES = 0x0000ffffffffffffL;
+
+    private UniqueIdIdentity() {
+        throw new AssertionError("No UniqueIdIdentity instances for you!");
+    }
+
+    /**
+     * Resolves the identifiers. The sources are asked in turn only while an identifier is still unknown, so the service providers are not loaded if
+     * the properties have both identifiers.
+     *
+     * @param configured the provider set by user or null
+     * @return the provider of the resolved identifiers
+     */
+    static UniqueIdIdentityProvider resolve(final UniqueIdIdentityProvider configured) {
+        long[] identity = { UniqueIdIdentityProvider.UNKNOWN, UniqueIdIdentityProvider.UNKNOWN };
+        if (null != configured) {
+            accept(identity, configured);
+        }
+        accept(identity, parse(System.getProperty(UniqueId.MACHINE_IDENTIFIER_PROPERTY)), parse(System.getProperty(UniqueId.PROCESS_IDENTIFIER_PROPERTY)));
+        accept(identity, parse(System.getenv(MACHINE_IDENTIFIER_ENV)), parse(System.getenv(PROCESS_IDENTIFIER_ENV)));
+        if (!known(identity)) {
+            Iterator<UniqueIdIdentityProvider> providers = ServiceLoader.load(UniqueIdIdentityProvider.class).iterator();
+            while (!known(identity)) {
+                try {
+                    if (!providers.hasNext()) {
+                        break;
+                    }
+                } catch (ServiceConfigurationError e) {
+                    // the service files could not be read
+                    break;
+                }
+                try {
+                    accept(identity, providers.next());
+                } catch (ServiceConfigurationError e) {
+                    // a provider could not be loaded or created, the iterator is at the next one
+                }
+            }
+        }
+        if (identity[0] == UniqueIdIdentityProvider.UNKNOWN) {
+            identity[0] = macAddress();
+        }
+        if (identity[0] == UniqueIdIdentityProvider.UNKNOWN) {
+            identity[0] = hostName();
+        }
+        if (identity[0] == UniqueIdIdentityProvider.UNKNOWN) {
+            identity[0] = new SecureRandom().nextLong() & SIX_BYTES | NOT_MAC;
+        }
+        if (identity[1] == UniqueIdIdentityProvider.UNKNOWN) {
+            identity[1] = processHandlePid();
+        }
+        if (identity[1] == UniqueIdIdentityProvider.UNKNOWN) {
+            identity[1] = runtimeMXBeanPid();
+        }
+        if (identity[1] == UniqueIdIdentityProvider.UNKNOWN) {
+            identity[1] = new SecureRandom().nextInt();
+        }
+        // As before, only the low two bytes of pid
+        return UniqueIdIdentityProvider.of(identity[0], (int) identity[1] & 0xffff);
+    }
+
+    /**
+     * Checks the identifiers of the provider set by user.
+     *
+     * @param provider the provider
+     * @throws IllegalArgumentException if an identifier does not fit
+     */
+    static void check(final UniqueIdIdentityProvider provider) {
+        long machineIdentifier = provider.getMachineIdentifier();
+        if (machineIdentifier != UniqueIdIdentityProvider.UNKNOWN && !fits(machineIdentifier, SIX_BYTES)) {
+            throw new IllegalArgumentException("The machine identifier must be between 0 and 281474976710655 (it must fit in six bytes).");
+        }
+        int processIdentifier = provider.getProcessIdentifier();
+        if (processIdentifier != UniqueIdIdentityProvider.UNKNOWN && !fits(processIdentifier, 0xffffL)) {
+            throw new IllegalArgumentException("The process identifier must be between 0 and 65535 (it must fit in two bytes).");
+        }
+    }
+
+    /**
+     * Takes the identifiers still unknown from the provider, nothing if it throws.
+     */
+    private static void accept(final long[] identity, final UniqueIdIdentityProvider provider) {
+        try {
+            if (identity[0] == UniqueIdIdentityProvider.UNKNOWN) {
+                accept(identity, provider.getMachineIdentifier(), UniqueIdIdentityProvider.UNKNOWN);
+            }
+            if (identity[1] == UniqueIdIdentityProvider.UNKNOWN) {
+                accept(identity, UniqueIdIdentityProvider.UNKNOWN, provider.getProcessIdentifier());
+            }
+        } catch (RuntimeException e) {
+            // a broken provider, use the next source
+        }
+    }
+
+    /**
+     * Takes the identifiers still unknown which fit, the others are left to the next source.
+     */
+    private static void accept(final long[] identity, final long machineIdentifier, final long processIdentifier) {
+        if (identity[0] == UniqueIdIdentityProvider.UNKNOWN && fits(machineIdentifier, SIX_BYTES)) {
+            identity[0] = machineIdentifier;
+        }
+        if (identity[1] == UniqueIdIdentityProvider.UNKNOWN && fits(processIdentifier, 0xffffL)) {
+            identity[1] = processIdentifier;
+        }
+    }
+
+    private static boolean fits(final long identifier, final long mask) {
+        return (identifier & ~mask) == 0;
+    }
+
+    private static boolean known(final long[] identity) {
+        return identity[0] != UniqueIdIdentityProvider.UNKNOWN && identity[1] != UniqueIdIdentityProvider.UNKNOWN;
+    }
+
+    /**
+     * Parses a decimal or hexadecimal ({@code 0x} prefixed) number, {@link UniqueIdIdentityProvider#UNKNOWN} if it is not one.
+     */
+    private static long parse(final String value) {
+        if (null == value || value.trim().isEmpty()) {
+            return UniqueIdIdentityProvider.UNKNOWN;
+        }
+        try {
+            return Long.decode(value.trim());
+        } catch (NumberFormatException e) {
+            return UniqueIdIdentityProvider.UNKNOWN;
+        }
+    }
+
+    private static long macAddress() {
+        try {
+            Enumeration<NetworkInterface> e = NetworkInterface.getNetworkInterfaces();
+            while (null != e && e.hasMoreElements()) {
+                NetworkInterface ni = e.nextElement();
+                if (ni.isLoopback() || ni.isVirtual()) {
+                    continue;
+                }
+                byte[] mac = ni.getHardwareAddress();
+                // ?? mac[1] != (byte) 0xff it is from http://johannburkard.de/software/uuid/
+                if (mac != null && mac.length == 6 && mac[1] != (byte) 0xff) {
+                    long machineIdentifier = 0;
+                    for (byte b : mac) {
+                        machineIdentifier = (machineIdentifier << 8) | (b & 0xff);
+                    }
+                    return machineIdentifier;
+                }
+            }
+        } catch (Throwable t) {
+            // no permission or no network, use the next source
+        }
+        return UniqueIdIdentityProvider.UNKNOWN;
+    }
+
+    /**
+     * Hashes the host name to six bytes with FNV-1a.
+     */
+    private static long hostName() {
+        String name = System.getenv("HOSTNAME");
+        if (null == name || name.isEmpty()) {
+            try {
+                name = InetAddress.getLocalHost().getHostName();
+            } catch (Throwable t) {
+                return UniqueIdIdentityProvider.UNKNOWN;
+            }
+        }
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : name.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+        }
+        return (hash ^ (hash >>> 48)) & SIX_BYTES | NOT_MAC;
+    }
+
+    private static long processHandlePid() {
+        try {
+            Class<?> processHandle = Class.forName("java.lang.ProcessHandle");
+            Object current = processHandle.getMethod("current").invoke(null);
+            return (Long) processHandle.getMethod("pid").invoke(current);
+        } catch (Throwable t) {
+            // before Java 9
+            return UniqueIdIdentityProvider.UNKNOWN;
+        }
+    }
+
+    private static long runtimeMXBeanPid() {
+        try {
+            String processName = java.lang.management.ManagementFactory.getRuntimeMXBean().getName();
+            if (processName.contains("@")) {
+                return Long.parseLong(processName.substring(0, processName.indexOf('@')));
+            }
+        } catch (Throwable t) {
+            // no management, use the next source
+        }
+        return UniqueIdIdentityProvider.UNKNOWN;
+    }
+}
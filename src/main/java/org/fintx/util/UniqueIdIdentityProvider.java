@@ -0,0 +1,72 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+/**
+ * <p>
+ * Provides the machine identifier and the process identifier of the ids generated by {@link UniqueId#get()}.
+ * </p>
+ * <p>
+ * Set one with {@link UniqueId#setIdentityProvider(UniqueIdIdentityProvider)} before the first id is generated, or register implementations in
+ * {@code META-INF/services/org.fintx.util.UniqueIdIdentityProvider} to be found by {@link java.util.ServiceLoader}. A provider may know only one of
+ * the identifiers and return {@link #UNKNOWN} for the other, it is then resolved by the next source, see {@link UniqueId}.
+ * </p>
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+public interface UniqueIdIdentityProvider {
+
+    /**
+     * The identifier is not known by the provider.
+     */
+    int UNKNOWN = -1;
+
+    /**
+     * Gets the machine identifier, between 0 and 281474976710655 (it must fit in six bytes).
+     *
+     * @return the machine identifier, or {@link #UNKNOWN}
+     */
+    long getMachineIdentifier();
+
+    /**
+     * Gets the process identifier, between 0 and 65535 (it must fit in two bytes).
+     *
+     * @return the process identifier, or {@link #UNKNOWN}
+     */
+    int getProcessIdentifier();
+
+    /**
+     * Gets a provider of the given identifiers.
+     *
+     * @param machineIdentifier the machine identifier, or {@link #UNKNOWN}
+     * @param processIdentifier the process identifier, or {@link #UNKNOWN}
+     * @return the provider
+     */
+    static UniqueIdIdentityProvider of(final long machineIdentifier, final int processIdentifier) {
+        return new UniqueIdIdentityProvider() {
+            @Override
+            public long getMachineIdentifier() {
+                return machineIdentifier;
+            }
+
+            @Override
+            public int getProcessIdentifier() {
+                return processIdentifier;
+            }
+        };
+    }
+}
@@ -0,0 +1,536 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * <p>
+ * Memory mapped dedup index of {@link UniqueId}, for example to remember the request ids already handled across restarts of the JVM.
+ * </p>
+ * <p>
+ * Ids are kept in time bucketed segments by the timestamp of the id, one file per segment in the directory of the index. Every segment is a fixed
+ * width open addressing hash table of 16 bytes slots mapped with {@link FileChannel#map}: the 15 bytes of {@link UniqueId#toByteArray()} with a marker
+ * byte 1 before byte 8, the marker byte is 0 in a free slot. Since the ids of a segment are all of one time bucket, the ids older than some time are
+ * dropped by deleting whole segment files, see {@link #dropBefore(long)}.
+ * </p>
+ * <p>
+ * The slots of a segment are grouped in pages of 1024 slots. The home slot of an id is picked by a hash of all its bytes and probing is linear within
+ * the page, then goes on to the next page if the page is full. Every page has a {@link StampedLock}: adding takes the write lock of the page, looking
+ * up reads optimistically and takes the read lock only if a write got in between, so lookups and adds run concurrently from many threads. A segment
+ * never grows, {@link Builder#bucketCapacity(long)} is the number of ids a segment holds.
+ * </p>
+ * <p>
+ * The ids are in the files as soon as {@link #add(UniqueId)} returns, so they survive a crash of the JVM. {@link #flush()} forces them to the disk to
+ * survive a crash of the OS as well. Segments opened at start up are checked by their header; a segment not closed cleanly has its size counted again.
+ * </p>
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+public final class UniqueIdIndex implements Closeable {
+
+    static final int PAGE_SLOTS = 1024;
+
+    static final int SLOT_BYTES = 16;
+
+    // 1G bytes of slots are mapped by one buffer
+    private static final int REGION_SLOTS = 1 << 26;
+
+    private static final int HEADER_BYTES = 64;
+
+    private static final int MAGIC = 0x55494458;
+
+    private static final int VERSION = 1;
+
+    private static final String SUFFIX = ".uidx";
+
+    private static final long MARKER = 0x0100000000000000L;
+
+    // 2^31 slots at most, so a slot is an int
+    private static final long MAX_BUCKET_CAPACITY = 1L << 30;
+
+    private final Path directory;
+
+    private final int bucketSeconds;
+
+    private final long slotsPerSegment;
+
+    private final ConcurrentMap<Long, Segment> segments = new ConcurrentHashMap<Long, Segment>();
+
+    private volatile boolean closed;
+
+    /**
+     * Gets a new builder of index.
+     *
+     * @return the builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private UniqueIdIndex(final Builder builder) throws IOException {
+        if (null == builder.directory) {
+            throw new IllegalArgumentException("The directory should not be null!");
+        }
+        if (builder.bucketSeconds < 1) {
+            throw new IllegalArgumentException("The bucket seconds must be positive.");
+        }
+        if (builder.bucketCapacity < 1 || builder.bucketCapacity > MAX_BUCKET_CAPACITY) {
+            throw new IllegalArgumentException("The bucket capacity must be between 1 and " + MAX_BUCKET_CAPACITY + ".");
+        }
+        this.directory = builder.directory;
+        this.bucketSeconds = builder.bucketSeconds;
+        // three quarters full at most, in whole pages
+        long slots = PAGE_SLOTS;
+        while (slots * 3 / 4 < builder.bucketCapacity) {
+            slots <<= 1;
+        }
+        this.slotsPerSegment = slots;
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                Segment segment = Segment.open(file, bucketSeconds);
+                segments.put(segment.bucket, segment);
+            }
+        } catch (IOException | RuntimeException e) {
+            for (Segment segment : segments.values()) {
+                segment.close();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Adds the id.
+     *
+     * @param id the id
+     * @return true if the id was not in the index
+     * @throws IllegalStateException if the segment of the id is full or the index is closed
+     * @throws UncheckedIOException if the segment file of the id could not be created
+     */
+    public boolean add(final UniqueId id) {
+        if (null == id) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        return add(id.high(), id.low());
+    }
+
+    /**
+     * Adds the id of 15 bytes in the array, as written by {@link UniqueId#toByteArray(byte[], int)}.
+     *
+     * @param bytes the byte array
+     * @param offset the index of the first byte of the id
+     * @return true if the id was not in the index
+     * @throws IllegalStateException if the segment of the id is full or the index is closed
+     * @throws UncheckedIOException if the segment file of the id could not be created
+     */
+    public boolean add(final byte[] bytes, final int offset) {
+        checkBytes(bytes, offset);
+        return add(UniqueIdCodec.readHigh(bytes, offset), UniqueIdCodec.readLow(bytes, offset));
+    }
+
+    /**
+     * Checks whether the id is in the index.
+     *
+     * @param id the id
+     * @return true if the id is in the index
+     * @throws IllegalStateException if the index is closed
+     */
+    public boolean contains(final UniqueId id) {
+        if (null == id) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        return contains(id.high(), id.low());
+    }
+
+    /**
+     * Checks whether the id of 15 bytes in the array is in the index.
+     *
+     * @param bytes the byte array
+     * @param offset the index of the first byte of the id
+     * @return true if the id is in the index
+     * @throws IllegalStateException if the index is closed
+     */
+    public boolean contains(final byte[] bytes, final int offset) {
+        checkBytes(bytes, offset);
+        return contains(UniqueIdCodec.readHigh(bytes, offset), UniqueIdCodec.readLow(bytes, offset));
+    }
+
+    /**
+     * Drops the segments of which all ids are older than the timestamp, their files are deleted. Ids being added to a dropped segment at the same
+     * time may be lost.
+     *
+     * @param timestamp the timestamp of second (number of seconds since the Unix epoch)
+     * @return the number of dropped segments
+     * @throws UncheckedIOException if a segment file could not be deleted
+     */
+    public int dropBefore(final long timestamp) {
+        checkOpen();
+        int dropped = 0;
+        for (Segment segment : segments.values()) {
+            if ((segment.bucket + 1) * bucketSeconds <= timestamp && segments.remove(segment.bucket, segment)) {
+                segment.close();
+                try {
+                    Files.deleteIfExists(segment.file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * Gets the number of ids in all segments.
+     *
+     * @return the number of ids
+     */
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments.values()) {
+            size += segment.size.sum();
+        }
+        return size;
+    }
+
+    /**
+     * Gets the number of segments.
+     *
+     * @return the number of segments
+     */
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Forces the ids of all segments to the disk.
+     */
+    public void flush() {
+        checkOpen();
+        for (Segment segment : segments.values()) {
+            segment.force();
+        }
+    }
+
+    /**
+     * Flushes and closes all segments. The index could not be used anymore, the mapped memory is released when the buffers are collected.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Segment segment : segments.values()) {
+            segment.close();
+        }
+        segments.clear();
+    }
+
+    private boolean add(final long high, final long low) {
+        checkOpen();
+        long bucket = (high >>> 32) / bucketSeconds;
+        Segment segment = segments.get(bucket);
+        if (null == segment) {
+            segment = segments.computeIfAbsent(bucket, key -> {
+                try {
+                    return Segment.create(directory.resolve(key * bucketSeconds + SUFFIX), key, bucketSeconds, slotsPerSegment);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        return segment.add(high, low | MARKER);
+    }
+
+    private boolean contains(final long high, final long low) {
+        checkOpen();
+        Segment segment = segments.get((high >>> 32) / bucketSeconds);
+        return null != segment && segment.contains(high, low | MARKER);
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("The index is closed.");
+        }
+    }
+
+    private static void checkBytes(final byte[] bytes, final int offset) {
+        if (bytes == null) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        if (offset < 0 || offset > bytes.length - UniqueIdCodec.BYTES) {
+            throw new IndexOutOfBoundsException("Offset: " + offset + ", Length: " + bytes.length);
+        }
+    }
+
+    /**
+     * One time bucket, a file of header and slots.
+     */
+    private static final class Segment {
+        private static final int FOUND = -1;
+        private static final int PAGE_FULL = -2;
+
+        final Path file;
+        final long bucket;
+        final LongAdder size = new LongAdder();
+        private final FileChannel channel;
+        private final MappedByteBuffer header;
+        private final MappedByteBuffer[] regions;
+        private final StampedLock[] locks;
+        private final long mask;
+
+        private Segment(final Path file, final FileChannel channel, final long bucket, final long slots) throws IOException {
+            this.file = file;
+            this.channel = channel;
+            this.bucket = bucket;
+            this.mask = slots - 1;
+            this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            int count = (int) ((slots + REGION_SLOTS - 1) / REGION_SLOTS);
+            this.regions = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long regionSlots = Math.min(REGION_SLOTS, slots - (long) i * REGION_SLOTS);
+                regions[i] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES + (long) i * REGION_SLOTS * SLOT_BYTES, regionSlots * SLOT_BYTES);
+            }
+            this.locks = new StampedLock[(int) (slots / PAGE_SLOTS)];
+            for (int i = 0; i < locks.length; i++) {
+                locks[i] = new StampedLock();
+            }
+        }
+
+        static Segment create(final Path file, final long bucket, final int bucketSeconds, final long slots) throws IOException {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                Segment segment = new Segment(file, channel, bucket, slots);
+                segment.header.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, bucketSeconds).putLong(16, bucket).putLong(24, slots).putLong(32, 0L)
+                        .put(40, (byte) 0);
+                return segment;
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        static Segment open(final Path file, final int bucketSeconds) throws IOException {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+                    // read the whole header
+                }
+                if (header.hasRemaining() || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                    throw new IllegalStateException("Not a UniqueId index segment: " + file);
+                }
+                if (header.getInt(8) != bucketSeconds) {
+                    throw new IllegalStateException("The bucket seconds of segment " + file + " is " + header.getInt(8) + " but not " + bucketSeconds + ".");
+                }
+                long slots = header.getLong(24);
+                if (slots < PAGE_SLOTS || Long.bitCount(slots) != 1 || channel.size() < HEADER_BYTES + slots * SLOT_BYTES) {
+                    throw new IllegalStateException("The segment " + file + " is broken.");
+                }
+                Segment segment = new Segment(file, channel, header.getLong(16), slots);
+                if (header.get(40) == 1) {
+                    segment.size.add(header.getLong(32));
+                } else {
+                    segment.size.add(segment.count());
+                }
+                // dirty until closed
+                segment.header.put(40, (byte) 0);
+                return segment;
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        boolean add(final long high, final long markedLow) {
+            long home = UniqueIdCodec.hash64(high, markedLow) & mask;
+            int page = (int) (home / PAGE_SLOTS);
+            int start = (int) home & (PAGE_SLOTS - 1);
+            for (int i = 0; i < locks.length; i++) {
+                StampedLock lock = locks[page];
+                long stamp = lock.writeLock();
+                try {
+                    int slot = probe(page, start, high, markedLow);
+                    if (slot == FOUND) {
+                        return false;
+                    }
+                    if (slot != PAGE_FULL) {
+                        ByteBuffer region = regions[slot / REGION_SLOTS];
+                        int position = (slot % REGION_SLOTS) * SLOT_BYTES;
+                        region.putLong(position, high);
+                        region.putLong(position + 8, markedLow);
+                        size.increment();
+                        return true;
+                    }
+                } finally {
+                    lock.unlockWrite(stamp);
+                }
+                page = (page + 1) % locks.length;
+            }
+            throw new IllegalStateException("The segment " + file + " is full.");
+        }
+
+        boolean contains(final long high, final long markedLow) {
+            long home = UniqueIdCodec.hash64(high, markedLow) & mask;
+            int page = (int) (home / PAGE_SLOTS);
+            int start = (int) home & (PAGE_SLOTS - 1);
+            for (int i = 0; i < locks.length; i++) {
+                StampedLock lock = locks[page];
+                long stamp = lock.tryOptimisticRead();
+                int slot = probe(page, start, high, markedLow);
+                if (!lock.validate(stamp)) {
+                    stamp = lock.readLock();
+                    try {
+                        slot = probe(page, start, high, markedLow);
+                    } finally {
+                        lock.unlockRead(stamp);
+                    }
+                }
+                if (slot != PAGE_FULL) {
+                    return slot == FOUND;
+                }
+                page = (page + 1) % locks.length;
+            }
+            return false;
+        }
+
+        /**
+         * Probes the page from the start slot.
+         *
+         * @return the free slot, {@link #FOUND} or {@link #PAGE_FULL}
+         */
+        private int probe(final int page, final int start, final long high, final long markedLow) {
+            long first = (long) page * PAGE_SLOTS;
+            ByteBuffer region = regions[(int) (first / REGION_SLOTS)];
+            int base = (int) (first % REGION_SLOTS);
+            for (int i = 0; i < PAGE_SLOTS; i++) {
+                int slot = base + ((start + i) & (PAGE_SLOTS - 1));
+                int position = slot * SLOT_BYTES;
+                long low = region.getLong(position + 8);
+                if (low == 0L) {
+                    return (int) (first / REGION_SLOTS) * REGION_SLOTS + slot;
+                }
+                if (low == markedLow && region.getLong(position) == high) {
+                    return FOUND;
+                }
+            }
+            return PAGE_FULL;
+        }
+
+        private long count() {
+            long count = 0;
+            for (MappedByteBuffer region : regions) {
+                for (int position = 8; position < region.capacity(); position += SLOT_BYTES) {
+                    if (region.getLong(position) != 0L) {
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }
+
+        void force() {
+            for (MappedByteBuffer region : regions) {
+                region.force();
+            }
+            header.putLong(32, size.sum());
+            header.force();
+        }
+
+        void close() {
+            force();
+            header.put(40, (byte) 1);
+            header.force();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * The builder of {@link UniqueIdIndex}.
+     */
+    public static final class Builder {
+        private Path directory;
+        private int bucketSeconds = 3600;
+        private long bucketCapacity = 1 << 20;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the directory of the segment files, it is created if it does not exist.
+         *
+         * @param directory the directory
+         * @return this builder
+         */
+        public Builder directory(final Path directory) {
+            this.directory = directory;
+            return this;
+        }
+
+        /**
+         * Sets the seconds of the time bucket of one segment, 3600 by default. It must be the same every time the index in the directory is opened.
+         *
+         * @param bucketSeconds the seconds of a bucket
+         * @return this builder
+         */
+        public Builder bucketSeconds(final int bucketSeconds) {
+            this.bucketSeconds = bucketSeconds;
+            return this;
+        }
+
+        /**
+         * Sets the number of ids a new segment holds, 1048576 by default. Every id takes about 21 to 43 bytes of the file.
+         *
+         * @param bucketCapacity the number of ids of a bucket
+         * @return this builder
+         */
+        public Builder bucketCapacity(final long bucketCapacity) {
+            this.bucketCapacity = bucketCapacity;
+            return this;
+        }
+
+        /**
+         * Opens the index, the segment files in the directory are mapped.
+         *
+         * @return the index
+         * @throws IOException if the directory or a segment file could not be opened
+         * @throws IllegalStateException if a file in the directory is not a segment of the index
+         */
+        public UniqueIdIndex build() throws IOException {
+            return new UniqueIdIndex(this);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+import java.util.function.BiConsumer;
+
+/**
+ * <p>
+ * Map from {@link UniqueId} which keeps every key as two longs (see {@link UniqueId#toLongs()}) in parallel {@code long[]} arrays of an open addressing
+ * hash table, with the values in a third parallel array. There is no entry object and no key object. Null values are allowed.
+ * </p>
+ * <p>
+ * The map is not thread safe.
+ * </p>
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ * @param <V> the type of values
+ */
+public final class UniqueIdMap<V> {
+
+    private final UniqueIdTable table;
+
+    /**
+     * Constructs an empty map.
+     */
+    public UniqueIdMap() {
+        this(0);
+    }
+
+    /**
+     * Constructs an empty map which holds the expected number of keys without resizing.
+     *
+     * @param expectedSize the expected number of keys
+     */
+    public UniqueIdMap(final int expectedSize) {
+        table = new UniqueIdTable(expectedSize, true);
+    }
+
+    /**
+     * Associates the value with the id.
+     *
+     * @param id the id
+     * @param value the value
+     * @return the previous value of the id, or null if there was none
+     */
+    public V put(final UniqueId id, final V value) {
+        if (null == id) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        return put(id.high(), id.low(), value);
+    }
+
+    /**
+     * Associates the value with the id of the two longs of {@link UniqueId#toLongs()}.
+     *
+     * @param high the first long of the id
+     * @param low the second long of the id
+     * @param value the value
+     * @return the previous value of the id, or null if there was none
+     */
+    public V put(final long high, final long low, final V value) {
+        int slot = table.insert(high, low);
+        if (slot < 0) {
+            table.values[-slot - 1] = value;
+            return null;
+        }
+        V previous = value(slot);
+        table.values[slot] = value;
+        return previous;
+    }
+
+    /**
+     * Gets the value of the id.
+     *
+     * @param id the id
+     * @return the value, or null if the id is not in the map
+     */
+    public V get(final UniqueId id) {
+        if (null == id) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        return get(id.high(), id.low());
+    }
+
+    /**
+     * Gets the value of the id of the two longs of {@link UniqueId#toLongs()}.
+     *
+     * @param high the first long of the id
+     * @param low the second long of the id
+     * @return the value, or null if the id is not in the map
+     */
+    public V get(final long high, final long low) {
+        int slot = table.find(high, low);
+        return slot < 0 ? null : value(slot);
+    }
+
+    /**
+     * Checks whether the id is a key of the map.
+     *
+     * @param id the id
+     * @return true if the id is in the map
+     */
+    public boolean containsKey(final UniqueId id) {
+        if (null == id) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        return table.find(id.high(), id.low()) >= 0;
+    }
+
+    /**
+     * Checks whether the id of the two longs of {@link UniqueId#toLongs()} is a key of the map.
+     *
+     * @param high the first long of the id
+     * @param low the second long of the id
+     * @return true if the id is in the map
+     */
+    public boolean containsKey(final long high, final long low) {
+        return table.find(high, low) >= 0;
+    }
+
+    /**
+     * Removes the id.
+     *
+     * @param id the id
+     * @return the value of the id, or null if the id was not in the map
+     */
+    public V remove(final UniqueId id) {
+        if (null == id) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        return remove(id.high(), id.low());
+    }
+
+    /**
+     * Removes the id of the two longs of {@link UniqueId#toLongs()}.
+     *
+     * @param high the first long of the id
+     * @param low the second long of the id
+     * @return the value of the id, or null if the id was not in the map
+     */
+    public V remove(final long high, final long low) {
+        int slot = table.find(high, low);
+        if (slot < 0) {
+            return null;
+        }
+        V previous = value(slot);
+        table.removeAt(slot);
+        return previous;
+    }
+
+    /**
+     * Gets the number of keys.
+     *
+     * @return the number of keys
+     */
+    public int size() {
+        return table.size;
+    }
+
+    /**
+     * Checks whether the map is empty.
+     *
+     * @return true if there is no key
+     */
+    public boolean isEmpty() {
+        return table.size == 0;
+    }
+
+    /**
+     * Removes all keys, the capacity is kept.
+     */
+    public void clear() {
+        table.clear();
+    }
+
+    /**
+     * Performs the action for every key and value, the {@code UniqueId} keys are created on the fly. The map should not be changed in the action.
+     *
+     * @param action the action
+     */
+    public void forEach(final BiConsumer<? super UniqueId, ? super V> action) {
+        if (null == action) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        for (int slot = table.nextSlot(0); slot >= 0; slot = table.nextSlot(slot + 1)) {
+            action.accept(UniqueId.fromLongs(table.highs[slot], table.lows[slot]), value(slot));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(final int slot) {
+        return (V) table.values[slot];
+    }
+}
@@ -0,0 +1,158 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * <p>
+ * The metrics of one {@link UniqueIdGenerator}, created only when enabled by {@link UniqueIdGenerator.Builder#metrics(boolean)}. A generator without
+ * metrics only tests a null field.
+ * </p>
+ * <p>
+ * The issued ids are counted in a {@code LongAdder}, so the counting threads do not contend. Everything else is updated once a second or less. The
+ * usage of a second is the counters the shared state of the machine and process identifier issued in that second, by all of its generators.
+ * </p>
+ *
+ * <pre>
+ * UniqueIdGenerator generator = UniqueIdGenerator.builder().metrics(true).build();
+ * generator.getMetrics().register("orders");
+ * </pre>
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+public final class UniqueIdMetrics implements UniqueIdMetricsMXBean {
+
+    private final UniqueIdGenerator generator;
+
+    private final LongAdder issued = new LongAdder();
+
+    private final LongAdder rollovers = new LongAdder();
+
+    private final AtomicLong peakSecondUsage = new AtomicLong();
+
+    private volatile long lastSecondUsage;
+
+    private volatile ObjectName objectName;
+
+    UniqueIdMetrics(final UniqueIdGenerator generator) {
+        this.generator = generator;
+    }
+
+    void issued() {
+        issued.increment();
+    }
+
+    void issued(final long count) {
+        issued.add(count);
+    }
+
+    /**
+     * Records a rollover of the shared state.
+     *
+     * @param usage the counters used in the second rolled over
+     */
+    void rollover(final long usage) {
+        rollovers.increment();
+        lastSecondUsage = usage;
+        peakSecondUsage.accumulateAndGet(usage, Math::max);
+    }
+
+    @Override
+    public long getIssuedCount() {
+        return issued.sum();
+    }
+
+    @Override
+    public long getRolloverCount() {
+        return rollovers.sum();
+    }
+
+    @Override
+    public long getClockRegressionCount() {
+        return generator.getClockRegressionCount();
+    }
+
+    @Override
+    public long getExhaustedCount() {
+        return generator.getExhaustedCount();
+    }
+
+    @Override
+    public long getPeakSecondUsage() {
+        return peakSecondUsage.get();
+    }
+
+    @Override
+    public long getLastSecondUsage() {
+        return lastSecondUsage;
+    }
+
+    @Override
+    public double getPeakSecondUtilization() {
+        return (double) peakSecondUsage.get() / UniqueIdGenerator.COUNTERS_PER_SECOND;
+    }
+
+    /**
+     * Registers the metrics in the platform MBean server as {@code org.fintx.util:type=UniqueIdMetrics,name=<name>}.
+     *
+     * @param name the name of the generator
+     * @return the object name
+     * @throws IllegalStateException if the metrics could not be registered, for example the name is taken
+     */
+    public synchronized ObjectName register(final String name) {
+        if (null == name) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        if (null != objectName) {
+            throw new IllegalStateException("The metrics are registered already as " + objectName + ".");
+        }
+        try {
+            ObjectName registered = new ObjectName("org.fintx.util:type=UniqueIdMetrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, registered);
+            objectName = registered;
+            return registered;
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register the metrics " + name + ".", e);
+        }
+    }
+
+    /**
+     * Unregisters the metrics from the platform MBean server, nothing happens if they are not registered.
+     */
+    public synchronized void unregister() {
+        if (null == objectName) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not unregister the metrics " + objectName + ".", e);
+        } finally {
+            objectName = null;
+        }
+    }
+}
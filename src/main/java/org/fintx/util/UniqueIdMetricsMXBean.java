@@ -0,0 +1,77 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+/**
+ * <p>
+ * The JMX view of {@link UniqueIdMetrics}, registered as {@code org.fintx.util:type=UniqueIdMetrics,name=<name>}.
+ * </p>
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+public interface UniqueIdMetricsMXBean {
+
+    /**
+     * Gets the number of ids issued by the generator.
+     *
+     * @return the issued count
+     */
+    long getIssuedCount();
+
+    /**
+     * Gets the number of times the generator moved the shared state to a new second.
+     *
+     * @return the rollover count
+     */
+    long getRolloverCount();
+
+    /**
+     * Gets the number of reservations made while the clock was more than one second behind, see
+     * {@link UniqueIdGenerator#getClockRegressionCount()}.
+     *
+     * @return the clock regression count
+     */
+    long getClockRegressionCount();
+
+    /**
+     * Gets the number of times the counters of a second were used up, see {@link UniqueIdGenerator#getExhaustedCount()}.
+     *
+     * @return the exhausted count
+     */
+    long getExhaustedCount();
+
+    /**
+     * Gets the most counters used in one second since the metrics were enabled, out of the 16777216 of a second.
+     *
+     * @return the peak second usage
+     */
+    long getPeakSecondUsage();
+
+    /**
+     * Gets the counters used in the last second completed.
+     *
+     * @return the last second usage
+     */
+    long getLastSecondUsage();
+
+    /**
+     * Gets the peak second usage as a part of the counters of a second.
+     *
+     * @return between 0 and 1
+     */
+    double getPeakSecondUtilization();
+}
@@ -0,0 +1,257 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * Streaming reader of ids packed one after another as 15 bytes each (the layout of {@link UniqueId#writeTo(ByteBuffer)}), in a buffer or a memory
+ * mapped file.
+ * </p>
+ * <p>
+ * The reader is a flyweight, {@link #next()} moves it to the next id and the getters read the current id, so scanning does not allocate. Call
+ * {@link #toUniqueId()} only for the ids to keep. A reader is not thread safe.
+ * </p>
+ *
+ * <pre>
+ * UniqueIdReader reader = UniqueIdReader.map(journal);
+ * while (reader.next()) {
+ *     if (reader.getTimestamp() &gt;= from) {
+ *         ...
+ *     }
+ * }
+ * </pre>
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+public final class UniqueIdReader {
+
+    // The largest multiple of 15 bytes of a mapping, a file larger than it is mapped as many regions
+    static final int REGION_BYTES = Integer.MAX_VALUE / UniqueIdCodec.BYTES * UniqueIdCodec.BYTES;
+
+    private final ByteBuffer[] regions;
+
+    private final long count;
+
+    private int region;
+
+    private int index;
+
+    private int limit;
+
+    private long read;
+
+    private long high;
+
+    private long low;
+
+    private UniqueIdReader(final ByteBuffer[] regions, final long count) {
+        this.regions = regions;
+        this.count = count;
+        this.index = regions[0].position();
+        this.limit = regions[0].limit();
+    }
+
+    /**
+     * Constructs a reader of the ids from the position to the limit of the buffer (heap or direct). The position of the buffer is not changed.
+     *
+     * @param buffer the buffer
+     * @return the reader
+     * @throws IllegalArgumentException if the remaining bytes of the buffer are not a multiple of 15
+     */
+    public static UniqueIdReader of(final ByteBuffer buffer) {
+        if (buffer == null) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        if (buffer.remaining() % UniqueIdCodec.BYTES != 0) {
+            throw new IllegalArgumentException("The remaining bytes " + buffer.remaining() + " are not a multiple of 15.");
+        }
+        return new UniqueIdReader(new ByteBuffer[] { buffer.duplicate() }, buffer.remaining() / UniqueIdCodec.BYTES);
+    }
+
+    /**
+     * Maps the file read only and constructs a reader of the ids in it. The file is closed once mapped, the mapping is released when the reader is
+     * garbage collected.
+     *
+     * @param file the file
+     * @return the reader
+     * @throws IOException if the file could not be mapped
+     * @throws IllegalArgumentException if the size of the file is not a multiple of 15
+     */
+    public static UniqueIdReader map(final Path file) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % UniqueIdCodec.BYTES != 0) {
+                throw new IllegalArgumentException("The size " + size + " of file " + file + " is not a multiple of 15.");
+            }
+            int regionCount = (int) Math.max(1, (size + REGION_BYTES - 1) / REGION_BYTES);
+            ByteBuffer[] regions = new ByteBuffer[regionCount];
+            for (int i = 0; i < regionCount; i++) {
+                long position = (long) i * REGION_BYTES;
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(REGION_BYTES, size - position));
+            }
+            return new UniqueIdReader(regions, size / UniqueIdCodec.BYTES);
+        }
+    }
+
+    /**
+     * Moves to the next id.
+     *
+     * @return false if there is no more id
+     */
+    public boolean next() {
+        while (index == limit) {
+            if (region == regions.length - 1) {
+                return false;
+            }
+            region++;
+            index = regions[region].position();
+            limit = regions[region].limit();
+        }
+        ByteBuffer buffer = regions[region];
+        high = UniqueIdCodec.readHigh(buffer, index);
+        low = UniqueIdCodec.readLow(buffer, index);
+        index += UniqueIdCodec.BYTES;
+        read++;
+        return true;
+    }
+
+    /**
+     * Gets the number of ids of the buffer or file.
+     *
+     * @return the number of ids
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the number of ids read, the current id is the last one of them.
+     *
+     * @return the number of ids read
+     */
+    public long getRead() {
+        return read;
+    }
+
+    /**
+     * Gets the timestamp (number of seconds since the Unix epoch) of the current id.
+     *
+     * @return the timestamp of second
+     */
+    public long getTimestamp() {
+        return current() >>> 32;
+    }
+
+    /**
+     * Gets the number of seconds since the Unix epoch of the current id, see {@link UniqueId#getEpochSecond()}.
+     *
+     * @return the epoch second
+     */
+    public long getEpochSecond() {
+        return UniqueId.epochSecond((int) (current() >>> 32));
+    }
+
+    /**
+     * Gets the machine identifier of the current id.
+     *
+     * @return the machine identifier
+     */
+    public long getMachineIdentifier() {
+        return ((current() & 0xffffffffL) << 16) | (low >>> 40);
+    }
+
+    /**
+     * Gets the process identifier of the current id.
+     *
+     * @return the process identifier
+     */
+    public int getProcessIdentifier() {
+        current();
+        return (int) (low >>> 24) & 0xffff;
+    }
+
+    /**
+     * Gets the counter of the current id.
+     *
+     * @return the counter
+     */
+    public int getCounter() {
+        current();
+        return (int) low & 0xffffff;
+    }
+
+    /**
+     * Compares the current id with the other one, the order is the same as {@link UniqueId#compareTo(UniqueId)}.
+     *
+     * @param other the other id
+     * @return -1, 0 or 1 as the current id is less than, equal to, or greater than the other one
+     */
+    public int compareTo(final UniqueId other) {
+        if (other == null) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        long otherHigh = other.high();
+        if (current() != otherHigh) {
+            return Long.compareUnsigned(high, otherHigh) < 0 ? -1 : 1;
+        }
+        long otherLow = other.low();
+        return low == otherLow ? 0 : (low < otherLow ? -1 : 1);
+    }
+
+    /**
+     * Copies the 15 bytes of the current id into the array.
+     *
+     * @param dest the array
+     * @param offset the index of the first byte
+     * @throws IndexOutOfBoundsException if there are not 15 bytes from the offset
+     */
+    public void copyTo(final byte[] dest, final int offset) {
+        if (dest == null) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        if (offset < 0 || offset > dest.length - UniqueIdCodec.BYTES) {
+            throw new IndexOutOfBoundsException("Offset: " + offset + ", Length: " + dest.length);
+        }
+        UniqueIdCodec.writeBytes(current(), low, dest, offset);
+    }
+
+    /**
+     * Materializes the current id.
+     *
+     * @return new UniqueId instance
+     */
+    public UniqueId toUniqueId() {
+        return UniqueId.fromLongs(current(), low);
+    }
+
+    private long current() {
+        if (read == 0) {
+            throw new NoSuchElementException("No current id, call next() first.");
+        }
+        return high;
+    }
+}
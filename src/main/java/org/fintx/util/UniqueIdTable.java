@@ -0,0 +1,215 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+/**
+ * <p>
+ * Open addressing hash table of ids kept as the two longs of {@link UniqueId#toLongs()} in parallel arrays, with an optional parallel array of values.
+ * It is the storage of {@link UniqueIdSet} and {@link UniqueIdMap}.
+ * </p>
+ * <p>
+ * Linear probing with backward shift deletion, so there is no tombstone. The low long of an id never has its high byte set, so a low long of -1 marks a
+ * free slot. The table doubles when it is three quarters full.
+ * </p>
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+class UniqueIdTable {
+
+    static final int MIN_CAPACITY = 16;
+
+    static final int MAX_CAPACITY = 1 << 30;
+
+    private static final long FREE = -1L;
+
+    private final boolean withValues;
+
+    long[] highs;
+
+    long[] lows;
+
+    Object[] values;
+
+    int size;
+
+    private int mask;
+
+    private int threshold;
+
+    /**
+     * Constructs a table which holds the expected number of ids without resizing.
+     *
+     * @param expectedSize the expected number of ids
+     * @param withValues whether to keep a value of every id
+     */
+    UniqueIdTable(final int expectedSize, final boolean withValues) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Argument expectedSize should not be negative!");
+        }
+        this.withValues = withValues;
+        long capacity = MIN_CAPACITY;
+        while (capacity * 3 / 4 < expectedSize) {
+            capacity <<= 1;
+        }
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Argument expectedSize should not be more than " + (MAX_CAPACITY / 4 * 3) + "!");
+        }
+        allocate((int) capacity);
+    }
+
+    /**
+     * Finds the slot of the id.
+     *
+     * @param high the high long of the id
+     * @param low the low long of the id
+     * @return the slot, or {@code -(free slot) - 1} if the id is not in the table
+     */
+    final int find(final long high, final long low) {
+        int slot = slot(high, low);
+        while (true) {
+            long current = lows[slot];
+            if (current == FREE) {
+                return -slot - 1;
+            }
+            if (current == low && highs[slot] == high) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Adds the id if it is not in the table.
+     *
+     * @param high the high long of the id
+     * @param low the low long of the id
+     * @return the slot of the id, or {@code -(slot) - 1} if the id is added
+     * @throws IllegalArgumentException if the high byte of the low long is not 0
+     */
+    final int insert(final long high, final long low) {
+        if ((low & 0xff00000000000000L) != 0) {
+            throw new IllegalArgumentException("The low long must fit in seven bytes.");
+        }
+        int slot = find(high, low);
+        if (slot >= 0) {
+            return slot;
+        }
+        if (size >= threshold) {
+            if (highs.length == MAX_CAPACITY) {
+                throw new IllegalStateException("The table is full.");
+            }
+            rehash(highs.length << 1);
+            slot = find(high, low);
+        }
+        slot = -slot - 1;
+        highs[slot] = high;
+        lows[slot] = low;
+        size++;
+        return -slot - 1;
+    }
+
+    /**
+     * Removes the id in the slot and shifts back the following ids of the probe sequence.
+     *
+     * @param slot the slot of the id
+     */
+    final void removeAt(final int slot) {
+        int gap = slot;
+        int i = slot;
+        while (true) {
+            i = (i + 1) & mask;
+            long low = lows[i];
+            if (low == FREE) {
+                break;
+            }
+            // moves the id to the gap unless its home slot is between the gap and its current slot
+            if (((i - slot(highs[i], low)) & mask) >= ((i - gap) & mask)) {
+                highs[gap] = highs[i];
+                lows[gap] = low;
+                if (withValues) {
+                    values[gap] = values[i];
+                }
+                gap = i;
+            }
+        }
+        highs[gap] = 0L;
+        lows[gap] = FREE;
+        if (withValues) {
+            values[gap] = null;
+        }
+        size--;
+    }
+
+    /**
+     * Removes all ids, the capacity is kept.
+     */
+    final void clear() {
+        java.util.Arrays.fill(highs, 0L);
+        java.util.Arrays.fill(lows, FREE);
+        if (withValues) {
+            java.util.Arrays.fill(values, null);
+        }
+        size = 0;
+    }
+
+    /**
+     * Gets the next used slot.
+     *
+     * @param from the first slot to check
+     * @return the slot, or -1 if there is no more id
+     */
+    final int nextSlot(final int from) {
+        for (int i = from; i < lows.length; i++) {
+            if (lows[i] != FREE) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int slot(final long high, final long low) {
+        return (int) UniqueIdCodec.hash64(high, low) & mask;
+    }
+
+    private void allocate(final int capacity) {
+        highs = new long[capacity];
+        lows = new long[capacity];
+        java.util.Arrays.fill(lows, FREE);
+        if (withValues) {
+            values = new Object[capacity];
+        }
+        mask = capacity - 1;
+        threshold = capacity / 4 * 3;
+    }
+
+    private void rehash(final int capacity) {
+        long[] oldHighs = highs;
+        long[] oldLows = lows;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldLows.length; i++) {
+            if (oldLows[i] != FREE) {
+                int slot = -find(oldHighs[i], oldLows[i]) - 1;
+                highs[slot] = oldHighs[i];
+                lows[slot] = oldLows[i];
+                if (withValues) {
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+/**
+ * <p>
+ * Operations on arrays of {@link UniqueId}, both {@code UniqueId[]} and ids of 15 bytes packed one after another in a {@code byte[]} as written by
+ * {@link UniqueId#toByteArray(byte[], int)}.
+ * </p>
+ * <p>
+ * An id starts with its timestamp, so the ids sorted by {@link UniqueId#compareTo(UniqueId)} (or {@link UniqueId#BYTES_COMPARATOR}) are sorted by
+ * timestamp. The ids of the timestamps from {@code t1} to {@code t2} of a sorted array are the ones from index {@code firstIndexOf(ids, t1)}
+ * (inclusive) to {@code endIndexOf(ids, t2)} (exclusive), found by binary search.
+ * </p>
+ *
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+public final class UniqueIds {
+
+    private UniqueIds() {
+    }
+
+    /**
+     * Finds the index of the first id greater than or equal to the key in the sorted array.
+     *
+     * @param ids the ids sorted by {@link UniqueId#compareTo(UniqueId)}
+     * @param key the key
+     * @return the index, or {@code ids.length} if all ids are less than the key
+     */
+    public static int lowerBound(final UniqueId[] ids, final UniqueId key) {
+        return search(ids, key, false);
+    }
+
+    /**
+     * Finds the index of the first id greater than the key in the sorted array.
+     *
+     * @param ids the ids sorted by {@link UniqueId#compareTo(UniqueId)}
+     * @param key the key
+     * @return the index, or {@code ids.length} if no id is greater than the key
+     */
+    public static int upperBound(final UniqueId[] ids, final UniqueId key) {
+        return search(ids, key, true);
+    }
+
+    /**
+     * Finds the index of the first id of the timestamp or later in the sorted array.
+     *
+     * @param ids the ids sorted by {@link UniqueId#compareTo(UniqueId)}
+     * @param timestamp the timestamp of second (number of seconds since the Unix epoch)
+     * @return the index, or {@code ids.length} if all ids are earlier
+     */
+    public static int firstIndexOf(final UniqueId[] ids, final long timestamp) {
+        return search(ids, UniqueId.minForTimestamp(timestamp), false);
+    }
+
+    /**
+     * Finds the index after the last id of the timestamp or earlier in the sorted array.
+     *
+     * @param ids the ids sorted by {@link UniqueId#compareTo(UniqueId)}
+     * @param timestamp the timestamp of second (number of seconds since the Unix epoch)
+     * @return the index, or {@code ids.length} if no id is later
+     */
+    public static int endIndexOf(final UniqueId[] ids, final long timestamp) {
+        return search(ids, UniqueId.maxForTimestamp(timestamp), true);
+    }
+
+    /**
+     * Finds the index of the first id greater than or equal to the key in the sorted packed ids.
+     *
+     * @param ids the packed ids sorted by {@link UniqueId#BYTES_COMPARATOR}
+     * @param offset the index of the first byte of the first id
+     * @param count the number of ids
+     * @param key the key
+     * @return the index of the id (not of its first byte) from the first id, or {@code count} if all ids are less than the key
+     * @throws IndexOutOfBoundsException if the ids do not fit in the array from the offset
+     */
+    public static int lowerBound(final byte[] ids, final int offset, final int count, final UniqueId key) {
+        return search(ids, offset, count, key, false);
+    }
+
+    /**
+     * Finds the index of the first id greater than the key in the sorted packed ids.
+     *
+     * @param ids the packed ids sorted by {@link UniqueId#BYTES_COMPARATOR}
+     * @param offset the index of the first byte of the first id
+     * @param count the number of ids
+     * @param key the key
+     * @return the index of the id (not of its first byte) from the first id, or {@code count} if no id is greater than the key
+     * @throws IndexOutOfBoundsException if the ids do not fit in the array from the offset
+     */
+    public static int upperBound(final byte[] ids, final int offset, final int count, final UniqueId key) {
+        return search(ids, offset, count, key, true);
+    }
+
+    /**
+     * Finds the index of the first id of the timestamp or later in the sorted packed ids.
+     *
+     * @param ids the packed ids sorted by {@link UniqueId#BYTES_COMPARATOR}
+     * @param offset the index of the first byte of the first id
+     * @param count the number of ids
+     * @param timestamp the timestamp of second (number of seconds since the Unix epoch)
+     * @return the index of the id (not of its first byte) from the first id, or {@code count} if all ids are earlier
+     * @throws IndexOutOfBoundsException if the ids do not fit in the array from the offset
+     */
+    public static int firstIndexOf(final byte[] ids, final int offset, final int count, final long timestamp) {
+        return search(ids, offset, count, UniqueId.minForTimestamp(timestamp), false);
+    }
+
+    /**
+     * Finds the index after the last id of the timestamp or earlier in the sorted packed ids.
+     *
+     * @param ids the packed ids sorted by {@link UniqueId#BYTES_COMPARATOR}
+     * @param offset the index of the first byte of the first id
+     * @param count the number of ids
+     * @param timestamp the timestamp of second (number of seconds since the Unix epoch)
+     * @return the index of the id (not of its first byte) from the first id, or {@code count} if no id is later
+     * @throws IndexOutOfBoundsException if the ids do not fit in the array from the offset
+     */
+    public static int endIndexOf(final byte[] ids, final int offset, final int count, final long timestamp) {
+        return search(ids, offset, count, UniqueId.maxForTimestamp(timestamp), true);
+    }
+
+    /**
+     * Gets the epoch seconds of the ids, see {@link UniqueId#getEpochSecond()}.
+     *
+     * @param ids the ids
+     * @param out the array of the epoch seconds, at least as long as the ids
+     * @throws IndexOutOfBoundsException if the out array is shorter than the ids
+     */
+    public static void epochSeconds(final UniqueId[] ids, final long[] out) {
+        if (null == ids || null == out) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        if (out.length < ids.length) {
+            throw new IndexOutOfBoundsException("Count: " + ids.length + ", Length: " + out.length);
+        }
+        for (int i = 0; i < ids.length; i++) {
+            out[i] = UniqueId.epochSecond((int) ids[i].getTimestamp());
+        }
+    }
+
+    /**
+     * Binary search of the first id greater than (or equal to, if not upper) the key.
+     */
+    private static int search(final UniqueId[] ids, final UniqueId key, final boolean upper) {
+        if (null == ids || null == key) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        int low = 0;
+        int high = ids.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int result = ids[middle].compareTo(key);
+            if (result < 0 || (upper && result == 0)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int search(final byte[] ids, final int offset, final int count, final UniqueId key, final boolean upper) {
+        if (null == ids || null == key) {
+            throw new IllegalArgumentException("Argument should not be null!");
+        }
+        if (offset < 0 || count < 0 || offset + count * (long) UniqueIdCodec.BYTES > ids.length) {
+            throw new IndexOutOfBoundsException("Offset: " + offset + ", Count: " + count + ", Length: " + ids.length);
+        }
+        long keyHigh = key.high();
+        long keyLow = key.low();
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int position = offset + middle * UniqueIdCodec.BYTES;
+            long idHigh = UniqueIdCodec.readHigh(ids, position);
+            int result;
+            if (idHigh != keyHigh) {
+                result = Long.compareUnsigned(idHigh, keyHigh);
+            } else {
+                long idLow = UniqueIdCodec.readLow(ids, position);
+                result = idLow == keyLow ? 0 : (idLow < keyLow ? -1 : 1);
+            }
+            if (result < 0 || (upper && result == 0)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
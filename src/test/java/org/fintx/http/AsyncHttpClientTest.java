@@ -0,0 +1,221 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.http;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+public class AsyncHttpClientTest {
+    private static final int IN_FLIGHT = 2000;
+
+    static {
+        // the stand-in servers close the idle connections above 200 by default, read once by the first server of the JVM
+        System.setProperty("sun.net.httpserver.maxIdleConnections", "10000");
+    }
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private HttpServer server;
+
+    private ExecutorService executor;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+
+    private final AtomicInteger served = new AtomicInteger();
+
+    private String base;
+
+    @Before
+    public void start() throws IOException {
+        executor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), IN_FLIGHT * 2);
+        server.setExecutor(executor);
+        // echoes the method and body, after the delay of the query
+        server.createContext("/", exchange -> {
+            int current = inFlight.incrementAndGet();
+            peakInFlight.accumulateAndGet(current, Math::max);
+            try {
+                String query = exchange.getRequestURI().getQuery();
+                if (null != query) {
+                    Thread.sleep(Long.parseLong(query));
+                }
+                ByteArrayOutputStream echo = new ByteArrayOutputStream();
+                echo.write(exchange.getRequestMethod().getBytes(StandardCharsets.UTF_8));
+                echo.write(' ');
+                try (InputStream in = exchange.getRequestBody()) {
+                    byte[] buffer = new byte[4096];
+                    for (int n; (n = in.read(buffer)) != -1;) {
+                        echo.write(buffer, 0, n);
+                    }
+                }
+                int code = exchange.getRequestURI().getPath().equals("/missing") ? 404 : 200;
+                exchange.getResponseHeaders().add("X-Echo", "true");
+                exchange.sendResponseHeaders(code, echo.size());
+                try (OutputStream out = exchange.getResponseBody()) {
+                    echo.writeTo(out);
+                }
+                served.incrementAndGet();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+                exchange.close();
+            }
+        });
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void stop() {
+        AsyncHttpClient.configure(HttpClientConfig.DEFAULT);
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testMethods() throws Exception {
+        URL url = new URL(base + "/echo");
+        HttpResponse response = AsyncHttpClient.get(url).get();
+        Assert.assertEquals(200, response.getCode());
+        Assert.assertTrue(response.isSuccessful());
+        Assert.assertEquals("GET ", response.getBody());
+        Assert.assertEquals("true", response.getHeader("x-echo"));
+        Assert.assertEquals("true", response.getHeader("X-Echo"));
+        Assert.assertEquals("POST <a/>", AsyncHttpClient.post(url, MediaType.APP_XML, "<a/>").get().getBody());
+        Assert.assertEquals("PUT {}", AsyncHttpClient.put(url, MediaType.APP_JSON, "{}").get().getBody());
+        Assert.assertEquals("DELETE ", AsyncHttpClient.delete(url).get().getBody());
+        Assert.assertEquals("DELETE x", AsyncHttpClient.delete(url, null, "x", 0, TimeUnit.SECONDS, null).get().getBody());
+
+        response = AsyncHttpClient.get(new URL(base + "/missing")).get();
+        Assert.assertEquals(404, response.getCode());
+        Assert.assertFalse(response.isSuccessful());
+    }
+
+    @Test
+    public void testExecutor() throws Exception {
+        ExecutorService callerExecutor = Executors.newSingleThreadExecutor(r -> new Thread(r, "caller"));
+        try {
+            String thread = AsyncHttpClient.get(new URL(base + "/"), 0, TimeUnit.SECONDS, callerExecutor)
+                    .thenApply(response -> Thread.currentThread().getName()).get();
+            Assert.assertEquals("caller", thread);
+        } finally {
+            callerExecutor.shutdown();
+        }
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        CompletableFuture<HttpResponse> future = AsyncHttpClient.get(new URL(base + "/?2000"), 200, TimeUnit.MILLISECONDS, null);
+        try {
+            future.get(1, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        CompletableFuture<HttpResponse> future = AsyncHttpClient.get(new URL(base + "/?2000"));
+        while (inFlight.get() == 0) {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue(future.cancel(true));
+        thrown.expect(CancellationException.class);
+        try {
+            future.get();
+        } finally {
+            // the call is cancelled, the dispatcher runs no call
+            long deadline = System.currentTimeMillis() + 1000;
+            while (AsyncHttpClient.getConfig().getDispatcher().runningCallsCount() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(0, AsyncHttpClient.getConfig().getDispatcher().runningCallsCount());
+        }
+    }
+
+    @Test
+    public void testLoad() throws Exception {
+        AsyncHttpClient.configure(HttpClientConfig.builder().maxIdleConnections(IN_FLIGHT).maxRequests(IN_FLIGHT).maxRequestsPerHost(IN_FLIGHT).build());
+        URL url = new URL(base + "/?5000");
+        List<CompletableFuture<HttpResponse>> futures = new ArrayList<CompletableFuture<HttpResponse>>(IN_FLIGHT);
+        long start = System.nanoTime();
+        // a single thread fans out all requests without waiting for any
+        for (int i = 0; i < IN_FLIGHT; i++) {
+            futures.add(AsyncHttpClient.get(url, 30, TimeUnit.SECONDS, null));
+        }
+        long fannedOut = System.nanoTime() - start;
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[IN_FLIGHT])).get(2, TimeUnit.MINUTES);
+        long nanos = System.nanoTime() - start;
+        for (CompletableFuture<HttpResponse> future : futures) {
+            Assert.assertEquals(200, future.get().getCode());
+        }
+        System.out.println(IN_FLIGHT + " requests fanned out in " + TimeUnit.NANOSECONDS.toMillis(fannedOut) + " ms, completed in "
+                + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms, peak in flight " + peakInFlight.get());
+        Assert.assertEquals(IN_FLIGHT, served.get());
+        Assert.assertTrue(peakInFlight.get() >= IN_FLIGHT / 2);
+    }
+
+    @Test
+    public void testException1() {
+        thrown.expect(NullPointerException.class);
+        AsyncHttpClient.get(null);
+    }
+
+    @Test
+    public void testException2() throws IOException {
+        thrown.expect(NullPointerException.class);
+        AsyncHttpClient.post(new URL(base), null, null);
+    }
+
+    @Test
+    public void testException3() throws IOException {
+        thrown.expect(IllegalArgumentException.class);
+        AsyncHttpClient.get(new URL(base), -1, TimeUnit.SECONDS, null);
+    }
+}
@@ -0,0 +1,255 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.http;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+public class HttpClientConfigTest {
+    private static final int CALLERS = 500;
+
+    static {
+        // the stand-in servers close the idle connections above 200 by default, read once by the first server of the JVM
+        System.setProperty("sun.net.httpserver.maxIdleConnections", "10000");
+    }
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private HttpServer server;
+
+    private ExecutorService executor;
+
+    private URL url;
+
+    // the remote addresses seen by the server, one per connection
+    private final Set<InetSocketAddress> connections = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+
+    private volatile long delayMillis;
+
+    @Before
+    public void start() throws IOException {
+        executor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), CALLERS * 2);
+        server.setExecutor(executor);
+        server.createContext("/", exchange -> {
+            connections.add(exchange.getRemoteAddress());
+            int current = inFlight.incrementAndGet();
+            peakInFlight.accumulateAndGet(current, Math::max);
+            try {
+                if (delayMillis > 0) {
+                    Thread.sleep(delayMillis);
+                }
+                byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+                exchange.close();
+            }
+        });
+        server.start();
+        url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+    }
+
+    @After
+    public void stop() {
+        HttpClient.configure(HttpClientConfig.DEFAULT);
+        AsyncHttpClient.configure(HttpClientConfig.DEFAULT);
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testBuilder() {
+        HttpClientConfig config = HttpClientConfig.DEFAULT;
+        Assert.assertEquals(5, config.getMaxIdleConnections());
+        Assert.assertEquals(5, config.getKeepAlive(TimeUnit.MINUTES));
+        Assert.assertEquals(64, config.getMaxRequests());
+        Assert.assertEquals(5, config.getMaxRequestsPerHost());
+        config = HttpClientConfig.builder().maxIdleConnections(100).keepAlive(30, TimeUnit.SECONDS).maxRequests(300).maxRequestsPerHost(200).build();
+        Assert.assertEquals(100, config.getMaxIdleConnections());
+        Assert.assertEquals(30000, config.getKeepAlive(TimeUnit.MILLISECONDS));
+        Assert.assertEquals(300, config.getDispatcher().getMaxRequests());
+        Assert.assertEquals(200, config.getDispatcher().getMaxRequestsPerHost());
+        HttpClient.configure(config);
+        AsyncHttpClient.configure(config);
+        Assert.assertSame(config, HttpClient.getConfig());
+        Assert.assertSame(config, AsyncHttpClient.getConfig());
+    }
+
+    @Test
+    public void testLoad() throws Exception {
+        HttpClientConfig config = HttpClientConfig.builder().maxIdleConnections(CALLERS).maxRequests(CALLERS).maxRequestsPerHost(CALLERS).build();
+        int defaultConnections = burst();
+        HttpClient.configure(config);
+        int configuredConnections = burst();
+        System.out.println("new connections of the second burst, default pool: " + defaultConnections + ", pool of " + CALLERS + " idle: "
+                + configuredConnections);
+        // the default pool keeps 5 of the connections of the first burst, the second burst connects again
+        Assert.assertTrue(defaultConnections > CALLERS / 2);
+        Assert.assertTrue(configuredConnections < CALLERS / 10);
+        Assert.assertTrue(config.getConnectionPool().connectionCount() <= CALLERS);
+    }
+
+    /**
+     * Runs two bursts of load with a pause, when the pool evicts the idle connections above its max.
+     *
+     * @return the number of connections of the second burst not reused from the first one
+     */
+    private int burst() throws InterruptedException {
+        connections.clear();
+        load();
+        Set<InetSocketAddress> first = new HashSet<InetSocketAddress>(connections);
+        connections.clear();
+        Thread.sleep(1000);
+        load();
+        connections.removeAll(first);
+        return connections.size();
+    }
+
+    /**
+     * Runs 500 concurrent callers of 10 requests each.
+     *
+     */
+    private void load() throws InterruptedException {
+        final int requests = 10;
+        final AtomicInteger failures = new AtomicInteger();
+        final CountDownLatch ready = new CountDownLatch(CALLERS);
+        final CountDownLatch go = new CountDownLatch(1);
+        Thread[] callers = new Thread[CALLERS];
+        for (int i = 0; i < callers.length; i++) {
+            callers[i] = new Thread(() -> {
+                ready.countDown();
+                try {
+                    go.await();
+                    for (int j = 0; j < requests; j++) {
+                        if (!"ok".equals(HttpClient.get(url))) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    failures.incrementAndGet();
+                }
+            });
+            callers[i].start();
+        }
+        ready.await();
+        long start = System.nanoTime();
+        go.countDown();
+        for (Thread caller : callers) {
+            caller.join();
+        }
+        long nanos = System.nanoTime() - start;
+        Assert.assertEquals(0, failures.get());
+        System.out.println(HttpClient.getConfig() + ": " + (CALLERS * requests * 1000000000L / nanos) + " requests/s of " + CALLERS + " callers");
+    }
+
+    @Test
+    public void testDispatcher() throws InterruptedException {
+        delayMillis = 100;
+        Assert.assertEquals(5, dispatch(HttpClientConfig.DEFAULT));
+        Assert.assertTrue(dispatch(HttpClientConfig.builder().maxRequests(CALLERS).maxRequestsPerHost(CALLERS).build()) > 5);
+    }
+
+    /**
+     * Enqueues 500 calls at once.
+     *
+     * @return the peak of calls in flight at the server
+     */
+    private int dispatch(HttpClientConfig config) throws InterruptedException {
+        peakInFlight.set(0);
+        OkHttpClient client = config.newClientBuilder().build();
+        final CountDownLatch done = new CountDownLatch(CALLERS);
+        final AtomicInteger failures = new AtomicInteger();
+        for (int i = 0; i < CALLERS; i++) {
+            client.newCall(new Request.Builder().url(url).build()).enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    failures.incrementAndGet();
+                    done.countDown();
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) throws IOException {
+                    response.close();
+                    done.countDown();
+                }
+            });
+        }
+        Assert.assertTrue(done.await(2, TimeUnit.MINUTES));
+        Assert.assertEquals(0, failures.get());
+        return peakInFlight.get();
+    }
+
+    @Test
+    public void testException1() {
+        thrown.expect(IllegalArgumentException.class);
+        HttpClientConfig.builder().maxIdleConnections(-1).build();
+    }
+
+    @Test
+    public void testException2() {
+        thrown.expect(IllegalArgumentException.class);
+        HttpClientConfig.builder().maxRequestsPerHost(0).build();
+    }
+
+    @Test
+    public void testException3() {
+        thrown.expect(NullPointerException.class);
+        HttpClient.configure(null);
+    }
+}
@@ -0,0 +1,214 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.http;
+
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsParameters;
+import com.sun.net.httpserver.HttpsServer;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import okhttp3.OkHttpClient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+
+/**
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+public class HttpClientCustomTest {
+    private static final int THREADS = 100;
+
+    private static final String PASS = "changeit";
+
+    static {
+        // the stand-in servers close the idle connections above 200 by default, read once by the first server of the JVM
+        System.setProperty("sun.net.httpserver.maxIdleConnections", "10000");
+    }
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private KeyStore store;
+
+    private HttpsServer server;
+
+    private ExecutorService executor;
+
+    private URL url;
+
+    // the server configures the TLS engine of every new connection once, before its handshake
+    private final AtomicInteger handshakes = new AtomicInteger();
+
+    @Before
+    public void start() throws Exception {
+        store = KeyStore.getInstance("PKCS12");
+        try (InputStream in = HttpClientCustomTest.class.getResourceAsStream("localhost.p12")) {
+            store.load(in, PASS.toCharArray());
+        }
+        KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagerFactory.init(store, PASS.toCharArray());
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(keyManagerFactory.getKeyManagers(), null, null);
+
+        executor = Executors.newCachedThreadPool();
+        server = HttpsServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), THREADS * 2);
+        server.setHttpsConfigurator(new HttpsConfigurator(sslContext) {
+            @Override
+            public void configure(HttpsParameters params) {
+                handshakes.incrementAndGet();
+                super.configure(params);
+            }
+        });
+        server.setExecutor(executor);
+        server.createContext("/", exchange -> {
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+            exchange.close();
+        });
+        server.start();
+        url = new URL("https://127.0.0.1:" + server.getAddress().getPort() + "/");
+    }
+
+    @After
+    public void stop() {
+        HttpClient.custom(null, null, null);
+        HttpClient.configure(HttpClientConfig.DEFAULT);
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testCustom() throws Exception {
+        HttpClientConfig config = HttpClientConfig.builder().maxIdleConnections(THREADS).build();
+        HttpClient.configure(config);
+        final Set<OkHttpClient> clients = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<OkHttpClient, Boolean>()));
+        for (int burst = 0; burst < 2; burst++) {
+            final AtomicInteger failures = new AtomicInteger();
+            Thread[] threads = new Thread[THREADS];
+            for (int i = 0; i < threads.length; i++) {
+                threads[i] = new Thread(() -> {
+                    try {
+                        HttpClient.custom(store, store, PASS);
+                        clients.add(HttpClient.currentClient());
+                        for (int j = 0; j < 10; j++) {
+                            if (!"ok".equals(HttpClient.get(url))) {
+                                failures.incrementAndGet();
+                            }
+                        }
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                        failures.incrementAndGet();
+                    }
+                });
+                threads[i].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            Assert.assertEquals(0, failures.get());
+            System.out.println("burst " + burst + ": " + handshakes.get() + " handshakes, " + config.getConnectionPool().connectionCount()
+                    + " open connections of " + THREADS + " threads");
+        }
+        // one client of all threads, the sockets of every thread are in the one pool
+        Assert.assertEquals(1, clients.size());
+        Assert.assertTrue(config.getConnectionPool().connectionCount() <= THREADS);
+        // the second burst reuses the connections of the first one, no handshake at all
+        Assert.assertTrue(handshakes.get() <= THREADS);
+    }
+
+    @Test
+    public void testFingerprint() throws Exception {
+        HttpClient.custom(store, store, PASS);
+        OkHttpClient client = HttpClient.currentClient();
+        HttpClient.custom(store, null, null);
+        OkHttpClient trustOnly = HttpClient.currentClient();
+        Assert.assertNotSame(client, trustOnly);
+        HttpClient.custom(null, null, null);
+        OkHttpClient defaultClient = HttpClient.currentClient();
+        Assert.assertNotSame(trustOnly, defaultClient);
+
+        // the same material in another instance
+        KeyStore copy = KeyStore.getInstance("PKCS12");
+        try (InputStream in = HttpClientCustomTest.class.getResourceAsStream("localhost.p12")) {
+            copy.load(in, PASS.toCharArray());
+        }
+        Assert.assertEquals(HttpClient.fingerprint(store, store, PASS), HttpClient.fingerprint(copy, copy, PASS));
+        HttpClient.custom(copy, copy, PASS);
+        Assert.assertSame(client, HttpClient.currentClient());
+
+        // trusting all is not trusting none
+        KeyStore empty = KeyStore.getInstance("PKCS12");
+        empty.load(null, null);
+        Assert.assertNotEquals(HttpClient.fingerprint(null, store, PASS), HttpClient.fingerprint(empty, store, PASS));
+        Assert.assertNotEquals(HttpClient.fingerprint(store, null, null), HttpClient.fingerprint(store, empty, PASS));
+
+        // the derived clients share the pool and dispatcher of the root client
+        Assert.assertSame(client.connectionPool(), defaultClient.connectionPool());
+        Assert.assertSame(client.dispatcher(), trustOnly.dispatcher());
+        Assert.assertSame(HttpClient.getConfig().getConnectionPool(), client.connectionPool());
+        Assert.assertEquals("ok", HttpClient.get(url));
+    }
+
+    @Test
+    public void testConfigure() throws Exception {
+        HttpClient.custom(store, store, PASS);
+        OkHttpClient client = HttpClient.currentClient();
+        HttpClientConfig config = HttpClientConfig.builder().build();
+        HttpClient.configure(config);
+        // the thread keeps its material, with the pool and dispatcher of the new config
+        OkHttpClient configured = HttpClient.currentClient();
+        Assert.assertNotSame(client, configured);
+        Assert.assertSame(config.getConnectionPool(), configured.connectionPool());
+        Assert.assertSame(configured, HttpClient.currentClient());
+        Assert.assertEquals("ok", HttpClient.get(url));
+        Assert.assertEquals(1, config.getConnectionPool().connectionCount());
+
+        HttpClient.custom(null, null, null);
+        Assert.assertSame(config.getConnectionPool(), HttpClient.currentClient().connectionPool());
+        Assert.assertNotSame(configured, HttpClient.currentClient());
+    }
+
+    @Test
+    public void testException1() throws IOException {
+        thrown.expect(IllegalArgumentException.class);
+        HttpClient.custom(null, store, null);
+    }
+}
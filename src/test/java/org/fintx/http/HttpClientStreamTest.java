@@ -0,0 +1,253 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.http;
+
+import com.sun.net.httpserver.HttpServer;
+
+import okio.Okio;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+public class HttpClientStreamTest {
+    private static final long LARGE = 2L * 1024 * 1024 * 1024 + 123;
+
+    static {
+        // the stand-in servers close the idle connections above 200 by default, read once by the first server of the JVM
+        System.setProperty("sun.net.httpserver.maxIdleConnections", "10000");
+    }
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HttpServer server;
+
+    private ExecutorService executor;
+
+    private String base;
+
+    // the method of the last request
+    private volatile String method;
+
+    /**
+     * The byte at the position of the bodies of the server.
+     */
+    static byte byteAt(long position) {
+        return (byte) (position % 251);
+    }
+
+    @Before
+    public void start() throws IOException {
+        executor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 16);
+        server.setExecutor(executor);
+        // a body of the size of the query, or 404 with a body
+        server.createContext("/", exchange -> {
+            method = exchange.getRequestMethod();
+            try {
+                if (exchange.getRequestURI().getPath().equals("/missing")) {
+                    exchange.sendResponseHeaders(404, 7);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write("missing".getBytes("UTF-8"));
+                    }
+                    return;
+                }
+                long size = Long.parseLong(exchange.getRequestURI().getQuery());
+                exchange.sendResponseHeaders(200, size);
+                // 251 * 261 bytes, the pattern repeats in every chunk
+                byte[] chunk = new byte[251 * 261];
+                for (int i = 0; i < chunk.length; i++) {
+                    chunk[i] = byteAt(i);
+                }
+                try (OutputStream out = exchange.getResponseBody()) {
+                    for (long written = 0; written < size; written += chunk.length) {
+                        out.write(chunk, 0, (int) Math.min(chunk.length, size - written));
+                    }
+                }
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void stop() {
+        HttpClient.configure(HttpClientConfig.DEFAULT);
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testHandler() throws IOException {
+        final long size = 10 * 1024 * 1024 + 7;
+        URL url = new URL(base + "/?" + size);
+        long read = HttpClient.get(url, body -> {
+            long position = 0;
+            try (InputStream in = body.inputStream()) {
+                byte[] buffer = new byte[8192];
+                for (int n; (n = in.read(buffer)) != -1;) {
+                    for (int i = 0; i < n; i++) {
+                        Assert.assertEquals(byteAt(position++), buffer[i]);
+                    }
+                }
+            }
+            return position;
+        });
+        Assert.assertEquals(size, read);
+
+        // the body as a channel
+        read = HttpClient.get(url, body -> {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(8192);
+            long position = 0;
+            for (int n; (n = body.read(buffer)) != -1; buffer.clear()) {
+                position += n;
+            }
+            return position;
+        });
+        Assert.assertEquals(size, read);
+
+        Assert.assertEquals(3, HttpClient.post(url, MediaType.TEXT_PLAIN, "", body -> body.readByteArray(3)).length);
+        Assert.assertEquals("POST", method);
+        Assert.assertEquals(size, HttpClient.put(url, MediaType.TEXT_PLAIN, "put", body -> body.readAll(Okio.blackhole())).longValue());
+        Assert.assertEquals("PUT", method);
+        Assert.assertEquals(3, HttpClient.delete(url, null, null, body -> body.readByteArray(3)).length);
+        Assert.assertEquals("DELETE", method);
+        Assert.assertEquals(3, HttpClient.delete(url, MediaType.TEXT_PLAIN, "delete", body -> body.readByteArray(3)).length);
+    }
+
+    @Test
+    public void testClose() throws IOException {
+        HttpClientConfig config = HttpClientConfig.builder().build();
+        HttpClient.configure(config);
+        Assert.assertSame(config.getConnectionPool(), HttpClient.currentClient().connectionPool());
+        URL url = new URL(base + "/?" + 1000000);
+        // a handler leaving the body unread, the response is closed anyway
+        Assert.assertEquals(0, HttpClient.get(url, body -> body.readByte()).byteValue());
+        try {
+            HttpClient.get(url, body -> {
+                throw new IOException("handler");
+            });
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertEquals("handler", e.getMessage());
+        }
+        try (InputStream in = HttpClient.getFile(url)) {
+            Assert.assertEquals(0, in.read());
+        }
+        try {
+            HttpClient.getFile(new URL(base + "/missing"));
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // the response of the failure is closed too
+        }
+        // no connection is leaked, every connection is idle or closed
+        Assert.assertTrue(config.getConnectionPool().connectionCount() > 0);
+        Assert.assertEquals(config.getConnectionPool().connectionCount(), config.getConnectionPool().idleConnectionCount());
+    }
+
+    @Test
+    public void testDownload() throws Exception {
+        Path file = folder.newFile("small").toPath();
+        Assert.assertEquals(100000, HttpClient.download(new URL(base + "/?100000"), file));
+        byte[] bytes = Files.readAllBytes(file);
+        Assert.assertEquals(100000, bytes.length);
+        for (int i = 0; i < bytes.length; i++) {
+            Assert.assertEquals(byteAt(i), bytes[i]);
+        }
+        Assert.assertEquals(0, HttpClient.download(new URL(base + "/?0"), file));
+        Assert.assertEquals(0, Files.size(file));
+    }
+
+    @Test
+    public void testLargeDownload() throws Exception {
+        File file = folder.newFile("large");
+        // the download runs in a JVM of 32 MB heap, the body is 64 times larger
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        Process process = new ProcessBuilder(java, "-Xmx32m", "-cp", System.getProperty("java.class.path"), Download.class.getName(),
+                base + "/?" + LARGE, file.getPath()).inheritIO().start();
+        Assert.assertTrue(process.waitFor(5, TimeUnit.MINUTES));
+        Assert.assertEquals(0, process.exitValue());
+        Assert.assertEquals(LARGE, file.length());
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            for (long position : new long[] { 0, 1, Integer.MAX_VALUE, LARGE / 3, LARGE - 1 }) {
+                in.seek(position);
+                Assert.assertEquals(byteAt(position), (byte) in.read());
+            }
+        }
+        file.delete();
+    }
+
+    /**
+     * Downloads the url of the first argument into the file of the second one.
+     */
+    public static class Download {
+        public static void main(String[] args) throws Exception {
+            long start = System.nanoTime();
+            long size = HttpClient.download(new URL(args[0]), Paths.get(args[1]));
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            System.out.println("downloaded " + size + " bytes in " + millis + " ms with max heap " + Runtime.getRuntime().maxMemory() / 1024 / 1024
+                    + " MB");
+        }
+    }
+
+    @Test
+    public void testException1() throws IOException {
+        thrown.expect(NullPointerException.class);
+        HttpClient.download(new URL(base), null);
+    }
+
+    @Test
+    public void testException2() throws IOException {
+        thrown.expect(NullPointerException.class);
+        HttpClient.get(new URL(base), (BodyHandler<Object>) null);
+    }
+
+    @Test
+    public void testException3() throws IOException {
+        thrown.expect(IllegalStateException.class);
+        HttpClient.download(new URL(base + "/missing"), folder.newFile("missing").toPath());
+    }
+}
@@ -66,7 +66,7 @@ public class HttpClientTest {
     @Test
     public void testException2() throws IllegalStateException, IOException {
         thrown.expect(NullPointerException.class);
-        HttpClient.put(null,null,null);
+        HttpClient.put(null,null,(String)null);
     }
     @Test
     public void testException3() throws IllegalStateException, IOException {
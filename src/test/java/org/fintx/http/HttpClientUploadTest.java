@@ -0,0 +1,163 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.http;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+/**
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+public class HttpClientUploadTest {
+
+    static {
+        // the stand-in servers close the idle connections above 200 by default, read once by the first server of the JVM
+        System.setProperty("sun.net.httpserver.maxIdleConnections", "10000");
+    }
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HttpServer server;
+
+    private ExecutorService executor;
+
+    private URL url;
+
+    private byte[] bytes;
+
+    @Before
+    public void start() throws IOException {
+        bytes = new byte[3 * 1024 * 1024 + 5];
+        new Random(7).nextBytes(bytes);
+        executor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 16);
+        server.setExecutor(executor);
+        // answers the method, the content type, the length and crc of the body, and whether it was chunked
+        server.createContext("/", exchange -> {
+            long length = 0;
+            CRC32 crc = new CRC32();
+            try (InputStream in = exchange.getRequestBody()) {
+                byte[] buffer = new byte[8192];
+                for (int n; (n = in.read(buffer)) != -1;) {
+                    crc.update(buffer, 0, n);
+                    length += n;
+                }
+            }
+            String answer = exchange.getRequestMethod() + " " + exchange.getRequestHeaders().getFirst("Content-Type") + " " + length + " "
+                    + crc.getValue() + " " + "chunked".equals(exchange.getRequestHeaders().getFirst("Transfer-Encoding"));
+            byte[] body = answer.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+            exchange.close();
+        });
+        server.start();
+        url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+    }
+
+    @After
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private String expected(String method, boolean chunked) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return method + " application/octet-stream " + bytes.length + " " + crc.getValue() + " " + chunked;
+    }
+
+    @Test
+    public void testBodies() throws IOException {
+        MediaType type = MediaType.APP_OCTETSTREAM;
+        Assert.assertEquals(expected("POST", true), HttpClient.post(url, type, HttpBody.of(sink -> sink.write(bytes))));
+        Assert.assertEquals(expected("POST", false), HttpClient.post(url, type, HttpBody.of(sink -> sink.outputStream().write(bytes), bytes.length)));
+        Assert.assertEquals(expected("PUT", true), HttpClient.put(url, type, HttpBody.of(new ByteArrayInputStream(bytes), HttpBody.CHUNKED)));
+        Assert.assertEquals(expected("PUT", false), HttpClient.put(url, type, HttpBody.of(new ByteArrayInputStream(bytes), bytes.length)));
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 2);
+        direct.position(2);
+        direct.put(bytes).position(2);
+        HttpBody buffer = HttpBody.of(direct);
+        Assert.assertEquals(bytes.length, buffer.getContentLength());
+        Assert.assertEquals(expected("POST", false), HttpClient.post(url, type, buffer));
+        // a buffer could be sent again
+        Assert.assertEquals(expected("PUT", false), HttpClient.put(url, type, buffer));
+        Assert.assertEquals(2, direct.position());
+
+        Path file = folder.newFile("body").toPath();
+        Files.write(file, bytes);
+        HttpBody fileBody = HttpBody.of(file);
+        Assert.assertEquals(expected("POST", false), HttpClient.post(url, type, fileBody));
+        Assert.assertEquals(expected("POST", false), HttpClient.post(url, type, fileBody));
+    }
+
+    @Test
+    public void testOneShot() throws IOException {
+        HttpBody body = HttpBody.of(new ByteArrayInputStream(bytes), HttpBody.CHUNKED);
+        HttpClient.post(url, null, body);
+        thrown.expect(IOException.class);
+        HttpClient.post(url, null, body);
+    }
+
+    @Test
+    public void testException1() {
+        thrown.expect(IllegalArgumentException.class);
+        HttpBody.of(sink -> {
+        }, -2);
+    }
+
+    @Test
+    public void testException2() throws IOException {
+        thrown.expect(NullPointerException.class);
+        HttpBody.of((Path) null);
+    }
+
+    @Test
+    public void testException3() throws IOException {
+        thrown.expect(NullPointerException.class);
+        HttpClient.put(url, null, (HttpBody) null);
+    }
+}
@@ -0,0 +1,232 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.http;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import okhttp3.internal.http2.Header;
+import okhttp3.internal.http2.Http2Connection;
+import okhttp3.internal.http2.Http2Stream;
+import okio.BufferedSink;
+import okio.Okio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLServerSocket;
+
+/**
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+public class HttpProtocolTest {
+    private static final int CONCURRENCY = 200;
+
+    private static final int ROUNDS = 5;
+
+    private static final long DELAY_MILLIS = 20;
+
+    static {
+        // the stand-in servers close the idle connections above 200 by default, read once by the first server of the JVM
+        System.setProperty("sun.net.httpserver.maxIdleConnections", "10000");
+    }
+
+    private ExecutorService executor;
+
+    private final List<ServerSocket> serverSockets = new ArrayList<ServerSocket>();
+
+    @Before
+    public void start() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void stop() throws IOException {
+        AsyncHttpClient.configure(HttpClientConfig.DEFAULT);
+        for (ServerSocket serverSocket : serverSockets) {
+            serverSocket.close();
+        }
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testConfig() {
+        Assert.assertEquals(HttpProtocol.HTTP_2, HttpClientConfig.DEFAULT.getProtocol());
+        Assert.assertEquals(HttpProtocol.H2_PRIOR_KNOWLEDGE, HttpClientConfig.builder().protocol(HttpProtocol.H2_PRIOR_KNOWLEDGE).build().getProtocol());
+        Assert.assertEquals("h2c", HttpProtocol.H2_PRIOR_KNOWLEDGE.getCode());
+    }
+
+    @Test
+    public void testH2c() throws Exception {
+        // HTTP/1.1 against a JDK server, one connection a request in flight
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), CONCURRENCY * 2);
+        server.setExecutor(executor);
+        final Set<InetSocketAddress> connections = ConcurrentHashMap.newKeySet();
+        server.createContext("/", exchange -> {
+            connections.add(exchange.getRemoteAddress());
+            try {
+                Thread.sleep(DELAY_MILLIS);
+                exchange.sendResponseHeaders(200, 2);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write("ok".getBytes(StandardCharsets.UTF_8));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+        try {
+            HttpClientConfig http1 = config(HttpProtocol.HTTP_1_1);
+            long http1Millis = load(http1, new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/"), "http/1.1");
+
+            // h2c prior knowledge against the HTTP/2 stand-in
+            AtomicInteger accepted = new AtomicInteger();
+            ServerSocket serverSocket = new ServerSocket(0, CONCURRENCY * 2, InetAddress.getLoopbackAddress());
+            serve(serverSocket, accepted);
+            HttpClientConfig h2c = config(HttpProtocol.H2_PRIOR_KNOWLEDGE);
+            long h2cMillis = load(h2c, new URL("http://127.0.0.1:" + serverSocket.getLocalPort() + "/"), "h2_prior_knowledge");
+
+            System.out.println(ROUNDS + " rounds of " + CONCURRENCY + " concurrent requests, http/1.1: " + http1Millis + " ms, " + connections.size()
+                    + " connections; h2c: " + h2cMillis + " ms, " + accepted.get() + " connections accepted, "
+                    + h2c.getConnectionPool().connectionCount() + " kept");
+            Assert.assertTrue(connections.size() >= CONCURRENCY / 4);
+            // all requests multiplexed on the connection of the first one
+            Assert.assertEquals(1, accepted.get());
+            Assert.assertEquals(1, h2c.getConnectionPool().connectionCount());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testAlpn() throws Exception {
+        KeyStore store = KeyStore.getInstance("PKCS12");
+        try (InputStream in = HttpProtocolTest.class.getResourceAsStream("localhost.p12")) {
+            store.load(in, "changeit".toCharArray());
+        }
+        KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagerFactory.init(store, "changeit".toCharArray());
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(keyManagerFactory.getKeyManagers(), null, null);
+        SSLServerSocket serverSocket = (SSLServerSocket) sslContext.getServerSocketFactory().createServerSocket(0, CONCURRENCY * 2,
+                InetAddress.getLoopbackAddress());
+        SSLParameters parameters = serverSocket.getSSLParameters();
+        parameters.setApplicationProtocols(new String[] { "h2" });
+        serverSocket.setSSLParameters(parameters);
+        AtomicInteger accepted = new AtomicInteger();
+        serve(serverSocket, accepted);
+
+        HttpClientConfig http2 = config(HttpProtocol.HTTP_2);
+        load(http2, new URL("https://127.0.0.1:" + serverSocket.getLocalPort() + "/"), "h2");
+        Assert.assertEquals(1, http2.getConnectionPool().connectionCount());
+    }
+
+    private static HttpClientConfig config(HttpProtocol protocol) {
+        return HttpClientConfig.builder().protocol(protocol).maxIdleConnections(CONCURRENCY).maxRequests(CONCURRENCY).maxRequestsPerHost(CONCURRENCY)
+                .build();
+    }
+
+    /**
+     * Runs rounds of concurrent requests, after one request connecting as a warmed up service would have.
+     *
+     * @return the milliseconds of all rounds
+     */
+    private static long load(HttpClientConfig config, URL url, String protocol) throws Exception {
+        AsyncHttpClient.configure(config);
+        Assert.assertEquals(protocol, AsyncHttpClient.get(url).get().getProtocol());
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            List<CompletableFuture<HttpResponse>> futures = new ArrayList<CompletableFuture<HttpResponse>>(CONCURRENCY);
+            for (int i = 0; i < CONCURRENCY; i++) {
+                futures.add(AsyncHttpClient.get(url));
+            }
+            for (CompletableFuture<HttpResponse> future : futures) {
+                HttpResponse response = future.get(1, TimeUnit.MINUTES);
+                Assert.assertEquals("ok", response.getBody());
+                Assert.assertEquals(protocol, response.getProtocol());
+            }
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    /**
+     * Serves HTTP/2 on the accepted connections, with the prior knowledge or after ALPN, answering "ok" to every stream after a delay.
+     */
+    private void serve(final ServerSocket serverSocket, final AtomicInteger accepted) {
+        serverSockets.add(serverSocket);
+        executor.execute(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    accepted.incrementAndGet();
+                    // the stand-in is the HTTP/2 implementation of OkHttp itself, as the MockWebServer of OkHttp
+                    Http2Connection connection = new Http2Connection.Builder(false).socket(socket).listener(new Http2Connection.Listener() {
+                        @Override
+                        public void onStream(final Http2Stream stream) {
+                            executor.execute(() -> respond(stream));
+                        }
+                    }).build();
+                    connection.start();
+                } catch (IOException e) {
+                    // closed
+                }
+            }
+        });
+    }
+
+    private static void respond(Http2Stream stream) {
+        try {
+            stream.takeHeaders();
+            Thread.sleep(DELAY_MILLIS);
+            stream.writeHeaders(Arrays.asList(new Header(Header.RESPONSE_STATUS, "200"), new Header("content-length", "2")), true);
+            try (BufferedSink sink = Okio.buffer(stream.getSink())) {
+                sink.writeUtf8("ok");
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
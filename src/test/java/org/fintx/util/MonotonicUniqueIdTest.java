@@ -0,0 +1,158 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+public class MonotonicUniqueIdTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void testGet() {
+        long before = System.currentTimeMillis();
+        MonotonicUniqueId id = MonotonicUniqueId.get();
+        Assert.assertTrue(id.getTimestamp() >= before && id.getTimestamp() <= System.currentTimeMillis() + 1);
+        Assert.assertEquals(id.getTimestamp(), id.getInstant().toEpochMilli());
+        Assert.assertEquals(UniqueId.getGeneratedMachineIdentifier() & MonotonicUniqueId.FIVE_BYTES, id.getMachineIdentifier());
+        Assert.assertEquals(UniqueId.getGeneratedProcessIdentifier() & 0xffff, id.getProcessIdentifier());
+        Assert.assertTrue(MonotonicUniqueId.get().compareTo(id) > 0);
+        Assert.assertEquals(20, MonotonicUniqueId.getString().length());
+    }
+
+    @Test
+    public void testCodec() {
+        MonotonicUniqueId[] ids = { MonotonicUniqueId.get(), new MonotonicUniqueId.Generator(-1L, -1, () -> 0xffffffffffffL).get(),
+                new MonotonicUniqueId.Generator(0L, 0, () -> 0L).get() };
+        for (MonotonicUniqueId id : ids) {
+            Assert.assertEquals(id, MonotonicUniqueId.fromByteArray(id.toByteArray()));
+            Assert.assertEquals(id, MonotonicUniqueId.fromHexString(id.toHexString()));
+            Assert.assertEquals(id, MonotonicUniqueId.fromHexString(id.toHexString().toUpperCase()));
+            Assert.assertEquals(id, MonotonicUniqueId.fromBase64String(id.toBase64String()));
+            Assert.assertEquals(id.toBase64String(), id.toString());
+            Assert.assertEquals(id.hashCode(), MonotonicUniqueId.fromHexString(id.toHexString()).hashCode());
+            ByteBuffer buffer = ByteBuffer.allocateDirect(17);
+            id.writeTo(buffer, 2);
+            Assert.assertEquals(id, MonotonicUniqueId.readFrom(buffer, 2));
+        }
+        MonotonicUniqueId max = ids[1];
+        Assert.assertEquals("ffffffffffff" + "ffffffffff" + "ffff" + "0001", max.toHexString());
+        Assert.assertEquals(0xffffffffffffL, max.getTimestamp());
+        Assert.assertEquals(MonotonicUniqueId.FIVE_BYTES, max.getMachineIdentifier());
+        Assert.assertEquals(0xffff, max.getProcessIdentifier());
+        Assert.assertEquals(1, max.getCounter());
+        Assert.assertEquals("000000000000" + "0000000000" + "0000" + "0001", ids[2].toHexString());
+    }
+
+    @Test
+    public void testOrder() {
+        AtomicLong now = new AtomicLong(1500000000000L);
+        MonotonicUniqueId.Generator generator = new MonotonicUniqueId.Generator(0x123456789aL, 1234, now::get);
+        MonotonicUniqueId[] ids = new MonotonicUniqueId[MonotonicUniqueId.COUNTERS_PER_MILLISECOND * 3];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = generator.get();
+            if (i == MonotonicUniqueId.COUNTERS_PER_MILLISECOND * 2) {
+                // the clock goes back
+                now.set(1499999999000L);
+            }
+        }
+        // the 65536 counters of a frozen millisecond are used up, the next id borrows the next millisecond
+        Assert.assertEquals(1500000000000L, ids[0].getTimestamp());
+        Assert.assertEquals(1, ids[0].getCounter());
+        Assert.assertEquals(1500000000000L, ids[MonotonicUniqueId.COUNTERS_PER_MILLISECOND - 2].getTimestamp());
+        Assert.assertEquals(0xffff, ids[MonotonicUniqueId.COUNTERS_PER_MILLISECOND - 2].getCounter());
+        Assert.assertEquals(1500000000001L, ids[MonotonicUniqueId.COUNTERS_PER_MILLISECOND - 1].getTimestamp());
+        Assert.assertEquals(0, ids[MonotonicUniqueId.COUNTERS_PER_MILLISECOND - 1].getCounter());
+        Assert.assertEquals(1500000000003L, ids[ids.length - 1].getTimestamp());
+        Assert.assertEquals(0, ids[ids.length - 1].getCounter());
+        MonotonicUniqueId[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        Assert.assertArrayEquals(ids, sorted);
+        Set<String> strings = new HashSet<String>();
+        for (int i = 1; i < ids.length; i++) {
+            Assert.assertTrue(ids[i - 1].compareTo(ids[i]) < 0);
+            // the hexadecimal strings are in the order of the ids
+            Assert.assertTrue(ids[i - 1].toHexString().compareTo(ids[i].toHexString()) < 0);
+            Assert.assertTrue(strings.add(ids[i].toHexString()));
+        }
+        // the clock catches up
+        now.set(1500000001000L);
+        Assert.assertEquals(1500000001000L, generator.get().getTimestamp());
+    }
+
+    @Test
+    public void testConcurrent() throws InterruptedException {
+        final MonotonicUniqueId[][] ids = new MonotonicUniqueId[4][100000];
+        Thread[] threads = new Thread[ids.length];
+        for (int t = 0; t < threads.length; t++) {
+            final MonotonicUniqueId[] local = ids[t];
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < local.length; i++) {
+                    local[i] = MonotonicUniqueId.get();
+                }
+            });
+            threads[t].start();
+        }
+        Set<MonotonicUniqueId> set = new HashSet<MonotonicUniqueId>();
+        for (int t = 0; t < threads.length; t++) {
+            threads[t].join();
+            for (int i = 0; i < ids[t].length; i++) {
+                Assert.assertTrue(set.add(ids[t][i]));
+                if (i > 0) {
+                    Assert.assertTrue(ids[t][i - 1].compareTo(ids[t][i]) < 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testException1() {
+        thrown.expect(IllegalArgumentException.class);
+        MonotonicUniqueId.fromByteArray(new byte[14]);
+    }
+
+    @Test
+    public void testException2() {
+        thrown.expect(IllegalArgumentException.class);
+        MonotonicUniqueId.fromHexString("0123456789abcdef0123456789abcg");
+    }
+
+    @Test
+    public void testException3() {
+        thrown.expect(IllegalArgumentException.class);
+        MonotonicUniqueId.fromBase64String("0123456789abcdef012=");
+    }
+
+    @Test
+    public void testException4() {
+        thrown.expect(IndexOutOfBoundsException.class);
+        MonotonicUniqueId.get().writeTo(ByteBuffer.allocate(16), 2);
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+public class UniqueIdClockTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void testCached() throws InterruptedException {
+        UniqueIdClock clock = UniqueIdClock.cached();
+        Assert.assertSame(clock, UniqueIdClock.cached());
+        // follows the system clock over a few second boundaries, late by the wake up of the thread at most
+        long end = System.currentTimeMillis() + 2500;
+        while (System.currentTimeMillis() < end) {
+            long before = UniqueIdClock.SYSTEM.currentTimeSeconds();
+            long cached = clock.currentTimeSeconds();
+            long after = UniqueIdClock.SYSTEM.currentTimeSeconds();
+            Assert.assertTrue(cached <= after);
+            Assert.assertTrue(cached >= before - 1);
+            if (System.currentTimeMillis() % 1000 > 100) {
+                Assert.assertTrue(cached >= before);
+            }
+            Thread.sleep(7);
+        }
+
+        UniqueIdGenerator generator = UniqueIdGenerator.builder().machineIdentifier(0x0000123456789ad0L).clock(clock).build();
+        Assert.assertSame(clock, generator.getClock());
+        Assert.assertTrue(generator.get().getTimestamp() <= System.currentTimeMillis() / 1000L);
+    }
+
+    @Test
+    public void testClose() throws InterruptedException {
+        CachedUniqueIdClock clock = new CachedUniqueIdClock(5);
+        Assert.assertEquals(5, clock.getTickMillis());
+        Assert.assertEquals(System.currentTimeMillis() / 1000L, clock.currentTimeSeconds(), 1);
+        clock.close();
+        Thread.sleep(20);
+        long closed = clock.currentTimeSeconds();
+        Thread.sleep(1100);
+        Assert.assertEquals(closed, clock.currentTimeSeconds());
+    }
+
+    @Test
+    public void testException1() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("The tick must be between 1 and 1000 milliseconds.");
+        new CachedUniqueIdClock(0);
+    }
+
+    @Test
+    public void testException2() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("The clock should not be null!");
+        UniqueIdGenerator.builder().machineIdentifier(0x0000123456789ad1L).clock(null).build();
+    }
+}
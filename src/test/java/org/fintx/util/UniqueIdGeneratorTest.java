@@ -0,0 +1,350 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+public class UniqueIdGeneratorTest {
+    public int count = 500000;
+    public int threads = 8;
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void testMultiThread() throws InterruptedException {
+        UniqueIdGenerator generator = new UniqueIdGenerator(0x0000123456789abcL, (short) 1234);
+        doTest(generator, generator);
+        Assert.assertTrue(generator.getCurrentTimeStamp() * 1000L <= System.currentTimeMillis());
+    }
+
+    @Test
+    public void testBlock() throws InterruptedException {
+        UniqueIdGenerator generator = UniqueIdGenerator.builder().machineIdentifier(0x0000123456789abdL).processIdentifier(1234).blockSize(256).build();
+        Assert.assertEquals(256, generator.getBlockSize());
+        doTest(generator, generator);
+    }
+
+    @Test
+    public void testSharedSequence() throws InterruptedException {
+        UniqueIdGenerator generator = UniqueIdGenerator.builder().machineIdentifier(0x0000123456789abeL).processIdentifier(1234).blockSize(4096).build();
+        doTest(generator, new UniqueIdGenerator(0x0000123456789abeL, (short) 1234));
+    }
+
+    @Test
+    public void testExhaustionWrap() {
+        UniqueIdGenerator generator = UniqueIdGenerator.builder().machineIdentifier(0x0000123456789ac0L).processIdentifier(1234).build();
+        Assert.assertEquals(UniqueIdGenerator.ExhaustionPolicy.WRAP, generator.getExhaustionPolicy());
+        int now = beginningOfSecond();
+        generator.reset(now, UniqueIdGenerator.COUNTERS_PER_SECOND - 1);
+        UniqueId last = generator.get();
+        UniqueId wrapped = generator.get();
+        Assert.assertEquals(now & 0xffffffffL, wrapped.getTimestamp());
+        Assert.assertEquals((last.getCounter() + 1) & UniqueIdGenerator.LOW_ORDER_THREE_BYTES, wrapped.getCounter());
+        Assert.assertEquals(1, generator.getExhaustedCount());
+    }
+
+    @Test
+    public void testExhaustionBorrow() {
+        UniqueIdGenerator generator = UniqueIdGenerator.builder().machineIdentifier(0x0000123456789ac1L).processIdentifier(1234)
+                .exhaustionPolicy(UniqueIdGenerator.ExhaustionPolicy.BORROW_NEXT_SECOND).blockSize(16).build();
+        int now = beginningOfSecond();
+        Set<UniqueId> set = new HashSet<UniqueId>();
+        for (int i = 1; i <= 3; i++) {
+            generator.reset(now + i - 1, UniqueIdGenerator.COUNTERS_PER_SECOND - 8);
+            for (int j = 0; j < 24; j++) {
+                Assert.assertTrue(set.add(generator.get()));
+            }
+            Assert.assertEquals(i, generator.getExhaustedCount());
+            Assert.assertEquals((now + i) & 0xffffffffL, generator.getCurrentTimeStamp());
+        }
+        // The borrowed seconds are ahead of the clock but still used
+        Assert.assertEquals((now + 3) & 0xffffffffL, generator.get().getTimestamp());
+    }
+
+    @Test
+    public void testExhaustionWait() {
+        UniqueIdGenerator generator = UniqueIdGenerator.builder().machineIdentifier(0x0000123456789ac2L).processIdentifier(1234)
+                .exhaustionPolicy(UniqueIdGenerator.ExhaustionPolicy.WAIT_NEXT_SECOND).build();
+        int now = beginningOfSecond();
+        generator.reset(now, UniqueIdGenerator.COUNTERS_PER_SECOND - 1);
+        Assert.assertEquals(now & 0xffffffffL, generator.get().getTimestamp());
+        UniqueId waited = generator.get();
+        Assert.assertEquals((now + 1) & 0xffffffffL, waited.getTimestamp());
+        Assert.assertTrue(System.currentTimeMillis() / 1000L >= waited.getTimestamp());
+        Assert.assertEquals(1, generator.getExhaustedCount());
+    }
+
+    @Test
+    public void testBatch() {
+        UniqueIdGenerator generator = UniqueIdGenerator.builder().machineIdentifier(0x0000123456789ac3L).processIdentifier(1234)
+                .exhaustionPolicy(UniqueIdGenerator.ExhaustionPolicy.BORROW_NEXT_SECOND).build();
+        int now = beginningOfSecond();
+        generator.reset(now, UniqueIdGenerator.COUNTERS_PER_SECOND - 1000);
+        UniqueId[] ids = generator.get(3000);
+        Set<UniqueId> set = new HashSet<UniqueId>(java.util.Arrays.asList(ids));
+        Assert.assertEquals(3000, set.size());
+        Assert.assertEquals(now & 0xffffffffL, ids[999].getTimestamp());
+        Assert.assertEquals((now + 1) & 0xffffffffL, ids[1000].getTimestamp());
+        Assert.assertEquals((ids[0].getCounter() + 1000) & UniqueIdGenerator.LOW_ORDER_THREE_BYTES, ids[1000].getCounter());
+        Assert.assertEquals(1, generator.getExhaustedCount());
+
+        byte[] bytes = new byte[3 + 15 * 100];
+        generator.fill(bytes, 3, 100);
+        UniqueId previous = ids[2999];
+        for (int i = 0; i < 100; i++) {
+            UniqueId id = UniqueId.fromByteArray(java.util.Arrays.copyOfRange(bytes, 3 + i * 15, 18 + i * 15));
+            Assert.assertTrue(set.add(id));
+            Assert.assertEquals(generator.getMachineIdentifier(), id.getMachineIdentifier());
+            Assert.assertEquals(generator.getProcessIdentifier(), id.getProcessIdentifier());
+            Assert.assertEquals((previous.getCounter() + 1) & UniqueIdGenerator.LOW_ORDER_THREE_BYTES, id.getCounter());
+            previous = id;
+        }
+        UniqueId[] empty = new UniqueId[0];
+        generator.fill(empty);
+        Assert.assertEquals(0, UniqueId.get(0).length);
+        Assert.assertEquals(2, UniqueId.get(2).length);
+    }
+
+    @Test
+    public void testClockRegressionKeepLast() throws Exception {
+        final TestClock clock = new TestClock(1500000000L);
+        final UniqueIdGenerator generator = UniqueIdGenerator.builder().machineIdentifier(0x0000123456789ac4L).processIdentifier(1234)
+                .clockRegressionPolicy(UniqueIdGenerator.ClockRegressionPolicy.KEEP_LAST).clock(clock).build();
+        Assert.assertEquals(UniqueIdGenerator.ClockRegressionPolicy.KEEP_LAST, generator.getClockRegressionPolicy());
+        final int perPhase = 20000;
+        // the clock steps back 10 seconds after the first phase and catches up after the second one, while all threads generate
+        final long[] steps = { 1499999990L, 1500000001L };
+        final java.util.concurrent.atomic.AtomicInteger phase = new java.util.concurrent.atomic.AtomicInteger();
+        final java.util.concurrent.CyclicBarrier barrier = new java.util.concurrent.CyclicBarrier(threads, new Runnable() {
+            @Override
+            public void run() {
+                clock.seconds = steps[phase.getAndIncrement()];
+            }
+        });
+        List<List<UniqueId>> lists = generate(generator, barrier, 3, perPhase);
+        Set<UniqueId> set = new HashSet<UniqueId>();
+        for (List<UniqueId> list : lists) {
+            for (int i = 0; i < list.size(); i++) {
+                UniqueId id = list.get(i);
+                Assert.assertEquals(i < perPhase * 2 ? 1500000000L : 1500000001L, id.getTimestamp());
+                Assert.assertTrue(i == 0 || id.compareTo(list.get(i - 1)) > 0);
+                Assert.assertTrue(set.add(id));
+            }
+        }
+        Assert.assertEquals(threads * perPhase, generator.getClockRegressionCount());
+        Assert.assertEquals(0, generator.getExhaustedCount());
+    }
+
+    @Test
+    public void testClockRegressionSpinWait() throws Exception {
+        final TestClock clock = new TestClock(1500000000L);
+        final UniqueIdGenerator generator = UniqueIdGenerator.builder().machineIdentifier(0x0000123456789ac5L).processIdentifier(1234).blockSize(16)
+                .clockRegressionPolicy(UniqueIdGenerator.ClockRegressionPolicy.SPIN_WAIT).clock(clock).build();
+        generator.get();
+        clock.seconds = 1499999990L;
+        final java.util.concurrent.CountDownLatch done = new java.util.concurrent.CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 100; i++) {
+                        Assert.assertTrue(generator.get().getTimestamp() >= 1500000000L);
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        // every thread waits for the clock
+        Assert.assertFalse(done.await(200, java.util.concurrent.TimeUnit.MILLISECONDS));
+        Assert.assertTrue(generator.getClockRegressionCount() >= threads);
+        clock.seconds = 1499999999L;
+        Assert.assertTrue(done.await(10, java.util.concurrent.TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testClockRegressionFailFast() {
+        TestClock clock = new TestClock(1500000000L);
+        UniqueIdGenerator generator = UniqueIdGenerator.builder().machineIdentifier(0x0000123456789ac6L).processIdentifier(1234).clock(clock).build();
+        Assert.assertEquals(UniqueIdGenerator.ClockRegressionPolicy.FAIL_FAST, generator.getClockRegressionPolicy());
+        generator.get();
+        // one second is absorbed
+        clock.seconds = 1499999999L;
+        Assert.assertEquals(1500000000L, generator.get().getTimestamp());
+        Assert.assertEquals(0, generator.getClockRegressionCount());
+        clock.seconds = 1499999995L;
+        try {
+            generator.get();
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().startsWith("The timestamp must not be less then the timestamp last time."));
+        }
+        Assert.assertEquals(1, generator.getClockRegressionCount());
+        clock.seconds = 1500000002L;
+        Assert.assertEquals(1500000002L, generator.get().getTimestamp());
+    }
+
+    @Test
+    public void testException3() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("Argument count should not be negative!");
+        UniqueId.get(-1);
+    }
+
+    @Test
+    public void testException4() {
+        thrown.expect(IndexOutOfBoundsException.class);
+        UniqueId.fill(new byte[29], 0, 2);
+    }
+
+    /**
+     * Waits for the beginning of a second, so the clock hardly passes it during a short test.
+     */
+    private static int beginningOfSecond() {
+        while (System.currentTimeMillis() % 1000L > 200L) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return (int) (System.currentTimeMillis() / 1000L);
+    }
+
+    /**
+     * Generates ids with the generator from every thread in phases, the threads meet at the barrier between phases.
+     */
+    private List<List<UniqueId>> generate(final UniqueIdGenerator generator, final java.util.concurrent.CyclicBarrier barrier, final int phases,
+            final int perPhase) throws InterruptedException {
+        final List<List<UniqueId>> lists = new ArrayList<List<UniqueId>>();
+        final List<Throwable> errors = java.util.Collections.synchronizedList(new ArrayList<Throwable>());
+        List<Thread> workers = new ArrayList<Thread>();
+        for (int i = 0; i < threads; i++) {
+            final List<UniqueId> list = new ArrayList<UniqueId>(phases * perPhase);
+            lists.add(list);
+            Thread t = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        for (int phase = 0; phase < phases; phase++) {
+                            for (int i = 0; i < perPhase; i++) {
+                                list.add(generator.get());
+                            }
+                            if (phase < phases - 1) {
+                                barrier.await();
+                            }
+                        }
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    }
+                }
+
+            });
+            workers.add(t);
+            t.start();
+        }
+        for (Thread t : workers) {
+            t.join();
+        }
+        Assert.assertEquals(java.util.Collections.emptyList(), errors);
+        return lists;
+    }
+
+    /**
+     * The clock moved by the tests.
+     */
+    private static final class TestClock implements UniqueIdClock {
+        private volatile long seconds;
+
+        private TestClock(final long seconds) {
+            this.seconds = seconds;
+        }
+
+        @Override
+        public long currentTimeSeconds() {
+            return seconds;
+        }
+    }
+
+    /**
+     * Generates ids with the two generators in turn from every thread and checks there is no duplicated one.
+     */
+    public void doTest(final UniqueIdGenerator generator1, final UniqueIdGenerator generator2) throws InterruptedException {
+        final List<List<UniqueId>> lists = new ArrayList<List<UniqueId>>();
+        List<Thread> workers = new ArrayList<Thread>();
+        for (int i = 0; i < threads; i++) {
+            final List<UniqueId> list = new ArrayList<UniqueId>(count);
+            final UniqueIdGenerator generator = i % 2 == 0 ? generator1 : generator2;
+            lists.add(list);
+            Thread t = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    for (int i = 0; i < count; i++) {
+                        list.add(generator.get());
+                    }
+                }
+
+            });
+            workers.add(t);
+            t.start();
+        }
+        for (Thread t : workers) {
+            t.join();
+        }
+        Set<UniqueId> set = new HashSet<UniqueId>(threads * count);
+        for (List<UniqueId> list : lists) {
+            long last = 0;
+            for (UniqueId id : list) {
+                Assert.assertTrue("Timestamp went back in one thread:" + id, id.getTimestamp() >= last);
+                last = id.getTimestamp();
+                Assert.assertEquals(generator1.getMachineIdentifier(), id.getMachineIdentifier());
+                Assert.assertEquals(generator1.getProcessIdentifier(), id.getProcessIdentifier());
+                Assert.assertEquals(0, id.getCounter() & 0xff000000);
+            }
+            set.addAll(list);
+        }
+        Assert.assertEquals("Duplicated id found.", threads * count, set.size());
+    }
+
+    @Test
+    public void testException1() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("The machine identifier must be between 0 and 281474976710655");
+        new UniqueIdGenerator(0x0001000000000000L, (short) 1);
+    }
+
+    @Test
+    public void testException2() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("The block size must be between 1 and 65536.");
+        UniqueIdGenerator.builder().blockSize(0).build();
+    }
+
+}
@@ -0,0 +1,134 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+public class UniqueIdIdentityTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void testResolve() {
+        UniqueIdIdentityProvider identity = UniqueIdIdentity.resolve(null);
+        Assert.assertEquals(0, identity.getMachineIdentifier() & 0xffff000000000000L);
+        Assert.assertEquals(0, identity.getProcessIdentifier() & 0xffff0000);
+
+        identity = UniqueIdIdentity.resolve(UniqueIdIdentityProvider.of(0x0000123456789abcL, 65535));
+        Assert.assertEquals(0x0000123456789abcL, identity.getMachineIdentifier());
+        Assert.assertEquals(65535, identity.getProcessIdentifier());
+
+        // the process identifier is not known by the provider, it comes from the system property
+        System.setProperty(UniqueId.MACHINE_IDENTIFIER_PROPERTY, "0x00000000000000ff");
+        System.setProperty(UniqueId.PROCESS_IDENTIFIER_PROPERTY, "1234");
+        try {
+            identity = UniqueIdIdentity.resolve(UniqueIdIdentityProvider.of(0x0000123456789abcL, UniqueIdIdentityProvider.UNKNOWN));
+            Assert.assertEquals(0x0000123456789abcL, identity.getMachineIdentifier());
+            Assert.assertEquals(1234, identity.getProcessIdentifier());
+            identity = UniqueIdIdentity.resolve(null);
+            Assert.assertEquals(0xffL, identity.getMachineIdentifier());
+        } finally {
+            System.clearProperty(UniqueId.MACHINE_IDENTIFIER_PROPERTY);
+            System.clearProperty(UniqueId.PROCESS_IDENTIFIER_PROPERTY);
+        }
+    }
+
+    @Test
+    public void testInvalid() {
+        // the identifiers which do not fit are left to the next source
+        UniqueIdIdentityProvider identity = UniqueIdIdentity.resolve(UniqueIdIdentityProvider.of(0x0001000000000000L, 65536));
+        Assert.assertEquals(0, identity.getMachineIdentifier() & 0xffff000000000000L);
+        identity = UniqueIdIdentity.resolve(UniqueIdIdentityProvider.of(0x0001000000000000L, 1234));
+        Assert.assertNotEquals(0x0001000000000000L, identity.getMachineIdentifier());
+        Assert.assertEquals(1234, identity.getProcessIdentifier());
+
+        // a provider which throws is skipped
+        identity = UniqueIdIdentity.resolve(new BrokenProvider());
+        Assert.assertEquals(0, identity.getMachineIdentifier() & 0xffff000000000000L);
+
+        // so are the malformed system properties
+        System.setProperty(UniqueId.MACHINE_IDENTIFIER_PROPERTY, "machine");
+        System.setProperty(UniqueId.PROCESS_IDENTIFIER_PROPERTY, "0x10000");
+        try {
+            identity = UniqueIdIdentity.resolve(UniqueIdIdentityProvider.of(UniqueIdIdentityProvider.UNKNOWN, UniqueIdIdentityProvider.UNKNOWN));
+            Assert.assertEquals(0, identity.getMachineIdentifier() & 0xffff000000000000L);
+            Assert.assertEquals(0, identity.getProcessIdentifier() & 0xffff0000);
+            System.setProperty(UniqueId.MACHINE_IDENTIFIER_PROPERTY, "0xff");
+            identity = UniqueIdIdentity.resolve(null);
+            Assert.assertEquals(0xffL, identity.getMachineIdentifier());
+        } finally {
+            System.clearProperty(UniqueId.MACHINE_IDENTIFIER_PROPERTY);
+            System.clearProperty(UniqueId.PROCESS_IDENTIFIER_PROPERTY);
+        }
+    }
+
+    @Test
+    public void testServiceLoader() {
+        // the services of the tests are a missing class, then a provider which throws
+        int calls = BrokenProvider.calls.get();
+        UniqueIdIdentityProvider identity = UniqueIdIdentity.resolve(null);
+        Assert.assertEquals(0, identity.getMachineIdentifier() & 0xffff000000000000L);
+        Assert.assertTrue(BrokenProvider.calls.get() > calls);
+    }
+
+    @Test
+    public void testException1() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("The machine identifier must be between 0 and 281474976710655");
+        UniqueId.setIdentityProvider(UniqueIdIdentityProvider.of(0x0001000000000000L, 1));
+    }
+
+    @Test
+    public void testException2() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("The process identifier must be between 0 and 65535");
+        UniqueId.setIdentityProvider(UniqueIdIdentityProvider.of(1L, 65536));
+    }
+
+    @Test
+    public void testException3() {
+        thrown.expect(IllegalStateException.class);
+        thrown.expectMessage("The identity of UniqueId is resolved already.");
+        UniqueId.get();
+        UniqueId.setIdentityProvider(UniqueIdIdentityProvider.of(1L, 1));
+    }
+
+    public static class BrokenProvider implements UniqueIdIdentityProvider {
+        static final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public long getMachineIdentifier() {
+            calls.incrementAndGet();
+            throw new IllegalStateException("broken");
+        }
+
+        @Override
+        public int getProcessIdentifier() {
+            calls.incrementAndGet();
+            throw new IllegalStateException("broken");
+        }
+    }
+}
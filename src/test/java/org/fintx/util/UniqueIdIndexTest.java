@@ -0,0 +1,147 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+public class UniqueIdIndexTest {
+    public int count = 200000;
+    public int threads = 8;
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testConcurrentAdd() throws Exception {
+        final UniqueId[] ids = UniqueIdGenerator.builder().machineIdentifier(0x0000123456789ad0L).processIdentifier(1234).build().get(count);
+        Path directory = folder.newFolder().toPath();
+        final AtomicInteger added = new AtomicInteger();
+        try (final UniqueIdIndex index = UniqueIdIndex.builder().directory(directory).bucketCapacity(count).build()) {
+            // every thread adds all ids, each id is new to exactly one thread
+            List<Thread> workers = new ArrayList<Thread>();
+            for (int i = 0; i < threads; i++) {
+                final int shift = i * count / threads;
+                Thread t = new Thread(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        for (int j = 0; j < count; j++) {
+                            UniqueId id = ids[(j + shift) % count];
+                            if (index.add(id)) {
+                                added.incrementAndGet();
+                            }
+                            Assert.assertTrue(index.contains(id));
+                        }
+                    }
+
+                });
+                workers.add(t);
+                t.start();
+            }
+            for (Thread t : workers) {
+                t.join();
+            }
+            Assert.assertEquals(count, added.get());
+            Assert.assertEquals(count, index.size());
+        }
+
+        // open again as after a restart
+        try (UniqueIdIndex index = UniqueIdIndex.builder().directory(directory).bucketCapacity(count).build()) {
+            Assert.assertEquals(count, index.size());
+            byte[] bytes = new byte[16];
+            for (UniqueId id : ids) {
+                id.toByteArray(bytes, 1);
+                Assert.assertTrue(index.contains(bytes, 1));
+                Assert.assertFalse(index.add(id));
+            }
+            Assert.assertFalse(index.contains(UniqueId.get()));
+        }
+    }
+
+    @Test
+    public void testSegments() throws IOException {
+        Path directory = folder.newFolder().toPath();
+        try (UniqueIdIndex index = UniqueIdIndex.builder().directory(directory).bucketSeconds(60).bucketCapacity(3000).build()) {
+            // 3 buckets, with more ids than a page in a bucket so that probing goes on to the next page
+            for (int second = 0; second < 180; second++) {
+                for (int counter = 0; counter < 15; counter++) {
+                    Assert.assertTrue(index.add(new UniqueId(1500000000 + second, 1L, (short) 1, counter)));
+                }
+            }
+            Assert.assertEquals(3, index.getSegmentCount());
+            Assert.assertEquals(2700, index.size());
+            Assert.assertEquals(0, index.dropBefore(1500000000 + 59));
+            Assert.assertEquals(2, index.dropBefore(1500000000 + 120));
+            Assert.assertEquals(1, index.getSegmentCount());
+            Assert.assertEquals(900, index.size());
+            Assert.assertFalse(index.contains(new UniqueId(1500000000 + 119, 1L, (short) 1, 0)));
+            Assert.assertTrue(index.contains(new UniqueId(1500000000 + 120, 1L, (short) 1, 0)));
+        }
+        try (UniqueIdIndex index = UniqueIdIndex.builder().directory(directory).bucketSeconds(60).build()) {
+            Assert.assertEquals(1, index.getSegmentCount());
+            Assert.assertEquals(900, index.size());
+        }
+    }
+
+    @Test
+    public void testException1() throws IOException {
+        thrown.expect(IllegalStateException.class);
+        thrown.expectMessage("is full.");
+        try (UniqueIdIndex index = UniqueIdIndex.builder().directory(folder.newFolder().toPath()).bucketCapacity(1).build()) {
+            for (int counter = 0; counter <= UniqueIdIndex.PAGE_SLOTS; counter++) {
+                index.add(new UniqueId(1500000000, 1L, (short) 1, counter));
+            }
+        }
+    }
+
+    @Test
+    public void testException2() throws IOException {
+        thrown.expect(IllegalStateException.class);
+        thrown.expectMessage("The bucket seconds of segment");
+        Path directory = folder.newFolder().toPath();
+        try (UniqueIdIndex index = UniqueIdIndex.builder().directory(directory).bucketSeconds(60).build()) {
+            index.add(UniqueId.get());
+        }
+        UniqueIdIndex.builder().directory(directory).bucketSeconds(3600).build();
+    }
+
+    @Test
+    public void testException3() throws IOException {
+        thrown.expect(IllegalStateException.class);
+        thrown.expectMessage("Not a UniqueId index segment");
+        Path directory = folder.newFolder().toPath();
+        Files.write(directory.resolve("0.uidx"), new byte[100]);
+        UniqueIdIndex.builder().directory(directory).build();
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+public class UniqueIdMetricsTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private volatile long seconds = 1500000000L;
+
+    @Test
+    public void testMetrics() throws Exception {
+        UniqueIdGenerator generator = UniqueIdGenerator.builder().machineIdentifier(0x0000123456789af0L).processIdentifier(1234).blockSize(16)
+                .clockRegressionPolicy(UniqueIdGenerator.ClockRegressionPolicy.KEEP_LAST).clock(() -> seconds).metrics(true).build();
+        UniqueIdMetrics metrics = generator.getMetrics();
+        for (int i = 0; i < 1000; i++) {
+            generator.get();
+        }
+        generator.get(200);
+        generator.fill(new byte[15 * 500], 0, 500);
+        Assert.assertEquals(1700, metrics.getIssuedCount());
+        Assert.assertEquals(0, metrics.getRolloverCount());
+
+        seconds++;
+        generator.get(10);
+        Assert.assertEquals(1710, metrics.getIssuedCount());
+        Assert.assertEquals(1, metrics.getRolloverCount());
+        // the blocks are leased as a whole, 63 blocks of 16 for the 1000 ids
+        Assert.assertEquals(1708, metrics.getLastSecondUsage());
+        Assert.assertEquals(1708, metrics.getPeakSecondUsage());
+        Assert.assertEquals(1708.0 / 16777216, metrics.getPeakSecondUtilization(), 1e-12);
+
+        seconds++;
+        generator.get();
+        Assert.assertEquals(10, metrics.getLastSecondUsage());
+        Assert.assertEquals(1708, metrics.getPeakSecondUsage());
+
+        seconds -= 5;
+        generator.get(3);
+        Assert.assertEquals(1, metrics.getClockRegressionCount());
+        Assert.assertEquals(0, metrics.getExhaustedCount());
+
+        ObjectName name = metrics.register("test");
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            Assert.assertEquals(new ObjectName("org.fintx.util:type=UniqueIdMetrics,name=\"test\""), name);
+            Assert.assertEquals(1714L, server.getAttribute(name, "IssuedCount"));
+            Assert.assertEquals(2L, server.getAttribute(name, "RolloverCount"));
+            Assert.assertEquals(1L, server.getAttribute(name, "ClockRegressionCount"));
+        } finally {
+            metrics.unregister();
+        }
+        Assert.assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+
+    @Test
+    public void testDisabled() {
+        Assert.assertNull(UniqueIdGenerator.builder().machineIdentifier(0x0000123456789af1L).build().getMetrics());
+    }
+
+    @Test
+    public void testException1() {
+        thrown.expect(IllegalStateException.class);
+        UniqueIdMetrics metrics = UniqueIdGenerator.builder().machineIdentifier(0x0000123456789af2L).metrics(true).build().getMetrics();
+        metrics.register("test-twice");
+        try {
+            metrics.register("test-twice");
+        } finally {
+            metrics.unregister();
+        }
+    }
+
+    @Test
+    public void testException2() {
+        thrown.expect(IllegalStateException.class);
+        thrown.expectMessage("Could not register the metrics test-taken.");
+        UniqueIdMetrics metrics = UniqueIdGenerator.builder().machineIdentifier(0x0000123456789af3L).metrics(true).build().getMetrics();
+        UniqueIdMetrics other = UniqueIdGenerator.builder().machineIdentifier(0x0000123456789af4L).metrics(true).build().getMetrics();
+        metrics.register("test-taken");
+        try {
+            other.register("test-taken");
+        } finally {
+            metrics.unregister();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+
+/**
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+public class UniqueIdReaderTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testBuffer() {
+        UniqueId[] ids = UniqueId.get(1000);
+        ids[1] = new UniqueId(-1, 0x0000ffffffffffffL, (short) -1, 0x00ffffff);
+        ids[2] = new UniqueId(0, 0L, (short) 0, 0);
+        ByteBuffer[] buffers = { ByteBuffer.allocate(3 + ids.length * 15), ByteBuffer.allocateDirect(3 + ids.length * 15).order(ByteOrder.LITTLE_ENDIAN) };
+        for (ByteBuffer buffer : buffers) {
+            buffer.position(3);
+            for (UniqueId id : ids) {
+                id.writeTo(buffer);
+            }
+            buffer.flip().position(3);
+            UniqueIdReader reader = UniqueIdReader.of(buffer);
+            Assert.assertEquals(ids.length, reader.getCount());
+            byte[] bytes = new byte[15];
+            for (UniqueId id : ids) {
+                Assert.assertTrue(reader.next());
+                Assert.assertEquals(id.getTimestamp(), reader.getTimestamp());
+                Assert.assertEquals(id.getEpochSecond(), reader.getEpochSecond());
+                Assert.assertEquals(id.getMachineIdentifier(), reader.getMachineIdentifier());
+                Assert.assertEquals(id.getProcessIdentifier(), reader.getProcessIdentifier());
+                Assert.assertEquals(id.getCounter(), reader.getCounter());
+                Assert.assertEquals(0, reader.compareTo(id));
+                Assert.assertEquals(id, reader.toUniqueId());
+                reader.copyTo(bytes, 0);
+                Assert.assertArrayEquals(id.toByteArray(), bytes);
+            }
+            Assert.assertFalse(reader.next());
+            Assert.assertEquals(ids.length, reader.getRead());
+            Assert.assertEquals(3, buffer.position());
+        }
+        UniqueIdReader reader = UniqueIdReader.of(buffers[0]);
+        reader.next();
+        Assert.assertEquals(1, reader.compareTo(ids[2]));
+        Assert.assertEquals(-1, reader.compareTo(ids[1]));
+    }
+
+    @Test
+    public void testFile() throws IOException {
+        UniqueId[] ids = UniqueId.get(100000);
+        ByteBuffer buffer = ByteBuffer.allocate(ids.length * 15);
+        for (UniqueId id : ids) {
+            id.writeTo(buffer);
+        }
+        Path file = folder.newFile("ids").toPath();
+        Files.write(file, buffer.array());
+        UniqueIdReader reader = UniqueIdReader.map(file);
+        Assert.assertEquals(ids.length, reader.getCount());
+        int i = 0;
+        while (reader.next()) {
+            Assert.assertEquals(0, reader.compareTo(ids[i++]));
+        }
+        Assert.assertEquals(ids.length, i);
+
+        Path empty = folder.newFile("empty").toPath();
+        Assert.assertFalse(UniqueIdReader.map(empty).next());
+    }
+
+    @Test
+    public void testException1() {
+        thrown.expect(IllegalArgumentException.class);
+        UniqueIdReader.of(ByteBuffer.allocate(16));
+    }
+
+    @Test
+    public void testException2() throws IOException {
+        thrown.expect(IllegalArgumentException.class);
+        Path file = folder.newFile("ids").toPath();
+        Files.write(file, new byte[31]);
+        UniqueIdReader.map(file);
+    }
+
+    @Test
+    public void testException3() {
+        thrown.expect(NoSuchElementException.class);
+        UniqueIdReader.of(ByteBuffer.allocate(15)).getCounter();
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+public class UniqueIdSetTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void testSet() {
+        UniqueIdSet set = new UniqueIdSet();
+        Set<UniqueId> expected = new HashSet<UniqueId>();
+        List<UniqueId> ids = randomIds(20000);
+        Random random = new Random(7);
+        // adds and removes at random so that the table resizes and shifts back after removal
+        for (int i = 0; i < 200000; i++) {
+            UniqueId id = ids.get(random.nextInt(ids.size()));
+            if (random.nextInt(3) == 0) {
+                Assert.assertEquals(expected.remove(id), set.remove(id));
+            } else {
+                Assert.assertEquals(expected.add(id), set.add(id));
+            }
+            Assert.assertEquals(expected.size(), set.size());
+        }
+        for (UniqueId id : ids) {
+            Assert.assertEquals(expected.contains(id), set.contains(id));
+            long[] longs = id.toLongs();
+            Assert.assertEquals(expected.contains(id), set.contains(longs[0], longs[1]));
+        }
+        Set<UniqueId> iterated = new HashSet<UniqueId>();
+        for (UniqueId id : set) {
+            Assert.assertTrue(iterated.add(id));
+        }
+        Assert.assertEquals(expected, iterated);
+        set.clear();
+        Assert.assertTrue(set.isEmpty());
+        Assert.assertFalse(set.contains(ids.get(0)));
+        Assert.assertFalse(set.iterator().hasNext());
+    }
+
+    @Test
+    public void testMap() {
+        UniqueIdMap<Integer> map = new UniqueIdMap<Integer>(100);
+        Map<UniqueId, Integer> expected = new HashMap<UniqueId, Integer>();
+        List<UniqueId> ids = randomIds(20000);
+        Random random = new Random(11);
+        for (int i = 0; i < 200000; i++) {
+            UniqueId id = ids.get(random.nextInt(ids.size()));
+            if (random.nextInt(3) == 0) {
+                Assert.assertEquals(expected.remove(id), map.remove(id));
+            } else {
+                Assert.assertEquals(expected.put(id, i), map.put(id, i));
+            }
+            Assert.assertEquals(expected.size(), map.size());
+        }
+        for (UniqueId id : ids) {
+            Assert.assertEquals(expected.get(id), map.get(id));
+            Assert.assertEquals(expected.containsKey(id), map.containsKey(id));
+        }
+        final Map<UniqueId, Integer> iterated = new HashMap<UniqueId, Integer>();
+        map.forEach((id, value) -> Assert.assertNull(iterated.put(id, value)));
+        Assert.assertEquals(expected, iterated);
+
+        UniqueId id = UniqueId.get();
+        Assert.assertNull(map.put(id, null));
+        Assert.assertTrue(map.containsKey(id));
+        Assert.assertNull(map.get(id));
+    }
+
+    @Test
+    public void testLongs() {
+        for (UniqueId id : randomIds(1000)) {
+            long[] longs = id.toLongs();
+            Assert.assertEquals(0, longs[1] >>> 56);
+            Assert.assertEquals(id, UniqueId.fromLongs(longs[0], longs[1]));
+            long[] dest = new long[5];
+            id.toLongs(dest, 3);
+            Assert.assertEquals(longs[0], dest[3]);
+            Assert.assertEquals(longs[1], dest[4]);
+        }
+    }
+
+    @Test
+    public void testException1() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("The low long must fit in seven bytes.");
+        new UniqueIdSet().add(0L, -1L);
+    }
+
+    @Test
+    public void testException2() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("Argument expectedSize should not be negative!");
+        new UniqueIdMap<String>(-1);
+    }
+
+    /**
+     * Ids of many seconds and processes, with the same counters in different processes.
+     */
+    private static List<UniqueId> randomIds(int count) {
+        Random random = new Random(count);
+        List<UniqueId> ids = new ArrayList<UniqueId>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(new UniqueId(random.nextInt(), random.nextLong() & 0x0000ffffffffffffL, (short) random.nextInt(4), random.nextInt(1000)));
+        }
+        return ids;
+    }
+}
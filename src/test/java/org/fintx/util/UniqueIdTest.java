@@ -22,6 +22,8 @@ import org.junit.rules.ExpectedException;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashSet;
@@ -271,4 +273,252 @@ public class UniqueIdTest {
         UniqueId.get().compareTo(null);
     }
 
+    @Test
+    public void testException8() {
+        thrown.expect(IndexOutOfBoundsException.class);
+        UniqueId.get().toBase64Chars(new char[29], 10);
+    }
+
+    @Test
+    public void testException9() {
+        thrown.expect(java.nio.BufferOverflowException.class);
+        ByteBuffer buffer = ByteBuffer.allocate(20);
+        buffer.position(6);
+        UniqueId.get().writeTo(buffer);
+    }
+
+    @Test
+    public void testException10() {
+        thrown.expect(java.nio.BufferUnderflowException.class);
+        UniqueId.readFrom(ByteBuffer.allocateDirect(14));
+    }
+
+    @Test
+    public void testException11() {
+        thrown.expect(IndexOutOfBoundsException.class);
+        UniqueId.readFrom(ByteBuffer.allocate(20), 6);
+    }
+
+    @Test
+    public void testException12() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("invalid hexadecimal representation of an UniqueId");
+        String hex = UniqueId.get().toHexString();
+        UniqueId.fromHexString(hex.substring(0, 7) + 'g' + hex.substring(8));
+    }
+
+    @Test
+    public void testException13() {
+        thrown.expect(IndexOutOfBoundsException.class);
+        UniqueId.fromBase64Bytes(new byte[25], 6);
+    }
+
+    @Test
+    public void testException14() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("invalid hexadecimal representation of an UniqueId");
+        String hex = UniqueId.get().toHexString();
+        UniqueId.fromHexString(hex.substring(0, hex.length() - 1) + 'g');
+    }
+
+    @Test
+    public void testProperty() {
+        // the invalid properties of the default generator are left at their defaults
+        System.setProperty(UniqueId.EXHAUSTION_POLICY_PROPERTY, "wait");
+        System.setProperty(UniqueId.CLOCK_REGRESSION_POLICY_PROPERTY, " SPIN_WAIT ");
+        System.setProperty(UniqueId.BLOCK_SIZE_PROPERTY, "0");
+        try {
+            Assert.assertEquals(UniqueIdGenerator.ExhaustionPolicy.WRAP,
+                    UniqueId.enumProperty(UniqueId.EXHAUSTION_POLICY_PROPERTY, UniqueIdGenerator.ExhaustionPolicy.WRAP));
+            Assert.assertEquals(UniqueIdGenerator.ClockRegressionPolicy.SPIN_WAIT,
+                    UniqueId.enumProperty(UniqueId.CLOCK_REGRESSION_POLICY_PROPERTY, UniqueIdGenerator.ClockRegressionPolicy.FAIL_FAST));
+            Assert.assertEquals(1, UniqueId.blockSizeProperty());
+            System.setProperty(UniqueId.BLOCK_SIZE_PROPERTY, "many");
+            Assert.assertEquals(1, UniqueId.blockSizeProperty());
+            System.setProperty(UniqueId.BLOCK_SIZE_PROPERTY, "256");
+            Assert.assertEquals(256, UniqueId.blockSizeProperty());
+        } finally {
+            System.clearProperty(UniqueId.EXHAUSTION_POLICY_PROPERTY);
+            System.clearProperty(UniqueId.CLOCK_REGRESSION_POLICY_PROPERTY);
+            System.clearProperty(UniqueId.BLOCK_SIZE_PROPERTY);
+        }
+    }
+
+    @Test
+    public void testParse() {
+        java.util.Random random = new java.util.Random(13);
+        for (int n = 0; n < 10000; n++) {
+            UniqueId id = new UniqueId(random.nextInt(), random.nextLong() & 0x0000ffffffffffffL, (short) random.nextInt(), random.nextInt(0x01000000));
+            String hex = id.toHexString();
+            String base64 = id.toBase64String();
+            Assert.assertEquals(id, UniqueId.fromHexString(hex));
+            Assert.assertEquals(id, UniqueId.fromHexString(hex.toUpperCase()));
+            Assert.assertEquals(id, UniqueId.fromBase64String(base64));
+            Assert.assertEquals(id, UniqueId.fromHexString("GET /" + hex + " HTTP", 5));
+            Assert.assertEquals(id, UniqueId.fromHexChars(("/" + hex).toCharArray(), 1));
+            Assert.assertEquals(id, UniqueId.fromHexBytes(("/" + hex + "?").getBytes(java.nio.charset.StandardCharsets.US_ASCII), 1));
+            Assert.assertEquals(id, UniqueId.fromBase64String(new StringBuilder("id=").append(base64), 3));
+            Assert.assertEquals(id, UniqueId.fromBase64Chars(("/" + base64).toCharArray(), 1));
+            Assert.assertEquals(id, UniqueId.fromBase64Bytes(("/" + base64 + "?").getBytes(java.nio.charset.StandardCharsets.US_ASCII), 1));
+        }
+        // every position with characters out of the alphabets, also ones out of ASCII
+        String hex = UniqueId.get().toHexString();
+        String base64 = UniqueId.get().toBase64String();
+        char[] invalids = { 'g', 'G', ' ', '-', '\u0000', '\u007f', '\u0080', '\u0130', '\uff10' };
+        for (char invalid : invalids) {
+            for (int i = 0; i < hex.length(); i++) {
+                char[] chars = hex.toCharArray();
+                chars[i] = invalid;
+                Assert.assertFalse(UniqueId.isValid(new String(chars)));
+                try {
+                    UniqueId.fromHexChars(chars, 0);
+                    Assert.fail();
+                } catch (IllegalArgumentException e) {
+                    Assert.assertTrue(e.getMessage().startsWith("invalid hexadecimal representation of an UniqueId"));
+                }
+            }
+            if (invalid == 'g' || invalid == 'G' || invalid == '-') {
+                // valid base64 characters
+                continue;
+            }
+            for (int i = 0; i < base64.length(); i++) {
+                char[] chars = base64.toCharArray();
+                chars[i] = invalid;
+                Assert.assertFalse(UniqueId.isValid(new String(chars)));
+                try {
+                    UniqueId.fromBase64String(new String(chars));
+                    Assert.fail();
+                } catch (IllegalArgumentException e) {
+                    Assert.assertTrue(e.getMessage().startsWith("invalid hexadecimal representation of an UniqueId"));
+                }
+            }
+        }
+        byte[] bytes = hex.getBytes(java.nio.charset.StandardCharsets.US_ASCII);
+        bytes[29] = (byte) 0xe6;
+        try {
+            UniqueId.fromHexBytes(bytes, 0);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().startsWith("invalid hexadecimal representation of an UniqueId"));
+        }
+        Assert.assertFalse(UniqueId.isValid(base64 + "A"));
+    }
+
+    @Test
+    public void testHash() {
+        // stable across versions, the hash could be persisted as a shard key
+        UniqueId fixed = UniqueId.fromLongs(0x0123456789abcdefL, 0x00fedcba987654L);
+        Assert.assertEquals(0x74173f220ce9c8f8L, fixed.hash64());
+        Assert.assertEquals((int) (fixed.hash64() ^ (fixed.hash64() >>> 32)), fixed.hashCode());
+
+        // 16 nodes of one vendor prefix, sequential counters in a few seconds, as generated
+        int buckets = 1 << 20;
+        int[] loads = new int[buckets];
+        int count = buckets;
+        for (int i = 0; i < count; i++) {
+            int node = i & 0xf;
+            UniqueId id = new UniqueId(0x5a000000 + i / 100000, 0x00505600a000L + node, (short) (1000 + node), (node << 12) + (i >>> 4));
+            loads[(id.hashCode() ^ (id.hashCode() >>> 16)) & (buckets - 1)]++;
+        }
+        int empty = 0;
+        int max = 0;
+        for (int load : loads) {
+            empty += load == 0 ? 1 : 0;
+            max = Math.max(max, load);
+        }
+        // a random hash leaves 1/e of the buckets empty, and the longest of them holds about 10
+        Assert.assertEquals(1 / Math.E, (double) empty / buckets, 0.01);
+        Assert.assertTrue("max load " + max, max < 16);
+    }
+
+    @Test
+    public void testCompare() {
+        List<UniqueId> ids = new ArrayList<UniqueId>();
+        int[] timestamps = { 0, 1, 0x7fffffff, 0x80000000, -1 };
+        long[] machines = { 0L, 0x0000000000000080L, 0x0000800000000000L, 0x0000ffffffffffffL };
+        short[] pids = { 0, 0x7f, (short) 0x80, (short) 0x8000, (short) -1 };
+        int[] counters = { 0, 0x80, 0x00800000, 0x00ffffff };
+        for (int timestamp : timestamps) {
+            for (long machine : machines) {
+                for (short pid : pids) {
+                    for (int counter : counters) {
+                        ids.add(new UniqueId(timestamp, machine, pid, counter));
+                    }
+                }
+            }
+        }
+        java.util.Collections.shuffle(ids, new java.util.Random(1));
+        for (int i = 0; i < ids.size(); i++) {
+            UniqueId id = ids.get(i);
+            UniqueId other = ids.get((i * 7 + 3) % ids.size());
+            byte[] bytes = id.toByteArray();
+            byte[] otherBytes = other.toByteArray();
+            // the reference order, unsigned bytes one by one
+            int expected = 0;
+            for (int j = 0; j < 15 && expected == 0; j++) {
+                expected = Integer.signum((bytes[j] & 0xff) - (otherBytes[j] & 0xff));
+            }
+            Assert.assertEquals(expected, id.compareTo(other));
+            Assert.assertEquals(-expected, other.compareTo(id));
+            Assert.assertEquals(expected, UniqueId.BYTES_COMPARATOR.compare(bytes, otherBytes));
+            Assert.assertEquals(0, id.compareTo(UniqueId.fromByteArray(bytes)));
+        }
+        List<UniqueId> sorted = new ArrayList<UniqueId>(ids);
+        java.util.Collections.sort(sorted);
+        byte[][] arrays = new byte[ids.size()][];
+        for (int i = 0; i < arrays.length; i++) {
+            arrays[i] = ids.get(i).toByteArray();
+        }
+        java.util.Arrays.sort(arrays, UniqueId.BYTES_COMPARATOR);
+        for (int i = 0; i < arrays.length; i++) {
+            Assert.assertEquals(sorted.get(i), UniqueId.fromByteArray(arrays[i]));
+        }
+    }
+
+    @Test
+    public void testCodec() {
+        List<UniqueId> ids = new ArrayList<UniqueId>();
+        ids.add(UniqueId.get());
+        ids.add(new UniqueId(0, 0L, (short) 0, 0));
+        ids.add(new UniqueId(-1, 0x0000ffffffffffffL, (short) -1, 0x00ffffff));
+        ids.add(new UniqueId(0x80000001, 0x0000800000000001L, (short) 0x8001, 0x00800001));
+        byte[] bytes = new byte[3 + 15];
+        char[] chars = new char[5 + 30];
+        ByteBuffer heap = ByteBuffer.allocate(20);
+        ByteBuffer direct = ByteBuffer.allocateDirect(20).order(ByteOrder.LITTLE_ENDIAN);
+        for (UniqueId id : ids) {
+            byte[] expected = id.toByteArray();
+            Assert.assertEquals(id, UniqueId.fromByteArray(expected));
+            Assert.assertEquals(java.util.Base64.getUrlEncoder().encodeToString(expected), id.toBase64String());
+            Assert.assertEquals(String.format("%030x", new java.math.BigInteger(1, expected)), id.toHexString());
+            Assert.assertEquals(id, UniqueId.fromHexString(id.toHexString()));
+            Assert.assertEquals(id, UniqueId.fromBase64String(id.toBase64String()));
+
+            id.toByteArray(bytes, 3);
+            Assert.assertArrayEquals(expected, java.util.Arrays.copyOfRange(bytes, 3, 18));
+            Assert.assertEquals(id, UniqueId.fromByteArray(bytes, 3));
+            id.toHexChars(chars, 5);
+            Assert.assertEquals(id.toHexString(), new String(chars, 5, 30));
+            id.toBase64Chars(chars, 5);
+            Assert.assertEquals(id.toBase64String(), new String(chars, 5, 20));
+            for (ByteBuffer buffer : new ByteBuffer[] { heap, direct }) {
+                id.writeTo(buffer, 5);
+                Assert.assertEquals(0, buffer.position());
+                byte[] written = new byte[15];
+                for (int i = 0; i < 15; i++) {
+                    written[i] = buffer.get(5 + i);
+                }
+                Assert.assertArrayEquals(expected, written);
+                Assert.assertEquals(id, UniqueId.readFrom(buffer, 5));
+                buffer.position(2);
+                id.writeTo(buffer);
+                Assert.assertEquals(17, buffer.position());
+                buffer.position(2);
+                Assert.assertEquals(id, UniqueId.readFrom(buffer));
+                Assert.assertEquals(17, buffer.position());
+                buffer.clear();
+            }
+        }
+    }
+
 }
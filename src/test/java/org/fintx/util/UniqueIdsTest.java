@@ -0,0 +1,113 @@
+/**
+ *  Copyright 2017 FinTx
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fintx.util;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.Random;
+
+/**
+ * @author bluecreator(qiang.x.wang@gmail.com)
+ *
+ */
+public class UniqueIdsTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void testTimestampRange() {
+        // a journal of 10 seconds, a few ids every second, sorted
+        Random random = new Random(3);
+        UniqueId[] ids = new UniqueId[1000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = new UniqueId(0x80000000 + random.nextInt(10), random.nextLong() & 0x0000ffffffffffffL, (short) random.nextInt(), random.nextInt(0x01000000));
+        }
+        java.util.Arrays.sort(ids);
+        byte[] packed = new byte[7 + ids.length * 15];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i].toByteArray(packed, 7 + i * 15);
+        }
+        for (long t1 = 0x80000000L - 1; t1 <= 0x80000000L + 10; t1++) {
+            for (long t2 = t1; t2 <= 0x80000000L + 10; t2++) {
+                int from = UniqueIds.firstIndexOf(ids, t1);
+                int to = UniqueIds.endIndexOf(ids, t2);
+                for (int i = 0; i < ids.length; i++) {
+                    boolean inRange = ids[i].getTimestamp() >= t1 && ids[i].getTimestamp() <= t2;
+                    Assert.assertEquals(inRange, i >= from && i < to);
+                }
+                Assert.assertEquals(from, UniqueIds.firstIndexOf(packed, 7, ids.length, t1));
+                Assert.assertEquals(to, UniqueIds.endIndexOf(packed, 7, ids.length, t2));
+            }
+        }
+    }
+
+    @Test
+    public void testBounds() {
+        UniqueId[] ids = { UniqueId.minForTimestamp(5), new UniqueId(5, 1L, (short) 1, 1), new UniqueId(5, 1L, (short) 1, 1),
+                UniqueId.maxForTimestamp(5), UniqueId.minForTimestamp(0xffffffffL) };
+        byte[] packed = new byte[ids.length * 15];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i].toByteArray(packed, i * 15);
+        }
+        Assert.assertEquals(1, UniqueIds.lowerBound(ids, ids[1]));
+        Assert.assertEquals(3, UniqueIds.upperBound(ids, ids[1]));
+        Assert.assertEquals(1, UniqueIds.lowerBound(packed, 0, ids.length, ids[1]));
+        Assert.assertEquals(3, UniqueIds.upperBound(packed, 0, ids.length, ids[1]));
+        Assert.assertEquals(0, UniqueIds.lowerBound(ids, UniqueId.minForTimestamp(0)));
+        Assert.assertEquals(5, UniqueIds.upperBound(ids, UniqueId.maxForTimestamp(0xffffffffL)));
+        Assert.assertEquals(4, UniqueIds.endIndexOf(packed, 0, ids.length, 0xfffffffeL));
+        Assert.assertEquals(0, UniqueIds.lowerBound(new UniqueId[0], ids[0]));
+        Assert.assertEquals(-1, UniqueId.maxForTimestamp(5).compareTo(UniqueId.minForTimestamp(6)));
+    }
+
+    @Test
+    public void testEpochSeconds() {
+        long now = System.currentTimeMillis() / 1000L;
+        UniqueId id = UniqueId.get();
+        Assert.assertTrue(Math.abs(id.getEpochSecond() - now) <= 1);
+        Assert.assertEquals(id.getEpochSecond() * 1000L, id.getDate().getTime());
+        Assert.assertEquals(id.getEpochSecond(), id.getInstant().getEpochSecond());
+        Assert.assertEquals(id.getEpochSecond() * 1000L, id.toEpochMilli());
+
+        // ahead of the clock (borrowed seconds or a clock not in sync) and the last round
+        UniqueId[] ids = { new UniqueId((int) (now + 100), 1L, (short) 1, 1), new UniqueId(-1, 1L, (short) 1, 1), new UniqueId(0, 1L, (short) 1, 1),
+                UniqueId.minForTimestamp(now - 3600 * 24 * 365 * 10L) };
+        long[] seconds = new long[5];
+        UniqueIds.epochSeconds(ids, seconds);
+        Assert.assertEquals(now + 100, seconds[0]);
+        Assert.assertEquals(-1L, seconds[1]);
+        Assert.assertEquals(0L, seconds[2]);
+        Assert.assertEquals(now - 3600 * 24 * 365 * 10L, seconds[3]);
+        Assert.assertEquals(0L, seconds[4]);
+    }
+
+    @Test
+    public void testException1() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("The timestamp must be between 0 and 4294967295");
+        UniqueId.minForTimestamp(-1L);
+    }
+
+    @Test
+    public void testException2() {
+        thrown.expect(IndexOutOfBoundsException.class);
+        UniqueIds.lowerBound(new byte[29], 0, 2, UniqueId.get());
+    }
+}